@@ -0,0 +1,73 @@
+package com.xinwendewen.flexbox.benchmark;
+
+import com.xinwendewen.flexbox.FlexContainerImpl;
+import com.xinwendewen.flexbox.trace.LayoutTrace;
+import com.xinwendewen.flexbox.trace.LayoutTraceReplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays every {@code *.trace} file of a directory, as written by
+ * {@link LayoutTrace#writeTo}, through the flex engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class LayoutTraceBenchmark {
+
+    @Param("traces")
+    public String traceDirectory;
+
+    private LayoutTraceReplayer[] replayers;
+
+    @Setup
+    public void setUp() throws IOException {
+        File[] files = new File(traceDirectory).listFiles((dir, name) -> name.endsWith(".trace"));
+        if (files == null || files.length == 0) {
+            throw new IllegalStateException("No trace found in " + traceDirectory);
+        }
+        Arrays.sort(files);
+        List<LayoutTraceReplayer> result = new ArrayList<>(files.length);
+        for (File file : files) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                LayoutTraceReplayer replayer = LayoutTrace.readFrom(in).newReplayer();
+                // fail fast on traces recorded with a different engine
+                replayer.replay();
+                result.add(replayer);
+            }
+        }
+        replayers = result.toArray(new LayoutTraceReplayer[0]);
+    }
+
+    @Benchmark
+    public void replayAll(Blackhole blackhole) {
+        for (LayoutTraceReplayer replayer : replayers) {
+            FlexContainerImpl flexContainer = replayer.replay();
+            blackhole.consume(flexContainer.getFlexLines());
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.xinwendewen.flexbox.cli;
+
+import com.xinwendewen.flexbox.FlexContainerImpl;
+import com.xinwendewen.flexbox.LayoutResultBuffer;
+import com.xinwendewen.flexbox.MeasureFunction;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lays out the containers described by the lines of a file, see {@link LayoutDescription},
+ * and writes their results as a stream of big-endian records:
+ * <pre>
+ * lineNumber, width, height, resultSize, resultSize ints in the LayoutResultBuffer format
+ * </pre>
+ * Blank lines and lines starting with {@code #} are skipped. The input is read through a
+ * memory-mapped window, batches of lines are laid out in parallel, and the results of each
+ * batch go out in a single write, in input order. The throughput goes to stderr.
+ */
+public final class BatchLayout {
+    private static final String USAGE = "usage: BatchLayout <input> [--output <file>]"
+            + " [--threads <count>] [--batch <lines>]";
+
+    private final int threadCount;
+    private final int batchSize;
+
+    private BatchLayout(int threadCount, int batchSize) {
+        this.threadCount = threadCount;
+        this.batchSize = batchSize;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String input = null;
+        String output = null;
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        int batchSize = 1024;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--output":
+                        output = args[++i];
+                        break;
+                    case "--threads":
+                        threadCount = Integer.parseInt(args[++i]);
+                        break;
+                    case "--batch":
+                        batchSize = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        if (input != null || args[i].startsWith("--")) {
+                            throw new IllegalArgumentException(args[i]);
+                        }
+                        input = args[i];
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            input = null;
+        }
+        if (input == null || threadCount < 1 || batchSize < 1) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        // the input is opened first, so that a missing input leaves an existing output alone
+        try (MappedLineReader reader = new MappedLineReader(new File(input));
+             WritableByteChannel out = openOutput(output)) {
+            Stats stats = new BatchLayout(threadCount, batchSize).run(reader, out);
+            System.err.println(stats);
+        } catch (BatchException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println(e);
+            System.exit(1);
+        }
+    }
+
+    private static WritableByteChannel openOutput(String output) throws IOException {
+        if (output == null) {
+            return new FileOutputStream(FileDescriptor.out).getChannel();
+        }
+        return FileChannel.open(new File(output).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private Stats run(MappedLineReader reader, WritableByteChannel out)
+            throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+        // bounds the results held in memory while the writes catch up
+        int maxPendingBatchCount = threadCount * 2;
+        ArrayDeque<Future<Batch>> pendingBatches = new ArrayDeque<>();
+        Stats stats = new Stats();
+        long startTime = System.nanoTime();
+        try {
+            int lineNumber = 0;
+            boolean hasMoreLines = true;
+            while (hasMoreLines) {
+                final int firstLineNumber = lineNumber + 1;
+                final List<String> lines = new ArrayList<>(batchSize);
+                while (lines.size() < batchSize) {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        hasMoreLines = false;
+                        break;
+                    }
+                    lines.add(line);
+                    lineNumber++;
+                }
+                if (lines.isEmpty()) {
+                    break;
+                }
+                pendingBatches.add(executor.submit(
+                        () -> workers.get().layout(firstLineNumber, lines)));
+                if (pendingBatches.size() >= maxPendingBatchCount) {
+                    write(pendingBatches.poll(), out, stats);
+                }
+            }
+            while (!pendingBatches.isEmpty()) {
+                write(pendingBatches.poll(), out, stats);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        stats.inputBytes = reader.getBytesRead();
+        stats.nanos = System.nanoTime() - startTime;
+        return stats;
+    }
+
+    private static void write(Future<Batch> future, WritableByteChannel out, Stats stats)
+            throws IOException, InterruptedException {
+        Batch batch;
+        try {
+            batch = future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BatchException) {
+                throw (BatchException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        while (batch.results.hasRemaining()) {
+            out.write(batch.results);
+        }
+        stats.layoutCount += batch.layoutCount;
+        stats.itemCount += batch.itemCount;
+        stats.outputBytes += batch.results.limit();
+    }
+
+    private static final class Batch {
+        final ByteBuffer results;
+        final int layoutCount;
+        final long itemCount;
+
+        Batch(ByteBuffer results, int layoutCount, long itemCount) {
+            this.results = results;
+            this.layoutCount = layoutCount;
+            this.itemCount = itemCount;
+        }
+    }
+
+    /** The container and the buffers of a thread, reused by all its batches. */
+    private static final class Worker {
+        final FlexContainerImpl container = new FlexContainerImpl();
+        IntBuffer resultInts = IntBuffer.allocate(0);
+        LayoutResultBuffer results = new LayoutResultBuffer(resultInts);
+
+        Batch layout(int firstLineNumber, List<String> lines) {
+            ByteBuffer out = ByteBuffer.allocate(lines.size() * 64);
+            int layoutCount = 0;
+            long itemCount = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i).trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int lineNumber = firstLineNumber + i;
+                LayoutDescription description;
+                try {
+                    description = LayoutDescription.parse(line);
+                } catch (IllegalArgumentException e) {
+                    throw new BatchException("line " + lineNumber + ": " + e.getMessage());
+                }
+                int itemSize = description.items.size();
+                int requiredInts = LayoutResultBuffer.getRequiredBytes(itemSize) / 4;
+                if (resultInts.capacity() < requiredInts) {
+                    resultInts = IntBuffer.allocate(Math.max(requiredInts, resultInts.capacity() * 2));
+                    results = new LayoutResultBuffer(resultInts);
+                }
+                long size = description.layout(container, results);
+                int resultSize = results.getSize();
+                out = ensureRemaining(out, (4 + resultSize) * 4);
+                out.putInt(lineNumber);
+                out.putInt(MeasureFunction.unpackWidth(size));
+                out.putInt(MeasureFunction.unpackHeight(size));
+                out.putInt(resultSize);
+                for (int j = 0; j < resultSize; j++) {
+                    out.putInt(resultInts.get(j));
+                }
+                layoutCount++;
+                itemCount += itemSize;
+            }
+            out.flip();
+            return new Batch(out, layoutCount, itemCount);
+        }
+
+        private static ByteBuffer ensureRemaining(ByteBuffer buffer, int remaining) {
+            if (buffer.remaining() >= remaining) {
+                return buffer;
+            }
+            ByteBuffer newBuffer = ByteBuffer.allocate(
+                    Math.max(buffer.capacity() * 2, buffer.position() + remaining));
+            buffer.flip();
+            newBuffer.put(buffer);
+            return newBuffer;
+        }
+    }
+
+    private static final class Stats {
+        long layoutCount;
+        long itemCount;
+        long inputBytes;
+        long outputBytes;
+        long nanos;
+
+        @Override
+        public String toString() {
+            double seconds = Math.max(nanos, 1) / 1e9;
+            return String.format(Locale.ROOT,
+                    "%d layouts, %d items in %.3f s: %.0f layouts/s, %.0f items/s,"
+                            + " %.1f MB/s in, %.1f MB/s out",
+                    layoutCount, itemCount, seconds, layoutCount / seconds, itemCount / seconds,
+                    inputBytes / seconds / 1e6, outputBytes / seconds / 1e6);
+        }
+    }
+
+    private static final class BatchException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BatchException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.xinwendewen.flexbox.cli;
+
+import com.xinwendewen.flexbox.AlignContent;
+import com.xinwendewen.flexbox.AlignItems;
+import com.xinwendewen.flexbox.AlignSelf;
+import com.xinwendewen.flexbox.FlexContainerImpl;
+import com.xinwendewen.flexbox.FlexDirection;
+import com.xinwendewen.flexbox.FlexLine;
+import com.xinwendewen.flexbox.FlexLineSink;
+import com.xinwendewen.flexbox.FlexStyle;
+import com.xinwendewen.flexbox.FlexWrap;
+import com.xinwendewen.flexbox.IntrinsicSize;
+import com.xinwendewen.flexbox.JustifyContent;
+import com.xinwendewen.flexbox.LayoutResultBuffer;
+import com.xinwendewen.flexbox.LeafFlexItem;
+import com.xinwendewen.flexbox.MeasureConstraint;
+import com.xinwendewen.flexbox.MeasureFunction;
+import com.xinwendewen.flexbox.Paddings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A flex container and its leaf items, parsed from one line of the batch input:
+ * <pre>
+ * container ; item ; item ...
+ * container: width height [direction=row] [wrap=nowrap] [justify=flex_start]
+ *            [align-items=stretch] [align-content=stretch] [max-lines=N] [gap=main,cross]
+ *            [padding=left,top,right,bottom]
+ * item:      width height [grow=F] [shrink=F] [basis=F] [align=auto]
+ *            [margin=left,top,right,bottom] [min=width,height] [max=width,height]
+ * </pre>
+ * A container size is {@code N} (exactly), {@code <=N} (at most) or {@code *} (unspecified).
+ * An item size is {@code N} (fixed), {@code ~N} (wrap content of intrinsic size N) or
+ * {@code match} (match parent). Enum values are the lower case constant names.
+ */
+final class LayoutDescription {
+    final FlexStyle flexStyle;
+    final Paddings paddings = new Paddings();
+    final MeasureConstraint widthRequest;
+    final MeasureConstraint heightRequest;
+    final List<LeafFlexItem> items = new ArrayList<>();
+
+    private LayoutDescription(FlexStyle flexStyle, MeasureConstraint widthRequest,
+                              MeasureConstraint heightRequest) {
+        this.flexStyle = flexStyle;
+        this.widthRequest = widthRequest;
+        this.heightRequest = heightRequest;
+    }
+
+    static LayoutDescription parse(String line) {
+        String[] segments = line.split(";");
+        String[] tokens = tokenize(segments[0], 2);
+        FlexStyle flexStyle = FlexStyle.DEFAULT;
+        int[] paddings = new int[4];
+        for (int i = 2; i < tokens.length; i++) {
+            String key = getKey(tokens[i]);
+            String value = getValue(tokens[i]);
+            switch (key) {
+                case "direction":
+                    flexStyle = flexStyle.withFlexDirection(parseEnum(FlexDirection.class, value));
+                    break;
+                case "wrap":
+                    flexStyle = flexStyle.withFlexWrap(parseEnum(FlexWrap.class, value));
+                    break;
+                case "justify":
+                    flexStyle = flexStyle.withJustifyContent(
+                            parseEnum(JustifyContent.class, value));
+                    break;
+                case "align-items":
+                    flexStyle = flexStyle.withAlignItems(parseEnum(AlignItems.class, value));
+                    break;
+                case "align-content":
+                    flexStyle = flexStyle.withAlignContent(parseEnum(AlignContent.class, value));
+                    break;
+                case "max-lines":
+                    flexStyle = flexStyle.withMaxLine(Integer.parseInt(value));
+                    break;
+                case "gap":
+                    int[] gaps = parseInts(value, 2);
+                    flexStyle = flexStyle.withGaps(gaps[0], gaps[1]);
+                    break;
+                case "padding":
+                    paddings = parseInts(value, 4);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown container option: " + key);
+            }
+        }
+        LayoutDescription description = new LayoutDescription(flexStyle,
+                parseRequest(tokens[0]), parseRequest(tokens[1]));
+        description.paddings.leftPadding = paddings[0];
+        description.paddings.topPadding = paddings[1];
+        description.paddings.rightPadding = paddings[2];
+        description.paddings.bottomPadding = paddings[3];
+        description.paddings.startPadding = paddings[0];
+        description.paddings.endPadding = paddings[2];
+        for (int i = 1; i < segments.length; i++) {
+            description.items.add(parseItem(segments[i]));
+        }
+        return description;
+    }
+
+    private static LeafFlexItem parseItem(String segment) {
+        String[] tokens = tokenize(segment, 2);
+        int[] intrinsicSize = new int[2];
+        int[] size = new int[2];
+        for (int i = 0; i < 2; i++) {
+            String token = tokens[i];
+            if (token.equals("match")) {
+                size[i] = LeafFlexItem.MATCH_PARENT;
+            } else if (token.startsWith("~")) {
+                size[i] = LeafFlexItem.WRAP_CONTENT;
+                intrinsicSize[i] = Integer.parseInt(token.substring(1));
+            } else {
+                size[i] = Integer.parseInt(token);
+                intrinsicSize[i] = size[i];
+            }
+        }
+        LeafFlexItem item = new LeafFlexItem(new IntrinsicSize(intrinsicSize[0], intrinsicSize[1]));
+        item.setWidth(size[0]);
+        item.setHeight(size[1]);
+        for (int i = 2; i < tokens.length; i++) {
+            String key = getKey(tokens[i]);
+            String value = getValue(tokens[i]);
+            switch (key) {
+                case "grow":
+                    item.setFlexGrow(Float.parseFloat(value));
+                    break;
+                case "shrink":
+                    item.setFlexShrink(Float.parseFloat(value));
+                    break;
+                case "basis":
+                    item.setFlexBasisPercent(Float.parseFloat(value));
+                    break;
+                case "align":
+                    item.setAlignSelf(parseEnum(AlignSelf.class, value));
+                    break;
+                case "margin":
+                    int[] margins = parseInts(value, 4);
+                    item.setMargins(margins[0], margins[1], margins[2], margins[3]);
+                    break;
+                case "min":
+                    int[] minSize = parseInts(value, 2);
+                    item.setMinWidth(minSize[0]);
+                    item.setMinHeight(minSize[1]);
+                    break;
+                case "max":
+                    int[] maxSize = parseInts(value, 2);
+                    item.setMaxWidth(maxSize[0]);
+                    item.setMaxHeight(maxSize[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown item option: " + key);
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Measures and lays out the items into the result buffer and returns the size of the
+     * container packed with {@link MeasureFunction#packSize}.
+     */
+    long layout(FlexContainerImpl container, LayoutResultBuffer results) {
+        container.setFlexStyle(flexStyle);
+        container.setPaddings(paddings);
+        container.setLayoutResultBuffer(results);
+        boolean isMainAxisHorizontal = flexStyle.isMainAxisHorizontal();
+        MeasureConstraint mainAxisMeasureRequest =
+                isMainAxisHorizontal ? widthRequest : heightRequest;
+        MeasureConstraint crossAxisMeasureRequest =
+                isMainAxisHorizontal ? heightRequest : widthRequest;
+        LargestMainSize largestMainSize = new LargestMainSize();
+        int crossSize = container.measureAndLayout(items.iterator(), mainAxisMeasureRequest,
+                crossAxisMeasureRequest, false, largestMainSize);
+        int mainPaddings = isMainAxisHorizontal ? paddings.leftPadding + paddings.rightPadding
+                : paddings.topPadding + paddings.bottomPadding;
+        int mainSize = mainAxisMeasureRequest.isTight() ? mainAxisMeasureRequest.getSize()
+                : (int) Math.min((long) largestMainSize.mainSize + mainPaddings,
+                mainAxisMeasureRequest.getSize());
+        return isMainAxisHorizontal ? MeasureFunction.packSize(mainSize, crossSize)
+                : MeasureFunction.packSize(crossSize, mainSize);
+    }
+
+    private static String[] tokenize(String segment, int requiredCount) {
+        String trimmed = segment.trim();
+        String[] tokens = trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+        if (tokens.length < requiredCount) {
+            throw new IllegalArgumentException("Missing size in: " + segment.trim());
+        }
+        return tokens;
+    }
+
+    private static String getKey(String option) {
+        int index = option.indexOf('=');
+        if (index < 0) {
+            throw new IllegalArgumentException("Not an option: " + option);
+        }
+        return option.substring(0, index);
+    }
+
+    private static String getValue(String option) {
+        return option.substring(option.indexOf('=') + 1);
+    }
+
+    private static int[] parseInts(String value, int count) {
+        String[] parts = value.split(",");
+        if (parts.length != count) {
+            throw new IllegalArgumentException("Expected " + count + " values: " + value);
+        }
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = Integer.parseInt(parts[i]);
+        }
+        return result;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+    }
+
+    static MeasureConstraint parseRequest(String token) {
+        if (token.equals("*")) {
+            // the largest line decides the size, see FlexContainerImpl#determineMainSize
+            return MeasureConstraint.unspecified();
+        }
+        if (token.startsWith("<=")) {
+            return MeasureConstraint.atMost(Integer.parseInt(token.substring(2)));
+        }
+        return MeasureConstraint.exactly(Integer.parseInt(token));
+    }
+
+    private static final class LargestMainSize implements FlexLineSink {
+        int mainSize;
+
+        @Override
+        public void onFlexLine(FlexLine flexLine) {
+            mainSize = Math.max(mainSize, flexLine.getMainSize());
+        }
+    }
+}
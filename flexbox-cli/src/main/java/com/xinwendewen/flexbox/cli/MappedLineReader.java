@@ -0,0 +1,77 @@
+package com.xinwendewen.flexbox.cli;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the lines of a file of any size through a sliding memory-mapped window, so that the
+ * file is paged in by the OS instead of copied through stream buffers.
+ */
+final class MappedLineReader implements Closeable {
+    private static final int WINDOW_SIZE = 64 << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private byte[] line = new byte[256];
+
+    MappedLineReader(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        size = channel.size();
+        map(0);
+    }
+
+    long getBytesRead() {
+        return windowStart + window.position();
+    }
+
+    /** Returns the next line without its terminator, or {@code null} at the end of the file. */
+    String readLine() throws IOException {
+        int length = 0;
+        boolean hasLine = false;
+        while (true) {
+            if (!window.hasRemaining()) {
+                long position = windowStart + window.position();
+                if (position >= size) {
+                    break;
+                }
+                map(position);
+            }
+            hasLine = true;
+            byte b = window.get();
+            if (b == '\n') {
+                break;
+            }
+            if (length == line.length) {
+                byte[] newLine = new byte[line.length * 2];
+                System.arraycopy(line, 0, newLine, 0, length);
+                line = newLine;
+            }
+            line[length++] = b;
+        }
+        if (!hasLine) {
+            return null;
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private void map(long position) throws IOException {
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                Math.min(WINDOW_SIZE, size - position));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,57 @@
+package com.xinwendewen.flexbox.headless;
+
+import com.xinwendewen.flexbox.FlexItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Lays out a tree whose leaves load their content from slow sources. The measure calls of the
+ * engine are synchronous and nested in the line breaking, so rather than blocking in each of
+ * them, every {@link AsyncLeafFlexItem} of the tree that is not loaded yet starts loading up
+ * front, and the layout pass runs once all of them are in. The pass then waits for the slowest
+ * load instead of the sum of all loads.
+ */
+public final class AsyncLayout {
+    private AsyncLayout() {
+    }
+
+    /**
+     * Loads the leaves of the tree, then lays it out on the executor and completes with the
+     * size of the root packed with {@link com.xinwendewen.flexbox.MeasureFunction#packSize}.
+     * Completes exceptionally if a load fails. The tree must not be changed until then.
+     */
+    public static CompletableFuture<Long> layout(ContainerFlexItem root, int widthMode,
+                                                 int width, int heightMode, int height,
+                                                 Executor executor) {
+        List<CompletableFuture<Void>> loads = new ArrayList<>();
+        collectLoads(root, loads);
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]))
+                .thenApplyAsync(ignored -> root.layoutAsRoot(widthMode, width, heightMode,
+                        height), executor);
+    }
+
+    // returns whether a leaf under the container loads, in which case its cached sizes are stale
+    private static boolean collectLoads(ContainerFlexItem container,
+                                        List<CompletableFuture<Void>> loads) {
+        boolean hasLoads = false;
+        for (int i = 0; i < container.getChildCount(); i++) {
+            FlexItem child = container.getChildAt(i);
+            if (child instanceof ContainerFlexItem) {
+                hasLoads |= collectLoads((ContainerFlexItem) child, loads);
+            } else if (child instanceof AsyncLeafFlexItem) {
+                AsyncLeafFlexItem leaf = (AsyncLeafFlexItem) child;
+                if (!leaf.isLoaded()) {
+                    loads.add(leaf.load());
+                    hasLoads = true;
+                }
+            }
+        }
+        if (hasLoads) {
+            container.markDirty();
+        }
+        return hasLoads;
+    }
+}
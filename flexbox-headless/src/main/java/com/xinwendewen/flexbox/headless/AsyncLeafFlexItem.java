@@ -0,0 +1,59 @@
+package com.xinwendewen.flexbox.headless;
+
+import com.xinwendewen.flexbox.LeafFlexItem;
+import com.xinwendewen.flexbox.MeasureFunction;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A leaf whose content is loaded by an {@link AsyncMeasureFunction} before the layout pass,
+ * by {@link AsyncLayout}. Measuring it before its content is loaded throws an
+ * {@link IllegalStateException}.
+ */
+public class AsyncLeafFlexItem extends LeafFlexItem {
+    private final LoadedMeasureFunction loadedMeasureFunction;
+
+    public AsyncLeafFlexItem(AsyncMeasureFunction asyncMeasureFunction) {
+        this(new LoadedMeasureFunction(asyncMeasureFunction));
+    }
+
+    private AsyncLeafFlexItem(LoadedMeasureFunction loadedMeasureFunction) {
+        super(loadedMeasureFunction);
+        this.loadedMeasureFunction = loadedMeasureFunction;
+    }
+
+    public boolean isLoaded() {
+        return loadedMeasureFunction.loaded != null;
+    }
+
+    /** Drops the loaded content, so that the next {@link AsyncLayout} pass loads it again. */
+    public void invalidate() {
+        loadedMeasureFunction.loaded = null;
+        markDirty();
+    }
+
+    CompletableFuture<Void> load() {
+        return loadedMeasureFunction.asyncMeasureFunction.load().thenAccept(loaded -> {
+            loadedMeasureFunction.loaded = loaded;
+            markDirty();
+        });
+    }
+
+    private static final class LoadedMeasureFunction implements MeasureFunction {
+        final AsyncMeasureFunction asyncMeasureFunction;
+        volatile MeasureFunction loaded;
+
+        LoadedMeasureFunction(AsyncMeasureFunction asyncMeasureFunction) {
+            this.asyncMeasureFunction = asyncMeasureFunction;
+        }
+
+        @Override
+        public long measure(int widthMode, int width, int heightMode, int height) {
+            MeasureFunction measureFunction = loaded;
+            if (measureFunction == null) {
+                throw new IllegalStateException("The content of the leaf is not loaded");
+            }
+            return measureFunction.measure(widthMode, width, heightMode, height);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.xinwendewen.flexbox.headless;
+
+import com.xinwendewen.flexbox.MeasureFunction;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Loads the content a leaf is measured from, e.g. the dimensions in an image header, from a
+ * slow source. See {@link AsyncLayout}.
+ */
+public interface AsyncMeasureFunction {
+    /** Starts loading and returns the measure function of the loaded content. */
+    CompletableFuture<? extends MeasureFunction> load();
+
+    /**
+     * Adapts a blocking lookup by running it on the executor. Pass an executor of virtual
+     * threads where the runtime has them, so that waiting lookups do not hold platform threads.
+     */
+    static AsyncMeasureFunction blocking(Supplier<? extends MeasureFunction> lookup,
+                                         Executor executor) {
+        return () -> CompletableFuture.supplyAsync(lookup, executor);
+    }
+}
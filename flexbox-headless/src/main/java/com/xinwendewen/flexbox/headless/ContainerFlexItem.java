@@ -0,0 +1,206 @@
+package com.xinwendewen.flexbox.headless;
+
+import com.xinwendewen.flexbox.CancellationToken;
+import com.xinwendewen.flexbox.ContainerMeasure;
+import com.xinwendewen.flexbox.FlexContainerImpl;
+import com.xinwendewen.flexbox.FlexItem;
+import com.xinwendewen.flexbox.FlexStyle;
+import com.xinwendewen.flexbox.LayoutCancelledException;
+import com.xinwendewen.flexbox.LeafFlexItem;
+import com.xinwendewen.flexbox.MeasureFunction;
+import com.xinwendewen.flexbox.Paddings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A flex item that is itself a flex container, for laying out trees of flex items without
+ * platform views. It is measured by running the engine over its children, and laying it out
+ * lays out its children relative to it.
+ *
+ * <p>Like any leaf, a container caches its measured sizes per constraints; call
+ * {@link #markDirty()} on it and on its ancestors when a descendant changes.
+ */
+public class ContainerFlexItem extends LeafFlexItem {
+    private final FlexContainerImpl container = new FlexContainerImpl();
+    private final Paddings paddings = new Paddings();
+    private final List<FlexItem> children = new ArrayList<>();
+    private boolean isChildrenChanged;
+    private boolean isRtl;
+    private boolean isChildLayoutDeferred;
+
+    public ContainerFlexItem() {
+        this(new ContainerMeasureFunction());
+    }
+
+    private ContainerFlexItem(ContainerMeasureFunction containerMeasureFunction) {
+        super(containerMeasureFunction);
+        containerMeasureFunction.owner = this;
+    }
+
+    public FlexStyle getFlexStyle() {
+        return container.getFlexStyle();
+    }
+
+    public void setFlexStyle(FlexStyle flexStyle) {
+        container.setFlexStyle(flexStyle);
+        markDirty();
+    }
+
+    public void setPaddings(int left, int top, int right, int bottom) {
+        paddings.leftPadding = left;
+        paddings.topPadding = top;
+        paddings.rightPadding = right;
+        paddings.bottomPadding = bottom;
+        paddings.startPadding = isRtl ? right : left;
+        paddings.endPadding = isRtl ? left : right;
+        container.setPaddings(paddings);
+        markDirty();
+    }
+
+    public int getPaddingLeft() {
+        return paddings.leftPadding;
+    }
+
+    public int getPaddingTop() {
+        return paddings.topPadding;
+    }
+
+    public int getPaddingRight() {
+        return paddings.rightPadding;
+    }
+
+    public int getPaddingBottom() {
+        return paddings.bottomPadding;
+    }
+
+    public boolean isRtl() {
+        return isRtl;
+    }
+
+    public void setRtl(boolean isRtl) {
+        this.isRtl = isRtl;
+        setPaddings(paddings.leftPadding, paddings.topPadding, paddings.rightPadding,
+                paddings.bottomPadding);
+    }
+
+    public boolean isFixedPointArithmetic() {
+        return container.isFixedPointArithmetic();
+    }
+
+    public void setFixedPointArithmetic(boolean enabled) {
+        container.setFixedPointArithmetic(enabled);
+        markDirty();
+    }
+
+    public void addChild(FlexItem child) {
+        children.add(child);
+        isChildrenChanged = true;
+        markDirty();
+    }
+
+    public void removeChildAt(int index) {
+        children.remove(index);
+        isChildrenChanged = true;
+        markDirty();
+    }
+
+    public int getChildCount() {
+        return children.size();
+    }
+
+    public FlexItem getChildAt(int index) {
+        return children.get(index);
+    }
+
+    /**
+     * Measures and lays out this container as the root of a tree and returns its size packed
+     * with {@link MeasureFunction#packSize}.
+     */
+    public long layoutAsRoot(int widthMode, int width, int heightMode, int height) {
+        long size = measureContainer(widthMode, width, heightMode, height);
+        int measuredWidth = MeasureFunction.unpackWidth(size);
+        int measuredHeight = MeasureFunction.unpackHeight(size);
+        layoutChildren(measuredWidth, measuredHeight);
+        return size;
+    }
+
+    /**
+     * Like {@link #layoutAsRoot(int, int, int, int)}, but stops with a
+     * {@link LayoutCancelledException} once the token is cancelled. The tree keeps the sizes
+     * measured so far and can be laid out again.
+     */
+    public long layoutAsRoot(int widthMode, int width, int heightMode, int height,
+                             CancellationToken cancellationToken) {
+        setCancellationToken(cancellationToken);
+        try {
+            return layoutAsRoot(widthMode, width, heightMode, height);
+        } finally {
+            setCancellationToken(null);
+        }
+    }
+
+    /** Sets the token on the containers of the subtree, see {@link FlexContainerImpl}. */
+    void setCancellationToken(CancellationToken cancellationToken) {
+        container.setCancellationToken(cancellationToken);
+        for (FlexItem child : children) {
+            if (child instanceof ContainerFlexItem) {
+                ((ContainerFlexItem) child).setCancellationToken(cancellationToken);
+            }
+        }
+    }
+
+    @Override
+    protected void layout(int left, int top, int right, int bottom) {
+        super.layout(left, top, right, bottom);
+        if (!isChildLayoutDeferred) {
+            layoutChildren(right - left, bottom - top);
+        }
+    }
+
+    /**
+     * Lays out the children, leaving the children of nested containers to the caller: they are
+     * positioned and sized, and added to the list to lay out their own children later.
+     */
+    void layoutChildrenDeferringNested(int width, int height,
+                                       List<ContainerFlexItem> nestedContainers) {
+        for (FlexItem child : children) {
+            if (child instanceof ContainerFlexItem) {
+                ContainerFlexItem nestedContainer = (ContainerFlexItem) child;
+                nestedContainer.isChildLayoutDeferred = true;
+                nestedContainers.add(nestedContainer);
+            }
+        }
+        try {
+            layoutChildren(width, height);
+        } finally {
+            for (ContainerFlexItem nestedContainer : nestedContainers) {
+                nestedContainer.isChildLayoutDeferred = false;
+            }
+        }
+    }
+
+    void layoutChildren(int width, int height) {
+        // the last measure pass may have been for other constraints, e.g. served from the cache
+        measureContainer(MeasureFunction.EXACTLY, width, MeasureFunction.EXACTLY, height);
+        container.layout(0, 0, width, height, isRtl);
+    }
+
+    long measureContainer(int widthMode, int width, int heightMode, int height) {
+        if (isChildrenChanged) {
+            container.setFlexItems(children, children.size());
+            isChildrenChanged = false;
+        }
+        return ContainerMeasure.measure(container, paddings, widthMode, width, heightMode,
+                height);
+    }
+
+    private static final class ContainerMeasureFunction implements MeasureFunction {
+        ContainerFlexItem owner;
+
+        @Override
+        public long measure(int widthMode, int width, int heightMode, int height) {
+            return owner.measureContainer(widthMode, width, heightMode, height);
+        }
+    }
+}
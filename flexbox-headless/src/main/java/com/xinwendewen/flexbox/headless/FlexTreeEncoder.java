@@ -0,0 +1,186 @@
+package com.xinwendewen.flexbox.headless;
+
+import static com.xinwendewen.flexbox.headless.FlexTreeFormat.PARAM_FLAG_GONE;
+import static com.xinwendewen.flexbox.headless.FlexTreeFormat.STYLE_FLAG_FIXED_POINT;
+import static com.xinwendewen.flexbox.headless.FlexTreeFormat.STYLE_FLAG_RTL;
+import static com.xinwendewen.flexbox.headless.FlexTreeFormat.UNBOUNDED;
+
+import com.xinwendewen.flexbox.FlexItem;
+import com.xinwendewen.flexbox.FlexStyle;
+import com.xinwendewen.flexbox.IntrinsicSize;
+import com.xinwendewen.flexbox.LeafFlexItem;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes a tree of {@link ContainerFlexItem}s and {@link IntrinsicSize} leaves in the
+ * {@link FlexTreeFormat}. Equal styles and equal item params are written once.
+ */
+public final class FlexTreeEncoder {
+    private final Writer styles = new Writer();
+    private final Map<ByteBuffer, Integer> styleIndexes = new HashMap<>();
+    private final Writer params = new Writer();
+    private final Map<ByteBuffer, Integer> paramIndexes = new HashMap<>();
+    private final Writer nodes = new Writer();
+    private final Writer entry = new Writer();
+
+    private FlexTreeEncoder() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the tree has an item other than a container or a
+     *                                  leaf of {@link IntrinsicSize}
+     */
+    public static ByteBuffer encode(ContainerFlexItem root) {
+        return new FlexTreeEncoder().encodeTree(root);
+    }
+
+    private ByteBuffer encodeTree(ContainerFlexItem root) {
+        List<FlexItem> queue = new ArrayList<>();
+        queue.add(root);
+        for (int i = 0; i < queue.size(); i++) {
+            FlexItem item = queue.get(i);
+            if (item instanceof ContainerFlexItem) {
+                ContainerFlexItem container = (ContainerFlexItem) item;
+                nodes.writeVarint(getStyleIndex(container) + 1);
+                nodes.writeVarint(getParamIndex(container));
+                nodes.writeVarint(container.getChildCount());
+                for (int j = 0; j < container.getChildCount(); j++) {
+                    queue.add(container.getChildAt(j));
+                }
+            } else if (item instanceof LeafFlexItem
+                    && ((LeafFlexItem) item).getMeasureFunction() instanceof IntrinsicSize) {
+                LeafFlexItem leaf = (LeafFlexItem) item;
+                IntrinsicSize intrinsicSize = (IntrinsicSize) leaf.getMeasureFunction();
+                nodes.writeVarint(0);
+                nodes.writeVarint(getParamIndex(leaf));
+                nodes.writeVarint(intrinsicSize.getWidth());
+                nodes.writeVarint(intrinsicSize.getHeight());
+            } else {
+                throw new IllegalArgumentException("Cannot encode flex item: " + item);
+            }
+        }
+        Writer out = new Writer();
+        out.writeInt(FlexTreeFormat.MAGIC);
+        out.writeByte(FlexTreeFormat.VERSION);
+        out.writeVarint(styleIndexes.size());
+        out.write(styles);
+        out.writeVarint(paramIndexes.size());
+        out.write(params);
+        out.writeVarint(queue.size());
+        out.write(nodes);
+        return ByteBuffer.wrap(out.bytes, 0, out.size).slice();
+    }
+
+    private int getStyleIndex(ContainerFlexItem container) {
+        FlexStyle flexStyle = container.getFlexStyle();
+        entry.reset();
+        entry.writeByte(flexStyle.flexDirection.ordinal());
+        entry.writeByte(flexStyle.flexWrap.ordinal());
+        entry.writeByte(flexStyle.justifyContent.ordinal());
+        entry.writeByte(flexStyle.alignItems.ordinal());
+        entry.writeByte(flexStyle.alignContent.ordinal());
+        entry.writeSignedVarint(flexStyle.maxLine);
+        entry.writeSignedVarint(flexStyle.mainGap);
+        entry.writeSignedVarint(flexStyle.crossGap);
+        entry.writeVarint(container.getPaddingLeft());
+        entry.writeVarint(container.getPaddingTop());
+        entry.writeVarint(container.getPaddingRight());
+        entry.writeVarint(container.getPaddingBottom());
+        entry.writeByte((container.isRtl() ? STYLE_FLAG_RTL : 0)
+                | (container.isFixedPointArithmetic() ? STYLE_FLAG_FIXED_POINT : 0));
+        return getIndex(entry, styles, styleIndexes);
+    }
+
+    private int getParamIndex(LeafFlexItem item) {
+        entry.reset();
+        entry.writeSignedVarint(item.getRequiredWidth());
+        entry.writeSignedVarint(item.getRequiredHeight());
+        entry.writeFloat(item.getFlexGrow());
+        entry.writeFloat(item.getFlexShrink());
+        entry.writeFloat(item.getFlexBasisPercent());
+        entry.writeByte(item.getAlignSelf().ordinal());
+        entry.writeSignedVarint(item.getMarginLeft());
+        entry.writeSignedVarint(item.getMarginTop());
+        entry.writeSignedVarint(item.getMarginRight());
+        entry.writeSignedVarint(item.getMarginBottom());
+        entry.writeVarint(item.getMinWidth());
+        entry.writeVarint(item.getMinHeight());
+        entry.writeSignedVarint(toMaxSize(item.getMaxWidth()));
+        entry.writeSignedVarint(toMaxSize(item.getMaxHeight()));
+        entry.writeByte(item.isGone() ? PARAM_FLAG_GONE : 0);
+        return getIndex(entry, params, paramIndexes);
+    }
+
+    private static int toMaxSize(int maxSize) {
+        return maxSize == Integer.MAX_VALUE ? UNBOUNDED : maxSize;
+    }
+
+    private static int getIndex(Writer entry, Writer table, Map<ByteBuffer, Integer> indexes) {
+        ByteBuffer key = ByteBuffer.wrap(entry.toByteArray());
+        Integer index = indexes.get(key);
+        if (index == null) {
+            index = indexes.size();
+            indexes.put(key, index);
+            table.write(entry);
+        }
+        return index;
+    }
+
+    private static final class Writer {
+        byte[] bytes = new byte[64];
+        int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        void writeByte(int value) {
+            if (size == bytes.length) {
+                byte[] newBytes = new byte[bytes.length * 2];
+                System.arraycopy(bytes, 0, newBytes, 0, size);
+                bytes = newBytes;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            writeByte(value >>> 24);
+            writeByte(value >>> 16);
+            writeByte(value >>> 8);
+            writeByte(value);
+        }
+
+        void writeFloat(float value) {
+            writeInt(Float.floatToIntBits(value));
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7f) != 0) {
+                writeByte((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        void writeSignedVarint(int value) {
+            writeVarint(FlexTreeFormat.toSignedVarint(value));
+        }
+
+        void write(Writer other) {
+            for (int i = 0; i < other.size; i++) {
+                writeByte(other.bytes[i]);
+            }
+        }
+
+        byte[] toByteArray() {
+            byte[] result = new byte[size];
+            System.arraycopy(bytes, 0, result, 0, size);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.xinwendewen.flexbox.headless;
+
+import com.xinwendewen.flexbox.IntrinsicSize;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The binary encoding of a tree of {@link ContainerFlexItem}s and leaves of
+ * {@link IntrinsicSize}, written by {@link FlexTreeEncoder} and read by {@link FlexTreeLoader}:
+ * <pre>
+ * magic (int), version (byte)
+ * style table:  count, then per style: direction, wrap, justify content, align items,
+ *               align content (bytes), max lines, main gap, cross gap (svarints), paddings
+ *               left, top, right, bottom (varints), flags (byte: rtl, fixed point)
+ * param table:  count, then per item: width, height (svarints), flex grow, flex shrink,
+ *               flex basis percent (floats), align self (byte), margins left, top, right,
+ *               bottom (svarints), min width, min height (varints), max width, max height
+ *               (svarints, -1 for unbounded), flags (byte: gone)
+ * nodes:        count, then per node in breadth-first order: style index + 1, or 0 for a
+ *               leaf (varint), param index (varint), then the child count of a container or
+ *               the intrinsic width and height of a leaf (varints)
+ * </pre>
+ * Counts are varints. In breadth-first order the children of every container are consecutive,
+ * so the child counts are the children index: the first child of a container follows the
+ * children of all the containers before it.
+ */
+final class FlexTreeFormat {
+    static final int MAGIC = 0x464c5452;
+    static final int VERSION = 1;
+
+    static final int STYLE_FLAG_RTL = 1;
+    static final int STYLE_FLAG_FIXED_POINT = 1 << 1;
+    static final int PARAM_FLAG_GONE = 1;
+    static final int UNBOUNDED = -1;
+
+    private FlexTreeFormat() {
+    }
+
+    static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at " + buffer.position());
+    }
+
+    static int readSignedVarint(ByteBuffer buffer) {
+        int value = readVarint(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int toSignedVarint(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+}
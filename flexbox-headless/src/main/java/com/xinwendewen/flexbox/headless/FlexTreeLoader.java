@@ -0,0 +1,185 @@
+package com.xinwendewen.flexbox.headless;
+
+import static com.xinwendewen.flexbox.headless.FlexTreeFormat.PARAM_FLAG_GONE;
+import static com.xinwendewen.flexbox.headless.FlexTreeFormat.STYLE_FLAG_FIXED_POINT;
+import static com.xinwendewen.flexbox.headless.FlexTreeFormat.STYLE_FLAG_RTL;
+import static com.xinwendewen.flexbox.headless.FlexTreeFormat.UNBOUNDED;
+import static com.xinwendewen.flexbox.headless.FlexTreeFormat.readSignedVarint;
+import static com.xinwendewen.flexbox.headless.FlexTreeFormat.readVarint;
+
+import com.xinwendewen.flexbox.AlignContent;
+import com.xinwendewen.flexbox.AlignItems;
+import com.xinwendewen.flexbox.AlignSelf;
+import com.xinwendewen.flexbox.FlexDirection;
+import com.xinwendewen.flexbox.FlexStyle;
+import com.xinwendewen.flexbox.FlexWrap;
+import com.xinwendewen.flexbox.IntrinsicSize;
+import com.xinwendewen.flexbox.JustifyContent;
+import com.xinwendewen.flexbox.LeafFlexItem;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Builds a tree of {@link ContainerFlexItem}s and {@link IntrinsicSize} leaves straight from
+ * the {@link FlexTreeFormat} bytes between the position and the limit of a buffer. The tables
+ * are decoded into primitive arrays and the items are created as the nodes are read; the
+ * position of the buffer is left untouched.
+ */
+public final class FlexTreeLoader {
+    private static final FlexDirection[] FLEX_DIRECTIONS = FlexDirection.values();
+    private static final FlexWrap[] FLEX_WRAPS = FlexWrap.values();
+    private static final JustifyContent[] JUSTIFY_CONTENTS = JustifyContent.values();
+    private static final AlignItems[] ALIGN_ITEMS = AlignItems.values();
+    private static final AlignContent[] ALIGN_CONTENTS = AlignContent.values();
+    private static final AlignSelf[] ALIGN_SELVES = AlignSelf.values();
+
+    private FlexTreeLoader() {
+    }
+
+    /** @throws IllegalArgumentException if the bytes are not a valid flex tree */
+    public static ContainerFlexItem load(ByteBuffer buffer) {
+        ByteBuffer in = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        try {
+            return loadTree(in);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated or corrupt flex tree", e);
+        }
+    }
+
+    private static ContainerFlexItem loadTree(ByteBuffer in) {
+        if (in.getInt() != FlexTreeFormat.MAGIC) {
+            throw new IllegalArgumentException("Not a flex tree");
+        }
+        int version = in.get();
+        if (version != FlexTreeFormat.VERSION) {
+            throw new IllegalArgumentException("Unsupported flex tree version: " + version);
+        }
+
+        int styleCount = readCount(in, "style");
+        FlexStyle[] styles = new FlexStyle[styleCount];
+        int[] paddings = new int[styleCount * 4];
+        byte[] styleFlags = new byte[styleCount];
+        for (int i = 0; i < styleCount; i++) {
+            styles[i] = FlexStyle.of(FLEX_DIRECTIONS[in.get()], FLEX_WRAPS[in.get()],
+                    JUSTIFY_CONTENTS[in.get()], ALIGN_ITEMS[in.get()], ALIGN_CONTENTS[in.get()],
+                    readSignedVarint(in), readSignedVarint(in), readSignedVarint(in));
+            for (int j = 0; j < 4; j++) {
+                paddings[i * 4 + j] = readVarint(in);
+            }
+            styleFlags[i] = in.get();
+        }
+
+        int paramCount = readCount(in, "param");
+        // width, height, margins left, top, right, bottom, min width, min height, max width,
+        // max height per param
+        int[] sizes = new int[paramCount * 10];
+        float[] flexFactors = new float[paramCount * 3];
+        AlignSelf[] alignSelves = new AlignSelf[paramCount];
+        byte[] paramFlags = new byte[paramCount];
+        for (int i = 0; i < paramCount; i++) {
+            sizes[i * 10] = readSignedVarint(in);
+            sizes[i * 10 + 1] = readSignedVarint(in);
+            flexFactors[i * 3] = in.getFloat();
+            flexFactors[i * 3 + 1] = in.getFloat();
+            flexFactors[i * 3 + 2] = in.getFloat();
+            alignSelves[i] = ALIGN_SELVES[in.get()];
+            for (int j = 2; j < 6; j++) {
+                sizes[i * 10 + j] = readSignedVarint(in);
+            }
+            sizes[i * 10 + 6] = readVarint(in);
+            sizes[i * 10 + 7] = readVarint(in);
+            sizes[i * 10 + 8] = readSignedVarint(in);
+            sizes[i * 10 + 9] = readSignedVarint(in);
+            paramFlags[i] = in.get();
+        }
+
+        int nodeCount = readCount(in, "node");
+        if (nodeCount == 0) {
+            throw new IllegalArgumentException("Empty flex tree");
+        }
+        // the containers in breadth-first order and the children they still expect
+        ContainerFlexItem[] containers = new ContainerFlexItem[nodeCount];
+        int[] remainingChildCounts = new int[nodeCount];
+        int containerCount = 0;
+        int parentIndex = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            int styleIndex = readVarint(in) - 1;
+            int paramIndex = readVarint(in);
+            // the parent is resolved before the node is registered, so it is never its own
+            ContainerFlexItem parent = null;
+            if (i > 0) {
+                while (parentIndex < containerCount && remainingChildCounts[parentIndex] == 0) {
+                    parentIndex++;
+                }
+                if (parentIndex == containerCount) {
+                    throw new IllegalArgumentException("Node " + i + " has no parent");
+                }
+                parent = containers[parentIndex];
+                remainingChildCounts[parentIndex]--;
+            }
+            LeafFlexItem item;
+            if (styleIndex >= 0) {
+                ContainerFlexItem container = new ContainerFlexItem();
+                container.setFlexStyle(styles[styleIndex]);
+                container.setRtl((styleFlags[styleIndex] & STYLE_FLAG_RTL) != 0);
+                container.setFixedPointArithmetic(
+                        (styleFlags[styleIndex] & STYLE_FLAG_FIXED_POINT) != 0);
+                container.setPaddings(paddings[styleIndex * 4], paddings[styleIndex * 4 + 1],
+                        paddings[styleIndex * 4 + 2], paddings[styleIndex * 4 + 3]);
+                containers[containerCount] = container;
+                remainingChildCounts[containerCount] = readCount(in, "child");
+                containerCount++;
+                item = container;
+            } else {
+                item = new LeafFlexItem(new IntrinsicSize(readVarint(in), readVarint(in)));
+            }
+            applyParams(item, paramIndex, sizes, flexFactors, alignSelves, paramFlags);
+            if (parent != null) {
+                parent.addChild(item);
+            } else if (!(item instanceof ContainerFlexItem)) {
+                throw new IllegalArgumentException("The root is not a container");
+            }
+        }
+        for (int i = 0; i < containerCount; i++) {
+            if (remainingChildCounts[i] != 0) {
+                throw new IllegalArgumentException(
+                        "Container " + i + " is missing " + remainingChildCounts[i] + " children");
+            }
+        }
+        return containers[0];
+    }
+
+    private static void applyParams(LeafFlexItem item, int paramIndex, int[] sizes,
+                                    float[] flexFactors, AlignSelf[] alignSelves,
+                                    byte[] paramFlags) {
+        int offset = paramIndex * 10;
+        item.setWidth(sizes[offset]);
+        item.setHeight(sizes[offset + 1]);
+        item.setFlexGrow(flexFactors[paramIndex * 3]);
+        item.setFlexShrink(flexFactors[paramIndex * 3 + 1]);
+        item.setFlexBasisPercent(flexFactors[paramIndex * 3 + 2]);
+        item.setAlignSelf(alignSelves[paramIndex]);
+        item.setMargins(sizes[offset + 2], sizes[offset + 3], sizes[offset + 4],
+                sizes[offset + 5]);
+        item.setMinWidth(sizes[offset + 6]);
+        item.setMinHeight(sizes[offset + 7]);
+        item.setMaxWidth(fromMaxSize(sizes[offset + 8]));
+        item.setMaxHeight(fromMaxSize(sizes[offset + 9]));
+        item.setGone((paramFlags[paramIndex] & PARAM_FLAG_GONE) != 0);
+    }
+
+    /** Reads a count, which can not exceed the remaining bytes as every entry takes one. */
+    private static int readCount(ByteBuffer in, String name) {
+        int count = readVarint(in);
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalArgumentException("Invalid " + name + " count: " + count);
+        }
+        return count;
+    }
+
+    private static int fromMaxSize(int maxSize) {
+        return maxSize == UNBOUNDED ? Integer.MAX_VALUE : maxSize;
+    }
+}
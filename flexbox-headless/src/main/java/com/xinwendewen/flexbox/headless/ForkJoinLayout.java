@@ -0,0 +1,100 @@
+package com.xinwendewen.flexbox.headless;
+
+import com.xinwendewen.flexbox.CancellationToken;
+import com.xinwendewen.flexbox.LayoutCancelledException;
+import com.xinwendewen.flexbox.MeasureFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Lays out a single deep tree on a {@link ForkJoinPool}. Measuring a container needs the sizes
+ * of its children, so the measure pass of the root runs on one thread; but once a container is
+ * laid out, the final sizes of its nested containers are fixed, and each of them remeasures
+ * and lays out its own subtree independently of its siblings. Those subtrees are forked as
+ * separate tasks, down to the leaves. Sibling subtrees share no state, so the results are the
+ * same as the ones of {@link ContainerFlexItem#layoutAsRoot}.
+ *
+ * <p>Only the measure pass of the root is serial, and it only descends into the nested
+ * containers whose size depends on their content: a nested container with a fixed width and
+ * height is sized without measuring its subtree, which is measured in its forked task. A tree
+ * of content sized containers is therefore measured on the calling thread, and gains only from
+ * the parallel layout.
+ */
+public final class ForkJoinLayout {
+    private ForkJoinLayout() {
+    }
+
+    /**
+     * Measures and lays out the tree and returns the size of the root packed with
+     * {@link MeasureFunction#packSize}. The tree must not be changed until then.
+     */
+    public static long layout(ContainerFlexItem root, int widthMode, int width, int heightMode,
+                              int height, ForkJoinPool pool) {
+        long size = root.measureContainer(widthMode, width, heightMode, height);
+        pool.invoke(new LayoutTask(root, MeasureFunction.unpackWidth(size),
+                MeasureFunction.unpackHeight(size)));
+        return size;
+    }
+
+    /**
+     * Like {@link #layout(ContainerFlexItem, int, int, int, int, ForkJoinPool)}, but stops all
+     * the tasks with a {@link LayoutCancelledException} once the token is cancelled.
+     */
+    public static long layout(ContainerFlexItem root, int widthMode, int width, int heightMode,
+                              int height, ForkJoinPool pool,
+                              CancellationToken cancellationToken) {
+        root.setCancellationToken(cancellationToken);
+        try {
+            return layout(root, widthMode, width, heightMode, height, pool);
+        } finally {
+            root.setCancellationToken(null);
+        }
+    }
+
+    private static final class LayoutTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ContainerFlexItem container;
+        private final int width;
+        private final int height;
+
+        LayoutTask(ContainerFlexItem container, int width, int height) {
+            this.container = container;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        protected void compute() {
+            List<ContainerFlexItem> nestedContainers = new ArrayList<>();
+            container.layoutChildrenDeferringNested(width, height, nestedContainers);
+            if (nestedContainers.isEmpty()) {
+                return;
+            }
+            if (nestedContainers.size() == 1) {
+                // nothing to run in parallel with, stay on this thread
+                ContainerFlexItem nestedContainer = nestedContainers.get(0);
+                new LayoutTask(nestedContainer, getWidth(nestedContainer),
+                        getHeight(nestedContainer)).compute();
+                return;
+            }
+            List<LayoutTask> tasks = new ArrayList<>(nestedContainers.size());
+            for (ContainerFlexItem nestedContainer : nestedContainers) {
+                tasks.add(new LayoutTask(nestedContainer, getWidth(nestedContainer),
+                        getHeight(nestedContainer)));
+            }
+            invokeAll(tasks);
+        }
+
+        private static int getWidth(ContainerFlexItem container) {
+            return container.getRight() - container.getLeft();
+        }
+
+        private static int getHeight(ContainerFlexItem container) {
+            return container.getBottom() - container.getTop();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.xinwendewen.flexbox.headless;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The advances of the Latin glyphs of each font, so that the natural width of a single line of
+ * simple text is a sum of array reads instead of a text layout.
+ */
+class GlyphAdvanceCache {
+    /** The first code point of the combining diacritical marks, which need shaping. */
+    static final int CACHED_CHAR_LIMIT = 0x0300;
+
+    private final FontRenderContext fontRenderContext;
+    private final ConcurrentMap<Font, FontAdvances> fonts = new ConcurrentHashMap<>();
+
+    GlyphAdvanceCache(FontRenderContext fontRenderContext) {
+        this.fontRenderContext = fontRenderContext;
+    }
+
+    /**
+     * @return the width of the text laid out on a single line without its trailing whitespace,
+     * or a negative value if the text is not simple enough to be measured from the glyph
+     * advances
+     */
+    float getSingleLineWidth(String text, Font font) {
+        if (font.hasLayoutAttributes()) {
+            // kerning and ligatures change the advances of neighboring glyphs
+            return -1;
+        }
+        FontAdvances advances = getFontAdvances(font);
+        int end = text.length();
+        while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        float width = 0;
+        for (int i = 0; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= CACHED_CHAR_LIMIT || c == '\n' || c == '\r' || c == '\t') {
+                return -1;
+            }
+            float advance = advances.getAdvance(c);
+            if (advance < 0) {
+                return -1;
+            }
+            width += advance;
+        }
+        return width;
+    }
+
+    float getLineHeight(Font font) {
+        return getFontAdvances(font).lineHeight;
+    }
+
+    private FontAdvances getFontAdvances(Font font) {
+        FontAdvances advances = fonts.get(font);
+        if (advances == null) {
+            advances = new FontAdvances(font);
+            FontAdvances existing = fonts.putIfAbsent(font, advances);
+            if (existing != null) {
+                advances = existing;
+            }
+        }
+        return advances;
+    }
+
+    private final class FontAdvances {
+        private static final float UNKNOWN = Float.NaN;
+        private static final float NOT_DISPLAYABLE = -1;
+
+        final Font font;
+        final float lineHeight;
+        // written racily, every thread computes the same values
+        private final float[] advances = new float[CACHED_CHAR_LIMIT];
+
+        FontAdvances(Font font) {
+            this.font = font;
+            LineMetrics lineMetrics = font.getLineMetrics("x", fontRenderContext);
+            lineHeight = lineMetrics.getAscent() + lineMetrics.getDescent()
+                    + lineMetrics.getLeading();
+            Arrays.fill(advances, UNKNOWN);
+        }
+
+        float getAdvance(char c) {
+            float advance = advances[c];
+            if (Float.isNaN(advance)) {
+                advance = font.canDisplay(c) ? font.createGlyphVector(fontRenderContext,
+                        new char[]{c}).getGlyphMetrics(0).getAdvanceX() : NOT_DISPLAYABLE;
+                advances[c] = advance;
+            }
+            return advance;
+        }
+    }
+}
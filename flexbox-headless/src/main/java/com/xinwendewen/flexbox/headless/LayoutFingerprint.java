@@ -0,0 +1,131 @@
+package com.xinwendewen.flexbox.headless;
+
+import com.xinwendewen.flexbox.FlexItem;
+import com.xinwendewen.flexbox.FlexStyle;
+import com.xinwendewen.flexbox.LeafFlexItem;
+import com.xinwendewen.flexbox.MeasureRequest;
+import com.xinwendewen.flexbox.Paddings;
+
+/**
+ * A 64-bit fingerprint of the inputs of a layout pass, used as the key of the layout caches.
+ * Feed it the container style and arithmetic mode, the layout direction for results with
+ * positions, the paddings, the measure requests and every item, plus whatever determines the
+ * measure results of the leaves ({@link #putText} for text leaves, {@link #putLong} with a
+ * content hash for others). Two passes with the same fingerprint are
+ * assumed to produce the same layout, so everything that changes the results has to go in.
+ */
+public final class LayoutFingerprint {
+    private static final long SEED = 0x464c5846L;
+    private static final long MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+    private long hash = SEED;
+
+    public LayoutFingerprint putLong(long value) {
+        hash = Long.rotateLeft((hash ^ value) * MULTIPLIER, 31);
+        return this;
+    }
+
+    public LayoutFingerprint putInt(int value) {
+        return putLong(value);
+    }
+
+    public LayoutFingerprint putFloat(float value) {
+        return putLong(Float.floatToIntBits(value));
+    }
+
+    public LayoutFingerprint putBoolean(boolean value) {
+        return putLong(value ? 1 : 0);
+    }
+
+    public LayoutFingerprint putString(String value) {
+        if (value == null) {
+            return putLong(-1);
+        }
+        putInt(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            putLong(value.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Puts the container style and whether the free space is distributed with fixed-point
+     * arithmetic, which rounds differently.
+     */
+    public LayoutFingerprint putStyle(FlexStyle flexStyle, boolean isFixedPointArithmetic) {
+        putBoolean(isFixedPointArithmetic);
+        putInt(flexStyle.flexDirection.ordinal());
+        putInt(flexStyle.flexWrap.ordinal());
+        putInt(flexStyle.justifyContent.ordinal());
+        putInt(flexStyle.alignItems.ordinal());
+        putInt(flexStyle.alignContent.ordinal());
+        putInt(flexStyle.maxLine);
+        putInt(flexStyle.mainGap);
+        return putInt(flexStyle.crossGap);
+    }
+
+    public LayoutFingerprint putPaddings(Paddings paddings) {
+        putInt(paddings.startPadding);
+        putInt(paddings.endPadding);
+        putInt(paddings.leftPadding);
+        putInt(paddings.rightPadding);
+        putInt(paddings.topPadding);
+        return putInt(paddings.bottomPadding);
+    }
+
+    public LayoutFingerprint putRequest(MeasureRequest request) {
+        putBoolean(request.isTight());
+        putBoolean(request.isUnconstrained());
+        return putInt(request.getExpectedSize());
+    }
+
+    /** Puts the flex properties of the item as seen along the given main axis. */
+    public LayoutFingerprint putItem(FlexItem item, boolean isMainAxisHorizontal) {
+        putBoolean(item.isGone());
+        putFloat(item.getFlexGrow());
+        putFloat(item.getFlexShrink());
+        putBoolean(item.isFlexible());
+        putInt(item.getAlignSelf().ordinal());
+        putInt(item.getMinMainSize(isMainAxisHorizontal));
+        putFloat(item.getMaxMainSize(isMainAxisHorizontal));
+        putInt(item.getMinCrossSize(isMainAxisHorizontal));
+        putInt(item.getMaxCrossSize(isMainAxisHorizontal));
+        putInt(item.getMainAxisMarginStart(isMainAxisHorizontal));
+        putInt(item.getMainAxisMarginEnd(isMainAxisHorizontal));
+        putInt(item.getCrossAxisMarginStart(isMainAxisHorizontal));
+        return putInt(item.getCrossAxisMarginEnd(isMainAxisHorizontal));
+    }
+
+    /** Puts the flex properties and the requested size of the leaf. */
+    public LayoutFingerprint putLeaf(LeafFlexItem leaf, boolean isMainAxisHorizontal) {
+        putItem(leaf, isMainAxisHorizontal);
+        putInt(leaf.getRequiredWidth());
+        putInt(leaf.getRequiredHeight());
+        return putFloat(leaf.getFlexBasisPercent());
+    }
+
+    /** Puts the leaf and the text and font that determine its measure results. */
+    public LayoutFingerprint putText(TextFlexItem leaf, boolean isMainAxisHorizontal) {
+        putLeaf(leaf, isMainAxisHorizontal);
+        putString(leaf.getText());
+        putString(leaf.getFont().getFontName());
+        putInt(leaf.getFont().getStyle());
+        return putFloat(leaf.getFont().getSize2D());
+    }
+
+    public long get() {
+        // the finalizer of MurmurHash3, so that every input bit affects every output bit
+        long h = hash;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public LayoutFingerprint reset() {
+        hash = SEED;
+        return this;
+    }
+}
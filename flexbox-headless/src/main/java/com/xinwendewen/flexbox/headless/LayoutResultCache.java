@@ -0,0 +1,267 @@
+package com.xinwendewen.flexbox.headless;
+
+import com.xinwendewen.flexbox.FlexStyle;
+import com.xinwendewen.flexbox.LayoutResultBuffer;
+import com.xinwendewen.flexbox.MeasureConstraint;
+import com.xinwendewen.flexbox.MeasureRequest;
+
+import java.nio.IntBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Packed layout results shared by all the containers and threads of a process, keyed by
+ * (style, {@link LayoutFingerprint} of the items, measure requests). Styles are compared by
+ * identity, which matches the interned instances of {@link FlexStyle#of}.
+ *
+ * <p>The entries are split over lock stripes by key hash, each stripe holding an equal share
+ * of the byte budget. When a stripe is over budget it evicts the least frequently hit of its
+ * {@link #EVICTION_SAMPLE_SIZE} least recently used entries, so that a burst of one-off layouts
+ * does not push out the entries hit over and over. Hit counts are halved every time a stripe
+ * has seen as many hits as it has entries, so the frequencies follow a changing workload.
+ */
+public final class LayoutResultCache {
+    public static final int EVICTION_SAMPLE_SIZE = 4;
+
+    private static final int MAX_FREQUENCY = 15;
+    // the estimated size of an entry besides its values: key, entry, map node and array header
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final Stripe[] stripes;
+    private final long maxBytesPerStripe;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxBytes    the maximum estimated size of the cached entries
+     * @param stripeCount the number of lock stripes, rounded up to a power of two
+     */
+    public LayoutResultCache(long maxBytes, int stripeCount) {
+        if (maxBytes <= 0 || stripeCount <= 0) {
+            throw new IllegalArgumentException(
+                    "Invalid cache size: " + maxBytes + " bytes in " + stripeCount + " stripes");
+        }
+        int count = Integer.highestOneBit(stripeCount - 1) << 1;
+        count = Math.max(count, 1);
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        maxBytesPerStripe = Math.max(1, maxBytes / count);
+    }
+
+    /** Returns the cached results, or {@code null}. The array must not be modified. */
+    public int[] get(FlexStyle flexStyle, long itemFingerprint,
+                     MeasureRequest mainAxisMeasureRequest,
+                     MeasureRequest crossAxisMeasureRequest) {
+        Key key = new Key(flexStyle, itemFingerprint,
+                MeasureConstraint.packOf(mainAxisMeasureRequest),
+                MeasureConstraint.packOf(crossAxisMeasureRequest));
+        int[] values = getStripe(key).get(key);
+        if (values == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return values;
+    }
+
+    /** Caches a copy of the ints written by the last pass of the result buffer. */
+    public void put(FlexStyle flexStyle, long itemFingerprint,
+                    MeasureRequest mainAxisMeasureRequest,
+                    MeasureRequest crossAxisMeasureRequest, LayoutResultBuffer results) {
+        IntBuffer buffer = results.getBuffer();
+        int[] values = new int[results.getSize()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.get(i);
+        }
+        put(flexStyle, itemFingerprint, mainAxisMeasureRequest, crossAxisMeasureRequest, values);
+    }
+
+    /**
+     * Caches the results. The array must not be modified afterwards. Results larger than the
+     * budget of a stripe are not cached.
+     */
+    public void put(FlexStyle flexStyle, long itemFingerprint,
+                    MeasureRequest mainAxisMeasureRequest,
+                    MeasureRequest crossAxisMeasureRequest, int[] values) {
+        Key key = new Key(flexStyle, itemFingerprint,
+                MeasureConstraint.packOf(mainAxisMeasureRequest),
+                MeasureConstraint.packOf(crossAxisMeasureRequest));
+        evictions.add(getStripe(key).put(key, values, maxBytesPerStripe));
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    public Stats getStats() {
+        long bytes = 0;
+        int entryCount = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                bytes += stripe.bytes;
+                entryCount += stripe.entries.size();
+            }
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entryCount, bytes);
+    }
+
+    private Stripe getStripe(Key key) {
+        return stripes[key.hashCode() & (stripes.length - 1)];
+    }
+
+    private static int getEntryBytes(int[] values) {
+        return ENTRY_OVERHEAD + values.length * 4;
+    }
+
+    /** A snapshot of the counters of a cache. */
+    public static final class Stats {
+        public final long hitCount;
+        public final long missCount;
+        public final long evictionCount;
+        public final int entryCount;
+        public final long byteSize;
+
+        Stats(long hitCount, long missCount, long evictionCount, int entryCount, long byteSize) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.entryCount = entryCount;
+            this.byteSize = byteSize;
+        }
+
+        public double getHitRate() {
+            long requestCount = hitCount + missCount;
+            return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{hits=" + hitCount + ", misses=" + missCount
+                    + ", evictions=" + evictionCount + ", entries=" + entryCount
+                    + ", bytes=" + byteSize + "}";
+        }
+    }
+
+    private static final class Key {
+        final FlexStyle flexStyle;
+        final long itemFingerprint;
+        final long mainAxisConstraint;
+        final long crossAxisConstraint;
+        final int hashCode;
+
+        Key(FlexStyle flexStyle, long itemFingerprint, long mainAxisConstraint,
+            long crossAxisConstraint) {
+            this.flexStyle = flexStyle;
+            this.itemFingerprint = itemFingerprint;
+            this.mainAxisConstraint = mainAxisConstraint;
+            this.crossAxisConstraint = crossAxisConstraint;
+            long hash = itemFingerprint * 31 + mainAxisConstraint;
+            hash = hash * 31 + crossAxisConstraint;
+            hash = hash * 31 + System.identityHashCode(flexStyle);
+            // spread the high bits, the stripe index comes from the low ones
+            hash ^= hash >>> 32;
+            hash ^= hash >>> 16;
+            hashCode = (int) hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return flexStyle == key.flexStyle && itemFingerprint == key.itemFingerprint
+                    && mainAxisConstraint == key.mainAxisConstraint
+                    && crossAxisConstraint == key.crossAxisConstraint;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class Entry {
+        final int[] values;
+        int frequency;
+
+        Entry(int[] values) {
+            this.values = values;
+        }
+    }
+
+    private static final class Stripe {
+        final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        long bytes;
+        int hitsSinceAging;
+
+        synchronized int[] get(Key key) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.frequency < MAX_FREQUENCY) {
+                entry.frequency++;
+            }
+            if (++hitsSinceAging >= entries.size()) {
+                age();
+            }
+            return entry.values;
+        }
+
+        synchronized int put(Key key, int[] values, long maxBytes) {
+            if (getEntryBytes(values) > maxBytes) {
+                return 0;
+            }
+            Entry previous = entries.put(key, new Entry(values));
+            if (previous != null) {
+                bytes -= getEntryBytes(previous.values);
+            }
+            bytes += getEntryBytes(values);
+            int evictionCount = 0;
+            while (bytes > maxBytes) {
+                evictOne(key);
+                evictionCount++;
+            }
+            return evictionCount;
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            bytes = 0;
+            hitsSinceAging = 0;
+        }
+
+        private void evictOne(Key newKey) {
+            Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+            Key victim = null;
+            int victimFrequency = Integer.MAX_VALUE;
+            for (int i = 0; i < EVICTION_SAMPLE_SIZE && iterator.hasNext(); i++) {
+                Map.Entry<Key, Entry> candidate = iterator.next();
+                // never evict the entry being put
+                if (candidate.getKey() == newKey) {
+                    continue;
+                }
+                if (candidate.getValue().frequency < victimFrequency) {
+                    victim = candidate.getKey();
+                    victimFrequency = candidate.getValue().frequency;
+                }
+            }
+            bytes -= getEntryBytes(entries.remove(victim).values);
+        }
+
+        private void age() {
+            hitsSinceAging = 0;
+            for (Entry entry : entries.values()) {
+                entry.frequency >>= 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.xinwendewen.flexbox.headless;
+
+import com.xinwendewen.flexbox.LayoutResultBuffer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Layout results keyed by {@link LayoutFingerprint}, stored in a memory-mapped file so that
+ * they outlive the process. A restarted process maps the file again and serves the results
+ * straight from the page cache; {@link #get} returns a view of the mapped bytes and nothing is
+ * deserialized.
+ *
+ * <p>The file starts with a header, followed by an open-addressing index of
+ * (key, offset, length) slots probed linearly, followed by the append-only values. The values
+ * are ints in the format of {@link LayoutResultBuffer}, in native byte order; a file written
+ * with another byte order or other sizes is reinitialized on open. Once the index is three
+ * quarters full or the values do not fit anymore, {@link #put} refuses new entries until
+ * {@link #clear()}.
+ *
+ * <p>The cache is thread safe within a process; it must not be opened by two processes at the
+ * same time.
+ */
+public final class PersistentLayoutCache implements Closeable {
+    private static final int MAGIC = 0x464c5843;
+    private static final int VERSION = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int SLOT_COUNT_OFFSET = 8;
+    private static final int DATA_CAPACITY_OFFSET = 12;
+    private static final int DATA_END_OFFSET = 16;
+    private static final int ENTRY_COUNT_OFFSET = 20;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 16;
+
+    private static final long EMPTY_KEY = 0;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+    private final int dataStart;
+    private final int dataCapacity;
+
+    private PersistentLayoutCache(RandomAccessFile file, MappedByteBuffer buffer, int slotCount,
+                                  int dataCapacity) {
+        this.file = file;
+        this.buffer = buffer;
+        this.slotCount = slotCount;
+        this.dataStart = HEADER_SIZE + slotCount * SLOT_SIZE;
+        this.dataCapacity = dataCapacity;
+    }
+
+    /**
+     * Opens the cache in the file, creating or reinitializing it if it does not hold a cache of
+     * the given sizes.
+     *
+     * @param slotCount    the number of index slots, a power of two
+     * @param dataCapacity the number of bytes available to the values
+     */
+    public static PersistentLayoutCache open(File file, int slotCount, int dataCapacity)
+            throws IOException {
+        if (slotCount <= 0 || Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("Invalid slot count: " + slotCount);
+        }
+        long size = HEADER_SIZE + (long) slotCount * SLOT_SIZE + dataCapacity;
+        if (dataCapacity < 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid data capacity: " + dataCapacity);
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(size);
+            MappedByteBuffer buffer = randomAccessFile.getChannel()
+                    .map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.nativeOrder());
+            PersistentLayoutCache cache =
+                    new PersistentLayoutCache(randomAccessFile, buffer, slotCount, dataCapacity);
+            if (!cache.hasValidHeader()) {
+                cache.clear();
+            }
+            return cache;
+        } catch (IOException | RuntimeException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    private boolean hasValidHeader() {
+        return buffer.getInt(MAGIC_OFFSET) == MAGIC
+                && buffer.getInt(VERSION_OFFSET) == VERSION
+                && buffer.getInt(SLOT_COUNT_OFFSET) == slotCount
+                && buffer.getInt(DATA_CAPACITY_OFFSET) == dataCapacity;
+    }
+
+    /**
+     * Returns a read-only view of the values stored for the key, or {@code null}. The view
+     * stays valid until the next {@link #clear()}.
+     */
+    public synchronized IntBuffer get(long key) {
+        int slot = findSlot(key);
+        int slotOffset = getSlotOffset(slot);
+        if (buffer.getLong(slotOffset) == EMPTY_KEY) {
+            return null;
+        }
+        int offset = buffer.getInt(slotOffset + 8);
+        int length = buffer.getInt(slotOffset + 12);
+        ByteBuffer values = buffer.duplicate();
+        values.limit(dataStart + offset + length * 4);
+        values.position(dataStart + offset);
+        return values.slice().order(ByteOrder.nativeOrder()).asIntBuffer().asReadOnlyBuffer();
+    }
+
+    /** Stores the ints written by the last pass of the result buffer. */
+    public boolean put(long key, LayoutResultBuffer results) {
+        IntBuffer values = results.getBuffer().duplicate();
+        values.flip();
+        return put(key, values);
+    }
+
+    /**
+     * Stores the remaining ints of the values for the key, replacing the values stored before.
+     * Returns {@code false} if the cache is full.
+     */
+    public synchronized boolean put(long key, IntBuffer values) {
+        int length = values.remaining();
+        int dataEnd = buffer.getInt(DATA_END_OFFSET);
+        if (dataEnd + (long) length * 4 > dataCapacity) {
+            return false;
+        }
+        int slot = findSlot(key);
+        int slotOffset = getSlotOffset(slot);
+        boolean isNewKey = buffer.getLong(slotOffset) == EMPTY_KEY;
+        int entryCount = buffer.getInt(ENTRY_COUNT_OFFSET);
+        if (isNewKey && (entryCount + 1) * 4L > slotCount * 3L) {
+            return false;
+        }
+        // a process that dies midway must not leave a key pointing at unwritten values or at
+        // values the next put overwrites, so the values and the data end go first and the key
+        // is written last
+        for (int i = 0; i < length; i++) {
+            buffer.putInt(dataStart + dataEnd + i * 4, values.get(values.position() + i));
+        }
+        buffer.putInt(DATA_END_OFFSET, dataEnd + length * 4);
+        buffer.putInt(slotOffset + 8, dataEnd);
+        buffer.putInt(slotOffset + 12, length);
+        buffer.putLong(slotOffset, toStoredKey(key));
+        if (isNewKey) {
+            buffer.putInt(ENTRY_COUNT_OFFSET, entryCount + 1);
+        }
+        return true;
+    }
+
+    public synchronized int size() {
+        return buffer.getInt(ENTRY_COUNT_OFFSET);
+    }
+
+    public synchronized void clear() {
+        for (int offset = HEADER_SIZE; offset < dataStart; offset += 8) {
+            buffer.putLong(offset, EMPTY_KEY);
+        }
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(SLOT_COUNT_OFFSET, slotCount);
+        buffer.putInt(DATA_CAPACITY_OFFSET, dataCapacity);
+        buffer.putInt(DATA_END_OFFSET, 0);
+        buffer.putInt(ENTRY_COUNT_OFFSET, 0);
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+    }
+
+    /** Writes the changes to the file. */
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        file.close();
+    }
+
+    // returns the slot holding the key, or the empty slot the key would go to
+    private int findSlot(long key) {
+        long storedKey = toStoredKey(key);
+        int mask = slotCount - 1;
+        int slot = (int) (storedKey ^ (storedKey >>> 32)) & mask;
+        while (true) {
+            long slotKey = buffer.getLong(getSlotOffset(slot));
+            if (slotKey == storedKey || slotKey == EMPTY_KEY) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int getSlotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static long toStoredKey(long key) {
+        // the empty key marks free slots
+        return key == EMPTY_KEY ? 1 : key;
+    }
+}
@@ -0,0 +1,58 @@
+package com.xinwendewen.flexbox.headless;
+
+import com.xinwendewen.flexbox.LeafFlexItem;
+import com.xinwendewen.flexbox.MeasureFunction;
+
+import java.awt.Font;
+
+/**
+ * A flex item showing wrapped text, for laying out without a platform view, e.g. when
+ * pre-rendering on a server.
+ */
+public class TextFlexItem extends LeafFlexItem {
+    private final TextMeasureFunction textMeasureFunction;
+
+    public TextFlexItem(TextMeasurer measurer, String text, Font font) {
+        this(new TextMeasureFunction(measurer, text, font));
+    }
+
+    private TextFlexItem(TextMeasureFunction textMeasureFunction) {
+        super(textMeasureFunction);
+        this.textMeasureFunction = textMeasureFunction;
+    }
+
+    public String getText() {
+        return textMeasureFunction.text;
+    }
+
+    public void setText(String text) {
+        textMeasureFunction.text = text;
+        markDirty();
+    }
+
+    public Font getFont() {
+        return textMeasureFunction.font;
+    }
+
+    public void setFont(Font font) {
+        textMeasureFunction.font = font;
+        markDirty();
+    }
+
+    private static class TextMeasureFunction implements MeasureFunction {
+        final TextMeasurer measurer;
+        String text;
+        Font font;
+
+        TextMeasureFunction(TextMeasurer measurer, String text, Font font) {
+            this.measurer = measurer;
+            this.text = text;
+            this.font = font;
+        }
+
+        @Override
+        public long measure(int widthMode, int width, int heightMode, int height) {
+            return measurer.measure(text, font, widthMode, width, heightMode, height);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.xinwendewen.flexbox.headless;
+
+import com.xinwendewen.flexbox.MeasureFunction;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineBreakMeasurer;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.text.AttributedCharacterIterator;
+import java.text.AttributedString;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures wrapped text with {@link LineBreakMeasurer}, which works without a display when the
+ * JVM runs with {@code -Djava.awt.headless=true}. A measurer is thread safe and meant to be
+ * shared by all the {@link TextFlexItem}s of a pipeline:
+ * <ul>
+ * <li>the measured sizes are cached per (text, font, width bucket), so measuring the same text
+ * at the same width again costs a hash lookup instead of shaping the text again;</li>
+ * <li>on a miss, single lines of Latin text in fonts without kerning or ligatures are measured
+ * from per-font cached glyph advances.</li>
+ * </ul>
+ */
+public class TextMeasurer {
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
+    private static final int UNBOUNDED_WIDTH = Integer.MAX_VALUE;
+
+    private final FontRenderContext fontRenderContext;
+    private final int widthBucketSize;
+    private final GlyphAdvanceCache glyphAdvanceCache;
+    private final Map<Key, Long> sizeCache;
+
+    public TextMeasurer() {
+        this(new FontRenderContext(null, true, true), 1, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param fontRenderContext the context the text is going to be rendered with
+     * @param widthBucketSize   the granularity of the available widths in the size cache. The
+     *                          text is wrapped at the lower bound of the bucket of the available
+     *                          width, so a bucket size of 1 gives exact results and larger sizes
+     *                          trade some wrapping precision for cache hits
+     * @param cacheSize         the maximum number of cached sizes
+     */
+    public TextMeasurer(FontRenderContext fontRenderContext, int widthBucketSize,
+                        final int cacheSize) {
+        if (widthBucketSize < 1) {
+            throw new IllegalArgumentException("Invalid width bucket size: " + widthBucketSize);
+        }
+        this.fontRenderContext = fontRenderContext;
+        this.widthBucketSize = widthBucketSize;
+        glyphAdvanceCache = new GlyphAdvanceCache(fontRenderContext);
+        sizeCache = new LinkedHashMap<Key, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Measures the text following the contract of {@link MeasureFunction#measure}.
+     */
+    public long measure(String text, Font font, int widthMode, int width, int heightMode,
+                        int height) {
+        int wrapWidth = widthMode == MeasureFunction.UNSPECIFIED ? UNBOUNDED_WIDTH
+                : width / widthBucketSize * widthBucketSize;
+        Key key = new Key(text, font, wrapWidth);
+        Long textSize;
+        synchronized (sizeCache) {
+            textSize = sizeCache.get(key);
+        }
+        if (textSize == null) {
+            float singleLineWidth = glyphAdvanceCache.getSingleLineWidth(text, font);
+            if (singleLineWidth >= 0 && singleLineWidth <= wrapWidth) {
+                textSize = MeasureFunction.packSize((int) Math.ceil(singleLineWidth),
+                        (int) Math.ceil(glyphAdvanceCache.getLineHeight(font)));
+            } else {
+                textSize = layOutText(text, font, wrapWidth);
+            }
+            synchronized (sizeCache) {
+                sizeCache.put(key, textSize);
+            }
+        }
+        return MeasureFunction.packSize(
+                resolveSize(widthMode, width, MeasureFunction.unpackWidth(textSize)),
+                resolveSize(heightMode, height, MeasureFunction.unpackHeight(textSize)));
+    }
+
+    private long layOutText(String text, Font font, int wrapWidth) {
+        if (text.isEmpty()) {
+            return MeasureFunction.packSize(0, (int) Math.ceil(glyphAdvanceCache.getLineHeight(font)));
+        }
+        AttributedString attributedString = new AttributedString(text);
+        attributedString.addAttribute(TextAttribute.FONT, font);
+        AttributedCharacterIterator iterator = attributedString.getIterator();
+        LineBreakMeasurer measurer = new LineBreakMeasurer(iterator, fontRenderContext);
+        float maxAdvance = 0;
+        float totalHeight = 0;
+        int paragraphStart = 0;
+        while (paragraphStart <= text.length()) {
+            int paragraphEnd = text.indexOf('\n', paragraphStart);
+            if (paragraphEnd < 0) {
+                paragraphEnd = text.length();
+            }
+            if (paragraphEnd == paragraphStart) {
+                // an empty paragraph still takes a line
+                totalHeight += glyphAdvanceCache.getLineHeight(font);
+            } else {
+                measurer.setPosition(paragraphStart);
+                while (measurer.getPosition() < paragraphEnd) {
+                    TextLayout line = measurer.nextLayout(wrapWidth, paragraphEnd, false);
+                    maxAdvance = Math.max(maxAdvance, line.getVisibleAdvance());
+                    totalHeight += line.getAscent() + line.getDescent() + line.getLeading();
+                }
+            }
+            paragraphStart = paragraphEnd + 1;
+        }
+        return MeasureFunction.packSize((int) Math.ceil(maxAdvance), (int) Math.ceil(totalHeight));
+    }
+
+    private static int resolveSize(int mode, int size, int textSize) {
+        switch (mode) {
+            case MeasureFunction.EXACTLY:
+                return size;
+            case MeasureFunction.AT_MOST:
+                return Math.min(textSize, size);
+            default:
+                return textSize;
+        }
+    }
+
+    private static final class Key {
+        final String text;
+        final Font font;
+        final int wrapWidth;
+        final int hashCode;
+
+        Key(String text, Font font, int wrapWidth) {
+            this.text = text;
+            this.font = font;
+            this.wrapWidth = wrapWidth;
+            hashCode = (text.hashCode() * 31 + font.hashCode()) * 31 + wrapWidth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hashCode == other.hashCode && wrapWidth == other.wrapWidth
+                    && text.equals(other.text) && font.equals(other.font);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
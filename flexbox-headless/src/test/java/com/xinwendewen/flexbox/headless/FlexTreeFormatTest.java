@@ -0,0 +1,133 @@
+package com.xinwendewen.flexbox.headless;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.xinwendewen.flexbox.IntrinsicSize;
+import com.xinwendewen.flexbox.LeafFlexItem;
+import com.xinwendewen.flexbox.MeasureFunction;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class FlexTreeFormatTest {
+
+    @Test
+    public void testLoad_roundTrip() {
+        Random random = new Random(41);
+        for (int i = 0; i < 100; i++) {
+            ContainerFlexItem root = RandomFlexTrees.build(random, 4);
+            ByteBuffer encoded = FlexTreeEncoder.encode(root);
+
+            ContainerFlexItem loaded = FlexTreeLoader.load(encoded);
+
+            assertThat(FlexTreeEncoder.encode(loaded), is(encoded));
+            long size = root.layoutAsRoot(MeasureFunction.EXACTLY, 360,
+                    MeasureFunction.UNSPECIFIED, 0);
+            long loadedSize = loaded.layoutAsRoot(MeasureFunction.EXACTLY, 360,
+                    MeasureFunction.UNSPECIFIED, 0);
+            assertThat(loadedSize, is(size));
+            List<String> bounds = new ArrayList<>();
+            List<String> loadedBounds = new ArrayList<>();
+            RandomFlexTrees.collectBounds(root, bounds);
+            RandomFlexTrees.collectBounds(loaded, loadedBounds);
+            assertThat(loadedBounds, is(bounds));
+        }
+    }
+
+    @Test
+    public void testLoad_keepsBufferPosition() {
+        ByteBuffer encoded = FlexTreeEncoder.encode(RandomFlexTrees.build(new Random(1), 2));
+        int position = encoded.position();
+
+        FlexTreeLoader.load(encoded);
+
+        assertThat(encoded.position(), is(position));
+    }
+
+    @Test
+    public void testLoad_corruptBytes() {
+        Random random = new Random(41);
+        for (int i = 0; i < 2000; i++) {
+            ByteBuffer encoded = FlexTreeEncoder.encode(RandomFlexTrees.build(random, 3));
+            byte[] bytes = new byte[encoded.remaining()];
+            encoded.get(bytes);
+            int changeCount = 1 + random.nextInt(4);
+            for (int j = 0; j < changeCount; j++) {
+                bytes[random.nextInt(bytes.length)] = (byte) random.nextInt(256);
+            }
+            if (random.nextInt(4) == 0) {
+                bytes = Arrays.copyOf(bytes, random.nextInt(bytes.length));
+            }
+            // either a valid tree or an IllegalArgumentException, never another exception
+            try {
+                ContainerFlexItem loaded = FlexTreeLoader.load(ByteBuffer.wrap(bytes));
+                loaded.layoutAsRoot(MeasureFunction.EXACTLY, 360, MeasureFunction.UNSPECIFIED, 0);
+            } catch (IllegalArgumentException expected) {
+                // corrupt input is rejected
+            }
+        }
+    }
+
+    @Test
+    public void testLoad_containerAsItsOwnChild() {
+        byte[] bytes = encodeNestedContainers();
+        // the root expects no children and the nested container two, so the nested container
+        // would be the first child of itself
+        bytes[bytes.length - 8] = 0;
+        bytes[bytes.length - 5] = 2;
+
+        assertRejected(bytes);
+    }
+
+    @Test
+    public void testLoad_missingChildren() {
+        byte[] bytes = encodeNestedContainers();
+        bytes[bytes.length - 8] = 2;
+
+        assertRejected(bytes);
+    }
+
+    @Test
+    public void testLoad_notAFlexTree() {
+        try {
+            FlexTreeLoader.load(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // the magic does not match
+        }
+    }
+
+    /**
+     * Returns the encoding of a root with a nested container holding a leaf. The bytes end with
+     * the nodes: (style, params, child count) of the two containers, then (style, params, width,
+     * height) of the leaf.
+     */
+    private static byte[] encodeNestedContainers() {
+        ContainerFlexItem root = new ContainerFlexItem();
+        ContainerFlexItem container = new ContainerFlexItem();
+        container.addChild(new LeafFlexItem(new IntrinsicSize(77, 99)));
+        root.addChild(container);
+        ByteBuffer encoded = FlexTreeEncoder.encode(root);
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+        assertThat(Arrays.copyOfRange(bytes, bytes.length - 10, bytes.length),
+                is(new byte[] {1, 0, 1, 1, 0, 1, 0, 0, 77, 99}));
+        return bytes;
+    }
+
+    private static void assertRejected(byte[] bytes) {
+        try {
+            FlexTreeLoader.load(ByteBuffer.wrap(bytes));
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // the links between the nodes are invalid
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.xinwendewen.flexbox.headless;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import com.xinwendewen.flexbox.MeasureFunction;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class ForkJoinLayoutTest {
+
+    @Test
+    public void testLayout_sameAsLayoutAsRoot() {
+        Random random = new Random(43);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 100; i++) {
+                long seed = random.nextLong();
+                ContainerFlexItem serialRoot = RandomFlexTrees.build(new Random(seed), 5);
+                ContainerFlexItem parallelRoot = RandomFlexTrees.build(new Random(seed), 5);
+
+                long serialSize = serialRoot.layoutAsRoot(MeasureFunction.EXACTLY, 360,
+                        MeasureFunction.UNSPECIFIED, 0);
+                long parallelSize = ForkJoinLayout.layout(parallelRoot, MeasureFunction.EXACTLY,
+                        360, MeasureFunction.UNSPECIFIED, 0, pool);
+
+                assertThat(parallelSize, is(serialSize));
+                List<String> serialBounds = new ArrayList<>();
+                List<String> parallelBounds = new ArrayList<>();
+                RandomFlexTrees.collectBounds(serialRoot, serialBounds);
+                RandomFlexTrees.collectBounds(parallelRoot, parallelBounds);
+                assertThat(parallelBounds, is(serialBounds));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.xinwendewen.flexbox.headless;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.xinwendewen.flexbox.FlexStyle;
+import com.xinwendewen.flexbox.MeasureConstraint;
+
+import org.junit.Test;
+
+public class LayoutResultCacheTest {
+    // the estimated size of an entry with a single value
+    private static final int ENTRY_BYTES = 100;
+
+    private static final MeasureConstraint MAIN_AXIS_REQUEST = MeasureConstraint.exactly(100);
+    private static final MeasureConstraint CROSS_AXIS_REQUEST = MeasureConstraint.atMost(200);
+
+    @Test
+    public void testPut_evictsOverBudget() {
+        LayoutResultCache cache = new LayoutResultCache(10 * ENTRY_BYTES, 1);
+        for (int key = 0; key < 10; key++) {
+            put(cache, key);
+        }
+        assertThat(cache.getStats().entryCount, is(10));
+        assertThat(cache.getStats().evictionCount, is(0L));
+
+        put(cache, 10);
+
+        LayoutResultCache.Stats stats = cache.getStats();
+        assertThat(stats.entryCount, is(10));
+        assertThat(stats.evictionCount, is(1L));
+        assertThat(stats.byteSize, is(10L * ENTRY_BYTES));
+        assertThat(get(cache, 10), notNullValue());
+    }
+
+    @Test
+    public void testPut_keepsFrequentlyHitEntry() {
+        LayoutResultCache cache = new LayoutResultCache(10 * ENTRY_BYTES, 1);
+        for (int key = 0; key < 10; key++) {
+            put(cache, key);
+        }
+        for (int i = 0; i < 3; i++) {
+            get(cache, 0);
+        }
+        // key 0 becomes the least recently used entry again, but with the most hits
+        for (int key = 1; key < 10; key++) {
+            get(cache, key);
+        }
+
+        put(cache, 10);
+
+        assertThat(get(cache, 0), notNullValue());
+        assertThat(get(cache, 1), nullValue());
+    }
+
+    @Test
+    public void testPut_skipsEntryLargerThanStripe() {
+        LayoutResultCache cache = new LayoutResultCache(ENTRY_BYTES, 1);
+
+        cache.put(FlexStyle.DEFAULT, 1, MAIN_AXIS_REQUEST, CROSS_AXIS_REQUEST, new int[100]);
+
+        assertThat(get(cache, 1), nullValue());
+        assertThat(cache.getStats().entryCount, is(0));
+    }
+
+    @Test
+    public void testGet_differentRequests() {
+        LayoutResultCache cache = new LayoutResultCache(10 * ENTRY_BYTES, 1);
+        put(cache, 1);
+
+        assertThat(cache.get(FlexStyle.DEFAULT, 1, MAIN_AXIS_REQUEST,
+                MeasureConstraint.atMost(201)), nullValue());
+        assertThat(cache.get(FlexStyle.DEFAULT, 1, MAIN_AXIS_REQUEST,
+                MeasureConstraint.exactly(200)), nullValue());
+        assertThat(cache.get(FlexStyle.DEFAULT, 1, CROSS_AXIS_REQUEST, MAIN_AXIS_REQUEST),
+                nullValue());
+        assertThat(get(cache, 1)[0], is(1));
+    }
+
+    private static void put(LayoutResultCache cache, int key) {
+        cache.put(FlexStyle.DEFAULT, key, MAIN_AXIS_REQUEST, CROSS_AXIS_REQUEST,
+                new int[] {key});
+    }
+
+    private static int[] get(LayoutResultCache cache, int key) {
+        return cache.get(FlexStyle.DEFAULT, key, MAIN_AXIS_REQUEST, CROSS_AXIS_REQUEST);
+    }
+}
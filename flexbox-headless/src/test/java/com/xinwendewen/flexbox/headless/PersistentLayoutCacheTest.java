@@ -0,0 +1,102 @@
+package com.xinwendewen.flexbox.headless;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.IntBuffer;
+
+public class PersistentLayoutCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testOpen_keepsEntriesAcrossReopen() throws IOException {
+        File file = temporaryFolder.newFile();
+        try (PersistentLayoutCache cache = PersistentLayoutCache.open(file, 64, 4096)) {
+            for (int key = 0; key < 48; key++) {
+                assertThat(cache.put(getKey(key), getValues(key)), is(true));
+            }
+        }
+
+        try (PersistentLayoutCache cache = PersistentLayoutCache.open(file, 64, 4096)) {
+            assertThat(cache.size(), is(48));
+            for (int key = 0; key < 48; key++) {
+                assertThat(cache.get(getKey(key)), is(getValues(key)));
+            }
+            assertThat(cache.get(getKey(48)), nullValue());
+        }
+    }
+
+    @Test
+    public void testOpen_otherSizesReinitialize() throws IOException {
+        File file = temporaryFolder.newFile();
+        try (PersistentLayoutCache cache = PersistentLayoutCache.open(file, 64, 4096)) {
+            cache.put(getKey(1), getValues(1));
+        }
+
+        try (PersistentLayoutCache cache = PersistentLayoutCache.open(file, 128, 4096)) {
+            assertThat(cache.size(), is(0));
+            assertThat(cache.get(getKey(1)), nullValue());
+        }
+    }
+
+    @Test
+    public void testPut_replacesValues() throws IOException {
+        try (PersistentLayoutCache cache =
+                     PersistentLayoutCache.open(temporaryFolder.newFile(), 64, 4096)) {
+            cache.put(getKey(1), getValues(1));
+
+            cache.put(getKey(1), getValues(2));
+
+            assertThat(cache.size(), is(1));
+            assertThat(cache.get(getKey(1)), is(getValues(2)));
+        }
+    }
+
+    @Test
+    public void testPut_fullIndex() throws IOException {
+        try (PersistentLayoutCache cache =
+                     PersistentLayoutCache.open(temporaryFolder.newFile(), 64, 4096)) {
+            for (int key = 0; key < 48; key++) {
+                cache.put(getKey(key), getValues(key));
+            }
+
+            // the index is three quarters full
+            assertThat(cache.put(getKey(48), getValues(48)), is(false));
+
+            cache.clear();
+            assertThat(cache.put(getKey(48), getValues(48)), is(true));
+        }
+    }
+
+    @Test
+    public void testPut_fullData() throws IOException {
+        try (PersistentLayoutCache cache =
+                     PersistentLayoutCache.open(temporaryFolder.newFile(), 64, 16)) {
+            assertThat(cache.put(getKey(1), IntBuffer.wrap(new int[] {1, 2, 3})), is(true));
+
+            assertThat(cache.put(getKey(2), IntBuffer.wrap(new int[] {4, 5})), is(false));
+            assertThat(cache.get(getKey(2)), nullValue());
+        }
+    }
+
+    private static long getKey(int key) {
+        return new LayoutFingerprint().putInt(key).get();
+    }
+
+    private static IntBuffer getValues(int key) {
+        int[] values = new int[key % 5 + 1];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = key * 10 + i;
+        }
+        return IntBuffer.wrap(values);
+    }
+}
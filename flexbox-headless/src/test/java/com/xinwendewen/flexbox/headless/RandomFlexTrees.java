@@ -0,0 +1,77 @@
+package com.xinwendewen.flexbox.headless;
+
+import com.xinwendewen.flexbox.AlignContent;
+import com.xinwendewen.flexbox.AlignItems;
+import com.xinwendewen.flexbox.AlignSelf;
+import com.xinwendewen.flexbox.FlexDirection;
+import com.xinwendewen.flexbox.FlexItem;
+import com.xinwendewen.flexbox.FlexStyle;
+import com.xinwendewen.flexbox.FlexWrap;
+import com.xinwendewen.flexbox.IntrinsicSize;
+import com.xinwendewen.flexbox.JustifyContent;
+import com.xinwendewen.flexbox.LeafFlexItem;
+
+import java.util.List;
+import java.util.Random;
+
+/** Random trees of containers and {@link IntrinsicSize} leaves for the headless tests. */
+final class RandomFlexTrees {
+
+    private RandomFlexTrees() {
+    }
+
+    static ContainerFlexItem build(Random random, int depth) {
+        ContainerFlexItem container = new ContainerFlexItem();
+        container.setFlexStyle(FlexStyle.of(
+                FlexDirection.values()[random.nextInt(FlexDirection.values().length)],
+                FlexWrap.values()[random.nextInt(2)],
+                JustifyContent.values()[random.nextInt(JustifyContent.values().length)],
+                AlignItems.values()[random.nextInt(AlignItems.values().length)],
+                AlignContent.values()[random.nextInt(AlignContent.values().length)],
+                FlexStyle.NOT_SET, random.nextInt(4), random.nextInt(4)));
+        container.setPaddings(random.nextInt(4), random.nextInt(4), random.nextInt(4),
+                random.nextInt(4));
+        container.setRtl(random.nextInt(4) == 0);
+        container.setFixedPointArithmetic(random.nextInt(4) == 0);
+        container.setFlexGrow(random.nextInt(2));
+        int childCount = 1 + random.nextInt(5);
+        for (int i = 0; i < childCount; i++) {
+            if (depth > 0 && random.nextInt(3) == 0) {
+                container.addChild(build(random, depth - 1));
+                continue;
+            }
+            LeafFlexItem leaf = new LeafFlexItem(
+                    new IntrinsicSize(10 + random.nextInt(80), 10 + random.nextInt(40)));
+            leaf.setFlexGrow(random.nextInt(3));
+            leaf.setMargins(random.nextInt(3), 0, random.nextInt(3), 1);
+            if (random.nextInt(3) == 0) {
+                leaf.setWidth(40);
+            }
+            if (random.nextInt(5) == 0) {
+                leaf.setMaxWidth(50);
+            }
+            if (random.nextInt(5) == 0) {
+                leaf.setHeight(LeafFlexItem.MATCH_PARENT);
+            }
+            if (random.nextInt(6) == 0) {
+                leaf.setAlignSelf(AlignSelf.values()[random.nextInt(AlignSelf.values().length)]);
+            }
+            leaf.setGone(random.nextInt(10) == 0);
+            container.addChild(leaf);
+        }
+        return container;
+    }
+
+    /** Adds the bounds of the item and of its descendants, in depth-first order. */
+    static void collectBounds(FlexItem item, List<String> bounds) {
+        LeafFlexItem leaf = (LeafFlexItem) item;
+        bounds.add(leaf.getLeft() + "," + leaf.getTop() + "," + leaf.getRight() + ","
+                + leaf.getBottom());
+        if (item instanceof ContainerFlexItem) {
+            ContainerFlexItem container = (ContainerFlexItem) item;
+            for (int i = 0; i < container.getChildCount(); i++) {
+                collectBounds(container.getChildAt(i), bounds);
+            }
+        }
+    }
+}
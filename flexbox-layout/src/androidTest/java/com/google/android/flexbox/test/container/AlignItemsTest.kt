@@ -12,6 +12,7 @@ import com.google.android.flexbox.FlexboxLayout
 import com.google.android.flexbox.test.IsEqualAllowingError
 import com.google.android.flexbox.test.LayoutConfiguration
 import com.google.android.flexbox.test.R
+import com.google.android.flexbox.test.dpToPixel
 import org.hamcrest.core.Is
 import org.hamcrest.core.IsNot
 import org.junit.Assert
@@ -473,6 +474,58 @@ class AlignItemsTest : FlexboxTestBase() {
         Assert.assertThat(bottomPluBaseline2, Is.`is`(bottomPluBaseline3))
     }
 
+    @Test
+    @FlakyTest
+    @Throws(Throwable::class)
+    fun testAlignItems_baseline_gaps() {
+        val activity = activityRule.activity
+        val mainGap = activity.dpToPixel(10)
+        val crossGap = activity.dpToPixel(20)
+        val flexboxLayout = createFlexboxLayout(R.layout.activity_align_items_test,
+                object : LayoutConfiguration {
+                    override fun apply(flexboxLayout: FlexboxLayout) {
+                        flexboxLayout.alignItems = AlignItems.BASELINE
+                        flexboxLayout.flexStyle = flexboxLayout.flexStyle.withGaps(mainGap, crossGap)
+                    }
+                })
+
+        Assert.assertThat(flexboxLayout.alignItems, Is.`is`(AlignItems.BASELINE))
+        val textView1 = activity.findViewById<TextView>(R.id.text1)
+        val textView2 = activity.findViewById<TextView>(R.id.text2)
+        val textView3 = activity.findViewById<TextView>(R.id.text3)
+        // The gaps only separate the items and the lines, the first line stays baseline aligned
+        Assert.assertThat(textView1.top + textView1.baseline, Is.`is`(textView2.top + textView2.baseline))
+        Assert.assertThat(textView2.left, Is.`is`(textView1.right + mainGap))
+        Assert.assertThat(flexboxLayout.flexLines.size, Is.`is`(2))
+        Assert.assertThat(textView3.left, Is.`is`(0))
+        Assert.assertThat(textView3.top, Is.`is`(flexboxLayout.flexLines[0].crossSize + crossGap))
+    }
+
+    @Test
+    @FlakyTest
+    @Throws(Throwable::class)
+    fun testAlignItems_baseline_maxLine() {
+        val activity = activityRule.activity
+        val flexboxLayout = createFlexboxLayout(R.layout.activity_align_items_test,
+                object : LayoutConfiguration {
+                    override fun apply(flexboxLayout: FlexboxLayout) {
+                        flexboxLayout.alignItems = AlignItems.BASELINE
+                        flexboxLayout.maxLine = 1
+                    }
+                })
+
+        Assert.assertThat(flexboxLayout.maxLine, Is.`is`(1))
+        // The third view can't wrap to a new line, so all three views share the baseline
+        Assert.assertThat(flexboxLayout.flexLines.size, Is.`is`(1))
+        Espresso.onView(ViewMatchers.withId(R.id.text2)).check(PositionAssertions.isCompletelyRightOf(ViewMatchers.withId(R.id.text1)))
+        Espresso.onView(ViewMatchers.withId(R.id.text3)).check(PositionAssertions.isCompletelyRightOf(ViewMatchers.withId(R.id.text2)))
+        val textView1 = activity.findViewById<TextView>(R.id.text1)
+        val textView2 = activity.findViewById<TextView>(R.id.text2)
+        val textView3 = activity.findViewById<TextView>(R.id.text3)
+        Assert.assertThat(textView1.top + textView1.baseline, Is.`is`(textView2.top + textView2.baseline))
+        Assert.assertThat(textView2.top + textView2.baseline, Is.`is`(textView3.top + textView3.baseline))
+    }
+
     @Test
     @FlakyTest
     @Throws(Throwable::class)
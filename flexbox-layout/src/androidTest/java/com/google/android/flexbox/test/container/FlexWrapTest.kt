@@ -1,5 +1,6 @@
 package com.google.android.flexbox.test.container
 
+import android.widget.TextView
 import androidx.test.espresso.Espresso
 import androidx.test.espresso.assertion.PositionAssertions
 import androidx.test.espresso.matcher.ViewMatchers
@@ -178,4 +179,83 @@ class FlexWrapTest : FlexboxTestBase() {
         Espresso.onView(ViewMatchers.withId(R.id.text3)).check(PositionAssertions.isTopAlignedWith(ViewMatchers.withId(R.id.flexbox_layout)))
         Assert.assertThat(flexboxLayout.flexLines.size, Is.`is`(2))
     }
+
+    @Test
+    @FlakyTest
+    @Throws(Throwable::class)
+    fun testFlexWrap_wrap_maxLine() {
+        val flexboxLayout = createFlexboxLayout(R.layout.activity_flex_wrap_test,
+                object : LayoutConfiguration {
+                    override fun apply(flexboxLayout: FlexboxLayout) {
+                        flexboxLayout.maxLine = 1
+                    }
+                })
+
+        Assert.assertThat(flexboxLayout.flexWrap, Is.`is`(FlexWrap.WRAP))
+        Assert.assertThat(flexboxLayout.maxLine, Is.`is`(1))
+        Espresso.onView(ViewMatchers.withId(R.id.text1)).check(PositionAssertions.isLeftAlignedWith(ViewMatchers.withId(R.id.flexbox_layout)))
+        Espresso.onView(ViewMatchers.withId(R.id.text1)).check(PositionAssertions.isTopAlignedWith(ViewMatchers.withId(R.id.flexbox_layout)))
+        Espresso.onView(ViewMatchers.withId(R.id.text2)).check(PositionAssertions.isCompletelyRightOf(ViewMatchers.withId(R.id.text1)))
+        // The number of flex lines is capped at 1, the third text view stays in the first line
+        // even though it overflows the FlexboxLayout
+        val activity = activityRule.activity
+        val textView2 = activity.findViewById<TextView>(R.id.text2)
+        val textView3 = activity.findViewById<TextView>(R.id.text3)
+        Assert.assertThat(textView3.left, Is.`is`(textView2.right))
+        Assert.assertThat(textView3.top, Is.`is`(0))
+        val flexLines = flexboxLayout.flexLines
+        Assert.assertThat(flexLines.size, Is.`is`(1))
+        Assert.assertThat(flexLines[0].mainSize, Is.`is`(activity.dpToPixel(480)))
+        Assert.assertThat(flexLines[0].crossSize, Is.`is`(activity.dpToPixel(120)))
+    }
+
+    @Test
+    @FlakyTest
+    @Throws(Throwable::class)
+    fun testFlexWrap_wrap_gaps() {
+        val activity = activityRule.activity
+        val mainGap = activity.dpToPixel(40)
+        val crossGap = activity.dpToPixel(20)
+        val flexboxLayout = createFlexboxLayout(R.layout.activity_flex_wrap_test,
+                object : LayoutConfiguration {
+                    override fun apply(flexboxLayout: FlexboxLayout) {
+                        flexboxLayout.flexStyle = flexboxLayout.flexStyle.withGaps(mainGap, crossGap)
+                    }
+                })
+
+        Espresso.onView(ViewMatchers.withId(R.id.text2)).check(PositionAssertions.isRightAlignedWith(ViewMatchers.withId(R.id.flexbox_layout)))
+        Espresso.onView(ViewMatchers.withId(R.id.text3)).check(PositionAssertions.isLeftAlignedWith(ViewMatchers.withId(R.id.flexbox_layout)))
+        // The main gap fits exactly between the first two text views, the cross gap separates
+        // the two lines
+        val textView1 = activity.findViewById<TextView>(R.id.text1)
+        val textView2 = activity.findViewById<TextView>(R.id.text2)
+        val textView3 = activity.findViewById<TextView>(R.id.text3)
+        Assert.assertThat(textView2.left, Is.`is`(textView1.right + mainGap))
+        Assert.assertThat(textView3.top, Is.`is`(textView1.bottom + crossGap))
+        val flexLines = flexboxLayout.flexLines
+        Assert.assertThat(flexLines.size, Is.`is`(2))
+        Assert.assertThat(flexLines[0].crossSize, Is.`is`(activity.dpToPixel(120)))
+        Assert.assertThat(flexLines[1].crossSize, Is.`is`(activity.dpToPixel(120)))
+    }
+
+    @Test
+    @FlakyTest
+    @Throws(Throwable::class)
+    fun testFlexWrap_wrap_maxLine_crossGap() {
+        val activity = activityRule.activity
+        val crossGap = activity.dpToPixel(20)
+        val flexboxLayout = createFlexboxLayout(R.layout.activity_flex_wrap_test,
+                object : LayoutConfiguration {
+                    override fun apply(flexboxLayout: FlexboxLayout) {
+                        flexboxLayout.flexStyle = flexboxLayout.flexStyle.withGaps(0, crossGap)
+                        flexboxLayout.maxLine = 1
+                    }
+                })
+
+        // With a single flex line no cross gap is added
+        Assert.assertThat(flexboxLayout.flexLines.size, Is.`is`(1))
+        val textView1 = activity.findViewById<TextView>(R.id.text1)
+        val textView3 = activity.findViewById<TextView>(R.id.text3)
+        Assert.assertThat(textView3.top, Is.`is`(textView1.top))
+    }
 }
\ No newline at end of file
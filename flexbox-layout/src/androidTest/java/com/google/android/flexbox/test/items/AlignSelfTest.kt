@@ -5,12 +5,16 @@ import androidx.test.espresso.Espresso
 import androidx.test.espresso.assertion.PositionAssertions
 import androidx.test.espresso.matcher.ViewMatchers
 import androidx.test.filters.FlakyTest
+import com.google.android.flexbox.AlignSelf
 import com.google.android.flexbox.FlexDirection
+import com.google.android.flexbox.FlexWrap
 import com.google.android.flexbox.FlexboxLayout
 import com.google.android.flexbox.test.IsEqualAllowingError
 import com.google.android.flexbox.test.LayoutConfiguration
 import com.google.android.flexbox.test.R
 import com.google.android.flexbox.test.container.FlexboxTestBase
+import com.google.android.flexbox.test.dpToPixel
+import org.hamcrest.core.Is
 import org.hamcrest.core.IsNot
 import org.junit.Assert
 import org.junit.Test
@@ -73,4 +77,61 @@ class AlignSelfTest : FlexboxTestBase() {
         Assert.assertThat(textView2.width, IsNot.not(flexLineSize))
         Assert.assertThat(textView3.width, IsNot.not(flexLineSize))
     }
+
+    @Test
+    @FlakyTest
+    @Throws(Throwable::class)
+    fun testAlignSelf_baseline() {
+        val activity = activityRule.activity
+        val paddingTop = activity.dpToPixel(20)
+        val flexboxLayout = createFlexboxLayout(R.layout.activity_align_self_stretch_test,
+                object : LayoutConfiguration {
+                    override fun apply(flexboxLayout: FlexboxLayout) {
+                        flexboxLayout.flexWrap = FlexWrap.NOWRAP
+                        val textView2 = flexboxLayout.findViewById<TextView>(R.id.text2)
+                        val textView3 = flexboxLayout.findViewById<TextView>(R.id.text3)
+                        textView3.setPadding(0, paddingTop, 0, 0)
+                        (textView2.layoutParams as FlexboxLayout.LayoutParams).alignSelf = AlignSelf.BASELINE
+                        (textView3.layoutParams as FlexboxLayout.LayoutParams).alignSelf = AlignSelf.BASELINE
+                    }
+                })
+
+        // The second and the third TextViews share the baseline, the first one is stretched
+        Assert.assertThat(flexboxLayout.flexLines.size, Is.`is`(1))
+        val textView1 = activity.findViewById<TextView>(R.id.text1)
+        val textView2 = activity.findViewById<TextView>(R.id.text2)
+        val textView3 = activity.findViewById<TextView>(R.id.text3)
+        Assert.assertThat(textView2.top + textView2.baseline, Is.`is`(textView3.top + textView3.baseline))
+        Assert.assertThat(textView2.top, IsEqualAllowingError.isEqualAllowingError(paddingTop))
+        Assert.assertThat(textView3.top, Is.`is`(0))
+        Assert.assertThat(textView1.height, Is.`is`(flexboxLayout.flexLines[0].crossSize))
+    }
+
+    @Test
+    @FlakyTest
+    @Throws(Throwable::class)
+    fun testAlignSelf_baseline_crossGap() {
+        val activity = activityRule.activity
+        val crossGap = activity.dpToPixel(16)
+        val flexboxLayout = createFlexboxLayout(R.layout.activity_align_self_stretch_test,
+                object : LayoutConfiguration {
+                    override fun apply(flexboxLayout: FlexboxLayout) {
+                        flexboxLayout.flexStyle = flexboxLayout.flexStyle.withGaps(0, crossGap)
+                        val textView2 = flexboxLayout.findViewById<TextView>(R.id.text2)
+                        (textView2.layoutParams as FlexboxLayout.LayoutParams).alignSelf = AlignSelf.BASELINE
+                    }
+                })
+
+        Espresso.onView(ViewMatchers.withId(R.id.text2)).check(PositionAssertions.isTopAlignedWith(ViewMatchers.withId(R.id.flexbox_layout)))
+        Espresso.onView(ViewMatchers.withId(R.id.text2)).check(PositionAssertions.isCompletelyRightOf(ViewMatchers.withId(R.id.text1)))
+        Espresso.onView(ViewMatchers.withId(R.id.text3)).check(PositionAssertions.isLeftAlignedWith(ViewMatchers.withId(R.id.flexbox_layout)))
+
+        // The cross gap is left out of the stretched first line
+        val flexLines = flexboxLayout.flexLines
+        Assert.assertThat(flexLines.size, Is.`is`(2))
+        val textView1 = activity.findViewById<TextView>(R.id.text1)
+        val textView3 = activity.findViewById<TextView>(R.id.text3)
+        Assert.assertThat(textView1.height, Is.`is`(flexLines[0].crossSize))
+        Assert.assertThat(textView3.top, Is.`is`(textView1.bottom + crossGap))
+    }
 }
\ No newline at end of file
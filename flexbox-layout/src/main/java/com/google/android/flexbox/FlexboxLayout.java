@@ -37,7 +37,12 @@ import androidx.core.view.ViewCompat;
 
 import com.xinwendewen.flexbox.FlexContainerImpl;
 import com.xinwendewen.flexbox.FlexLine;
+import com.xinwendewen.flexbox.FlexStyle;
+import com.xinwendewen.flexbox.LineBreakCache;
+import com.xinwendewen.flexbox.MeasureConstraint;
 import com.xinwendewen.flexbox.Paddings;
+import com.xinwendewen.flexbox.trace.LayoutTrace;
+import com.xinwendewen.flexbox.trace.RecordingFlexContainer;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -128,6 +133,12 @@ public class FlexboxLayout extends ViewGroup implements FlexContainer {
      */
     private int mMaxLine = NOT_SET;
 
+    /**
+     * The engine-side style mirroring the attributes above. It is interned, so FlexboxLayouts with
+     * the same attributes share the same instance.
+     */
+    private FlexStyle mFlexStyle;
+
     /**
      * The int definition to be used as the arguments for the {@link #setShowDivider(int)},
      * {@link #setShowDividerHorizontal(int)} or {@link #setShowDividerVertical(int)}.
@@ -211,6 +222,8 @@ public class FlexboxLayout extends ViewGroup implements FlexContainer {
         mAlignItems = a.getInt(R.styleable.FlexboxLayout_alignItems, AlignItems.FLEX_START);
         mAlignContent = a.getInt(R.styleable.FlexboxLayout_alignContent, AlignContent.FLEX_START);
         mMaxLine = a.getInt(R.styleable.FlexboxLayout_maxLine, NOT_SET);
+        mFlexStyle = toFlexStyle(mFlexDirection, mFlexWrap, mJustifyContent, mAlignItems,
+                mAlignContent, mMaxLine);
         Drawable drawable = a.getDrawable(R.styleable.FlexboxLayout_dividerDrawable);
         if (drawable != null) {
             setDividerDrawableHorizontal(drawable);
@@ -244,21 +257,86 @@ public class FlexboxLayout extends ViewGroup implements FlexContainer {
         a.recycle();
     }
 
-    private final MeasureSpecWrapper widthMeasureRequest = new MeasureSpecWrapper();
+    private MeasureConstraint widthMeasureRequest;
 
-    private final MeasureSpecWrapper heightMeasureRequest = new MeasureSpecWrapper();
+    private MeasureConstraint heightMeasureRequest;
 
     private final Paddings paddings = new Paddings();
 
+    /**
+     * The flex items wrapping the children, in the same order. They are kept in sync with the
+     * children and with the flex container from {@link #onViewAdded(View)} and
+     * {@link #onViewRemoved(View)}.
+     */
     private final List<ViewWrapper> flexItems = new ArrayList<>(20);
 
+    /**
+     * Whether children may have been attached, detached or reordered without going through
+     * {@link #onViewAdded(View)} and {@link #onViewRemoved(View)}, so that {@link #flexItems}
+     * needs to be checked against them.
+     */
+    private boolean mFlexItemsMaybeOutOfSync;
+
+    /** The layout computed ahead of time, set by {@link #setPrecomputedLayout}. */
+    @Nullable
+    private PrecomputedFlexboxLayout mPrecomputedLayout;
+
+    /** Whether the last measure pass used {@link #mPrecomputedLayout}. */
+    private boolean mPrecomputedLayoutApplied;
+
+    /** The listener of the layout trace being recorded, set by {@link #recordNextLayoutTrace}. */
+    @Nullable
+    private OnLayoutTraceRecordedListener mLayoutTraceListener;
+
+    /** The time a measure pass may take per frame, set by {@link #setMeasureTimeBudget}. */
+    private long mMeasureTimeBudgetNanos;
+
+    /** Runs the measure passes over several frames when {@link #mMeasureTimeBudgetNanos} is set. */
+    @Nullable
+    private TimeSlicedMeasure mTimeSlicedMeasure;
+
+    /** Whether the last measure pass continues in the next frames. */
+    private boolean mMeasurePending;
+
+    /** The line breaks of the previous widths, set by {@link #setLineBreakCacheEnabled}. */
+    @Nullable
+    private LineBreakCache mLineBreakCache;
+
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        boolean wasPrecomputedLayoutApplied = mPrecomputedLayoutApplied;
+        mPrecomputedLayoutApplied = mPrecomputedLayout != null
+                && mPrecomputedLayout.isApplicableTo(this, widthMeasureSpec, heightMeasureSpec);
+        if (mPrecomputedLayoutApplied) {
+            cancelTimeSlicedMeasure();
+            mPrecomputedLayout.measureChildren(this);
+            mFlexLines = mPrecomputedLayout.getFlexLines();
+            setMeasuredDimensionForFlex(mFlexDirection, widthMeasureSpec, heightMeasureSpec, 0);
+            return;
+        }
         updatePaddings();
         updateFlexContainerProperties();
         updateFlexItems();
+        invalidateLineBreakCacheIfNeeded();
         updateMeasureRequests(widthMeasureSpec, heightMeasureSpec);
-        if (isMainAxisDirectionHorizontal()) {
+        if (!wasPrecomputedLayoutApplied && canReuseMeasure()) {
+            // e.g. only the justify content changed, the children keep their sizes
+            mFlexLines = flexContainer.getFlexLines();
+            setMeasuredDimensionForFlex(mFlexDirection, widthMeasureSpec, heightMeasureSpec, 0);
+            return;
+        }
+        if (canMeasureTimeSliced()) {
+            mMeasurePending = !(isMainAxisDirectionHorizontal()
+                    ? mTimeSlicedMeasure.measure(widthMeasureRequest, heightMeasureRequest,
+                            mMeasureTimeBudgetNanos)
+                    : mTimeSlicedMeasure.measure(heightMeasureRequest, widthMeasureRequest,
+                            mMeasureTimeBudgetNanos));
+            if (mMeasurePending) {
+                // keep the previous size and child positions until the pass is done
+                setMeasuredDimension(getMeasuredWidthAndState(), getMeasuredHeightAndState());
+                return;
+            }
+        } else if (isMainAxisDirectionHorizontal()) {
             flexContainer.measure(widthMeasureRequest, heightMeasureRequest);
         } else {
             flexContainer.measure(heightMeasureRequest, widthMeasureRequest);
@@ -267,36 +345,188 @@ public class FlexboxLayout extends ViewGroup implements FlexContainer {
         setMeasuredDimensionForFlex(mFlexDirection, widthMeasureSpec, heightMeasureSpec, 0);
     }
 
+    /**
+     * Whether the flex lines of the last measure pass hold for this one: the pass measured the
+     * children itself, none of them requested a layout since and the container only changed in
+     * ways that move the children.
+     */
+    private boolean canReuseMeasure() {
+        if (mMeasurePending || mLayoutTraceListener != null
+                || !(flexContainer instanceof FlexContainerImpl) || isAnyChildLayoutRequested()) {
+            return false;
+        }
+        FlexContainerImpl container = (FlexContainerImpl) flexContainer;
+        return isMainAxisDirectionHorizontal()
+                ? container.isMeasureValidFor(widthMeasureRequest, heightMeasureRequest)
+                : container.isMeasureValidFor(heightMeasureRequest, widthMeasureRequest);
+    }
+
+    /**
+     * Whether the measure pass can run over several frames: a time budget is set, a previous
+     * result can be shown meanwhile and no layout trace is being recorded.
+     */
+    private boolean canMeasureTimeSliced() {
+        if (mMeasureTimeBudgetNanos <= 0 || !ViewCompat.isLaidOut(this)
+                || !(flexContainer instanceof FlexContainerImpl)) {
+            cancelTimeSlicedMeasure();
+            return false;
+        }
+        if (mTimeSlicedMeasure == null || !mTimeSlicedMeasure.isFor(flexContainer)) {
+            mTimeSlicedMeasure = new TimeSlicedMeasure(this, (FlexContainerImpl) flexContainer);
+        }
+        return true;
+    }
+
+    private void cancelTimeSlicedMeasure() {
+        if (mTimeSlicedMeasure != null) {
+            mTimeSlicedMeasure.cancel();
+        }
+        mMeasurePending = false;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mMeasurePending) {
+            cancelTimeSlicedMeasure();
+            requestLayout();
+        }
+    }
+
+    /**
+     * Drops the cached line breaks when a child requested a layout since the last layout pass,
+     * e.g. because its content changed, or while a layout trace is recorded, which needs the
+     * sizes the children report to a full pass.
+     */
+    private void invalidateLineBreakCacheIfNeeded() {
+        if (mLineBreakCache != null
+                && (mLayoutTraceListener != null || isAnyChildLayoutRequested())) {
+            mLineBreakCache.clear();
+        }
+    }
+
+    private boolean isAnyChildLayoutRequested() {
+        for (int i = 0; i < getChildCount(); i++) {
+            if (getChildAt(i).isLayoutRequested()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void updateMeasureRequests(int widthMeasureSpec, int heightMeasureSpec) {
-        widthMeasureRequest.measureSpec = widthMeasureSpec;
-        heightMeasureRequest.measureSpec = heightMeasureSpec;
+        // the constraints are immutable, a new one is only needed when the measure spec changes
+        if (widthMeasureRequest == null
+                || MeasureSpecs.toMeasureSpec(widthMeasureRequest) != widthMeasureSpec) {
+            widthMeasureRequest = MeasureSpecs.toMeasureConstraint(widthMeasureSpec);
+        }
+        if (heightMeasureRequest == null
+                || MeasureSpecs.toMeasureSpec(heightMeasureRequest) != heightMeasureSpec) {
+            heightMeasureRequest = MeasureSpecs.toMeasureConstraint(heightMeasureSpec);
+        }
     }
 
     private void updateFlexItems() {
-        ensureFlexItemCapacity(getChildCount());
-        for (int i = 0; i < getChildCount(); i++) {
-            flexItems.get(i).view = getChildAt(i);
+        // children attached or reordered without going through addView() are not reported to
+        // onViewAdded()
+        if (!mFlexItemsMaybeOutOfSync) {
+            return;
+        }
+        mFlexItemsMaybeOutOfSync = false;
+        if (!areFlexItemsInSync()) {
+            flexItems.clear();
+            for (int i = 0; i < getChildCount(); i++) {
+                flexItems.add(createFlexItem(getChildAt(i)));
+            }
+            flexContainer.setFlexItems(flexItems, flexItems.size());
         }
-        flexContainer.setFlexItems(flexItems, getChildCount());
     }
 
-    private void ensureFlexItemCapacity(int childCount) {
-        int current = flexItems.size();
-        if (current < childCount) {
-            int diff = childCount - current;
-            while (diff > 0) {
-                flexItems.add(new ViewWrapper());
-                diff--;
+    private boolean areFlexItemsInSync() {
+        int childCount = getChildCount();
+        if (flexItems.size() != childCount) {
+            return false;
+        }
+        for (int i = 0; i < childCount; i++) {
+            if (flexItems.get(i).view != getChildAt(i)) {
+                return false;
             }
         }
+        return true;
+    }
+
+    @Override
+    public void onViewAdded(View child) {
+        super.onViewAdded(child);
+        int index = indexOfChild(child);
+        ViewWrapper flexItem = createFlexItem(child);
+        flexItems.add(index, flexItem);
+        flexContainer.addFlexItem(index, flexItem);
+    }
+
+    @Override
+    public void onViewRemoved(View child) {
+        super.onViewRemoved(child);
+        // the child may already be gone from the children array, e.g. in removeAllViews()
+        for (int i = 0; i < flexItems.size(); i++) {
+            if (flexItems.get(i).view == child) {
+                flexItems.remove(i);
+                flexContainer.removeFlexItemAt(i);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void bringChildToFront(View child) {
+        super.bringChildToFront(child);
+        mFlexItemsMaybeOutOfSync = true;
+    }
+
+    @Override
+    protected void attachViewToParent(View child, int index, ViewGroup.LayoutParams params) {
+        super.attachViewToParent(child, index, params);
+        mFlexItemsMaybeOutOfSync = true;
+    }
+
+    @Override
+    protected void detachViewFromParent(View child) {
+        super.detachViewFromParent(child);
+        mFlexItemsMaybeOutOfSync = true;
+    }
+
+    @Override
+    protected void detachViewFromParent(int index) {
+        super.detachViewFromParent(index);
+        mFlexItemsMaybeOutOfSync = true;
+    }
+
+    @Override
+    protected void detachViewsFromParent(int start, int count) {
+        super.detachViewsFromParent(start, count);
+        mFlexItemsMaybeOutOfSync = true;
+    }
+
+    @Override
+    protected void detachAllViewsFromParent() {
+        super.detachAllViewsFromParent();
+        mFlexItemsMaybeOutOfSync = true;
+    }
+
+    @Override
+    protected void removeDetachedView(View child, boolean animate) {
+        super.removeDetachedView(child, animate);
+        mFlexItemsMaybeOutOfSync = true;
+    }
+
+    private static ViewWrapper createFlexItem(View child) {
+        ViewWrapper flexItem = new ViewWrapper();
+        flexItem.view = child;
+        return flexItem;
     }
 
     private void updateFlexContainerProperties() {
-        setInnerFlexDirection(mFlexDirection);
-        setInnerFlexWrap(mFlexWrap);
-        setInnerJustifyContent(mJustifyContent);
-        setInnerAlignContent(mAlignContent);
-        setInnerAlignItems(mAlignItems);
+        flexContainer.setFlexStyle(mFlexStyle);
     }
 
     private void updatePaddings() {
@@ -309,97 +539,177 @@ public class FlexboxLayout extends ViewGroup implements FlexContainer {
         flexContainer.setPaddings(paddings);
     }
 
-    void setInnerFlexDirection(@FlexDirection int flexDirection) {
+    static FlexStyle toFlexStyle(@FlexDirection int flexDirection, @FlexWrap int flexWrap,
+            @JustifyContent int justifyContent, @AlignItems int alignItems,
+            @AlignContent int alignContent, int maxLine) {
+        return FlexStyle.of(toInnerFlexDirection(flexDirection), toInnerFlexWrap(flexWrap),
+                toInnerJustifyContent(justifyContent), toInnerAlignItems(alignItems),
+                toInnerAlignContent(alignContent), maxLine, 0, 0);
+    }
+
+    private static com.xinwendewen.flexbox.FlexDirection toInnerFlexDirection(
+            @FlexDirection int flexDirection) {
         switch (flexDirection) {
             case FlexDirection.ROW:
-                flexContainer.setFlexDirection(com.xinwendewen.flexbox.FlexDirection.ROW);
-                break;
+                return com.xinwendewen.flexbox.FlexDirection.ROW;
             case FlexDirection.ROW_REVERSE:
-                flexContainer.setFlexDirection(com.xinwendewen.flexbox.FlexDirection.ROW_REVERSE);
-                break;
+                return com.xinwendewen.flexbox.FlexDirection.ROW_REVERSE;
             case FlexDirection.COLUMN:
-                flexContainer.setFlexDirection(com.xinwendewen.flexbox.FlexDirection.COLUMN);
-                break;
+                return com.xinwendewen.flexbox.FlexDirection.COLUMN;
             case FlexDirection.COLUMN_REVERSE:
-                flexContainer.setFlexDirection(com.xinwendewen.flexbox.FlexDirection.COLUMN_REVERSE);
-                break;
+                return com.xinwendewen.flexbox.FlexDirection.COLUMN_REVERSE;
+            default:
+                throw new IllegalArgumentException("Invalid flex direction: " + flexDirection);
         }
     }
 
-    void setInnerFlexWrap(@FlexWrap int flexWrap) {
+    private static com.xinwendewen.flexbox.FlexWrap toInnerFlexWrap(
+            @FlexWrap int flexWrap) {
         switch (flexWrap) {
-            case FlexWrap.WRAP:
-                flexContainer.setFlexWrap(com.xinwendewen.flexbox.FlexWrap.WRAP);
-                break;
             case FlexWrap.NOWRAP:
-                flexContainer.setFlexWrap(com.xinwendewen.flexbox.FlexWrap.NOWRAP);
-                break;
+                return com.xinwendewen.flexbox.FlexWrap.NOWRAP;
+            case FlexWrap.WRAP:
+                return com.xinwendewen.flexbox.FlexWrap.WRAP;
             case FlexWrap.WRAP_REVERSE:
-                flexContainer.setFlexWrap(com.xinwendewen.flexbox.FlexWrap.WRAP_REVERSE);
-                break;
+                return com.xinwendewen.flexbox.FlexWrap.WRAP_REVERSE;
+            default:
+                throw new IllegalArgumentException("Invalid flex wrap: " + flexWrap);
         }
     }
 
-    void setInnerJustifyContent(@JustifyContent int justifyContent) {
+    private static com.xinwendewen.flexbox.JustifyContent toInnerJustifyContent(
+            @JustifyContent int justifyContent) {
         switch (justifyContent) {
             case JustifyContent.FLEX_START:
-                flexContainer.setJustifyContent(com.xinwendewen.flexbox.JustifyContent.FLEX_START);
-                break;
+                return com.xinwendewen.flexbox.JustifyContent.FLEX_START;
             case JustifyContent.FLEX_END:
-                flexContainer.setJustifyContent(com.xinwendewen.flexbox.JustifyContent.FLEX_END);
-                break;
+                return com.xinwendewen.flexbox.JustifyContent.FLEX_END;
             case JustifyContent.CENTER:
-                flexContainer.setJustifyContent(com.xinwendewen.flexbox.JustifyContent.CENTER);
-                break;
+                return com.xinwendewen.flexbox.JustifyContent.CENTER;
             case JustifyContent.SPACE_BETWEEN:
-                flexContainer.setJustifyContent(com.xinwendewen.flexbox.JustifyContent.SPACE_BETWEEN);
-                break;
+                return com.xinwendewen.flexbox.JustifyContent.SPACE_BETWEEN;
             case JustifyContent.SPACE_AROUND:
-                flexContainer.setJustifyContent(com.xinwendewen.flexbox.JustifyContent.SPACE_AROUND);
-                break;
+                return com.xinwendewen.flexbox.JustifyContent.SPACE_AROUND;
             case JustifyContent.SPACE_EVENLY:
-                flexContainer.setJustifyContent(com.xinwendewen.flexbox.JustifyContent.SPACE_EVENLY);
-                break;
+                return com.xinwendewen.flexbox.JustifyContent.SPACE_EVENLY;
+            default:
+                throw new IllegalArgumentException("Invalid justify content: " + justifyContent);
         }
     }
 
-    void setInnerAlignItems(@AlignItems int alignItems) {
+    private static com.xinwendewen.flexbox.AlignItems toInnerAlignItems(
+            @AlignItems int alignItems) {
         switch (alignItems) {
             case AlignItems.FLEX_START:
-                flexContainer.setAlignItems(com.xinwendewen.flexbox.AlignItems.FLEX_START);
-                break;
+                return com.xinwendewen.flexbox.AlignItems.FLEX_START;
             case AlignItems.FLEX_END:
-                flexContainer.setAlignItems(com.xinwendewen.flexbox.AlignItems.FLEX_END);
-                break;
+                return com.xinwendewen.flexbox.AlignItems.FLEX_END;
             case AlignItems.CENTER:
-                flexContainer.setAlignItems(com.xinwendewen.flexbox.AlignItems.CENTER);
-                break;
+                return com.xinwendewen.flexbox.AlignItems.CENTER;
+            case AlignItems.BASELINE:
+                return com.xinwendewen.flexbox.AlignItems.BASELINE;
             case AlignItems.STRETCH:
-                flexContainer.setAlignItems(com.xinwendewen.flexbox.AlignItems.STRETCH);
-                break;
+                return com.xinwendewen.flexbox.AlignItems.STRETCH;
+            default:
+                throw new IllegalArgumentException("Invalid align items: " + alignItems);
         }
     }
 
-    void setInnerAlignContent(@AlignContent int alignContent) {
+    private static com.xinwendewen.flexbox.AlignContent toInnerAlignContent(
+            @AlignContent int alignContent) {
         switch (alignContent) {
             case AlignContent.FLEX_START:
-                flexContainer.setAlignContent(com.xinwendewen.flexbox.AlignContent.FLEX_START);
-                break;
+                return com.xinwendewen.flexbox.AlignContent.FLEX_START;
             case AlignContent.FLEX_END:
-                flexContainer.setAlignContent(com.xinwendewen.flexbox.AlignContent.FLEX_END);
-                break;
+                return com.xinwendewen.flexbox.AlignContent.FLEX_END;
             case AlignContent.CENTER:
-                flexContainer.setAlignContent(com.xinwendewen.flexbox.AlignContent.CENTER);
-                break;
+                return com.xinwendewen.flexbox.AlignContent.CENTER;
             case AlignContent.SPACE_BETWEEN:
-                flexContainer.setAlignContent(com.xinwendewen.flexbox.AlignContent.SPACE_BETWEEN);
-                break;
+                return com.xinwendewen.flexbox.AlignContent.SPACE_BETWEEN;
             case AlignContent.SPACE_AROUND:
-                flexContainer.setAlignContent(com.xinwendewen.flexbox.AlignContent.SPACE_AROUND);
-                break;
+                return com.xinwendewen.flexbox.AlignContent.SPACE_AROUND;
             case AlignContent.STRETCH:
-                flexContainer.setAlignContent(com.xinwendewen.flexbox.AlignContent.STRETCH);
-                break;
+                return com.xinwendewen.flexbox.AlignContent.STRETCH;
+            default:
+                throw new IllegalArgumentException("Invalid align content: " + alignContent);
+        }
+    }
+
+    @FlexDirection
+    private static int fromFlexDirection(com.xinwendewen.flexbox.FlexDirection flexDirection) {
+        switch (flexDirection) {
+            case ROW:
+                return FlexDirection.ROW;
+            case ROW_REVERSE:
+                return FlexDirection.ROW_REVERSE;
+            case COLUMN:
+                return FlexDirection.COLUMN;
+            default:
+                return FlexDirection.COLUMN_REVERSE;
+        }
+    }
+
+    @FlexWrap
+    private static int fromFlexWrap(com.xinwendewen.flexbox.FlexWrap flexWrap) {
+        switch (flexWrap) {
+            case NOWRAP:
+                return FlexWrap.NOWRAP;
+            case WRAP:
+                return FlexWrap.WRAP;
+            default:
+                return FlexWrap.WRAP_REVERSE;
+        }
+    }
+
+    @JustifyContent
+    private static int fromJustifyContent(com.xinwendewen.flexbox.JustifyContent justifyContent) {
+        switch (justifyContent) {
+            case FLEX_START:
+                return JustifyContent.FLEX_START;
+            case FLEX_END:
+                return JustifyContent.FLEX_END;
+            case CENTER:
+                return JustifyContent.CENTER;
+            case SPACE_BETWEEN:
+                return JustifyContent.SPACE_BETWEEN;
+            case SPACE_AROUND:
+                return JustifyContent.SPACE_AROUND;
+            default:
+                return JustifyContent.SPACE_EVENLY;
+        }
+    }
+
+    @AlignItems
+    private static int fromAlignItems(com.xinwendewen.flexbox.AlignItems alignItems) {
+        switch (alignItems) {
+            case FLEX_START:
+                return AlignItems.FLEX_START;
+            case FLEX_END:
+                return AlignItems.FLEX_END;
+            case CENTER:
+                return AlignItems.CENTER;
+            case BASELINE:
+                return AlignItems.BASELINE;
+            default:
+                return AlignItems.STRETCH;
+        }
+    }
+
+    @AlignContent
+    private static int fromAlignContent(com.xinwendewen.flexbox.AlignContent alignContent) {
+        switch (alignContent) {
+            case FLEX_START:
+                return AlignContent.FLEX_START;
+            case FLEX_END:
+                return AlignContent.FLEX_END;
+            case CENTER:
+                return AlignContent.CENTER;
+            case SPACE_BETWEEN:
+                return AlignContent.SPACE_BETWEEN;
+            case SPACE_AROUND:
+                return AlignContent.SPACE_AROUND;
+            default:
+                return AlignContent.STRETCH;
         }
     }
 
@@ -563,7 +873,7 @@ public class FlexboxLayout extends ViewGroup implements FlexContainer {
             }
             sum += flexLine.getCrossSize();
         }
-        return sum;
+        return sum + mFlexStyle.getCrossGaps(mFlexLines);
     }
 
     @Override
@@ -574,7 +884,29 @@ public class FlexboxLayout extends ViewGroup implements FlexContainer {
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         boolean isRtl = ViewCompat.getLayoutDirection(this) == ViewCompat.LAYOUT_DIRECTION_RTL;
+        if (mPrecomputedLayoutApplied) {
+            mPrecomputedLayout.layout(left, top, right, bottom, isRtl);
+            return;
+        }
+        if (mMeasurePending) {
+            return;
+        }
         flexContainer.layout(left, top, right, bottom, isRtl);
+        if (mLayoutTraceListener != null) {
+            finishLayoutTrace();
+        }
+    }
+
+    private void finishLayoutTrace() {
+        RecordingFlexContainer recordingFlexContainer = (RecordingFlexContainer) flexContainer;
+        if (recordingFlexContainer.getTrace() == null) {
+            return;
+        }
+        OnLayoutTraceRecordedListener listener = mLayoutTraceListener;
+        mLayoutTraceListener = null;
+        flexContainer = recordingFlexContainer.getDelegate();
+        flexContainer.setFlexItems(flexItems, flexItems.size());
+        listener.onLayoutTraceRecorded(recordingFlexContainer.getTrace());
     }
 
     @Override
@@ -602,6 +934,7 @@ public class FlexboxLayout extends ViewGroup implements FlexContainer {
     public void setFlexDirection(@FlexDirection int flexDirection) {
         if (mFlexDirection != flexDirection) {
             mFlexDirection = flexDirection;
+            mFlexStyle = mFlexStyle.withFlexDirection(toInnerFlexDirection(flexDirection));
             requestLayout();
         }
     }
@@ -616,6 +949,7 @@ public class FlexboxLayout extends ViewGroup implements FlexContainer {
     public void setFlexWrap(@FlexWrap int flexWrap) {
         if (mFlexWrap != flexWrap) {
             mFlexWrap = flexWrap;
+            mFlexStyle = mFlexStyle.withFlexWrap(toInnerFlexWrap(flexWrap));
             requestLayout();
         }
     }
@@ -630,6 +964,7 @@ public class FlexboxLayout extends ViewGroup implements FlexContainer {
     public void setJustifyContent(@JustifyContent int justifyContent) {
         if (mJustifyContent != justifyContent) {
             mJustifyContent = justifyContent;
+            mFlexStyle = mFlexStyle.withJustifyContent(toInnerJustifyContent(justifyContent));
             requestLayout();
         }
     }
@@ -644,6 +979,7 @@ public class FlexboxLayout extends ViewGroup implements FlexContainer {
     public void setAlignItems(@AlignItems int alignItems) {
         if (mAlignItems != alignItems) {
             mAlignItems = alignItems;
+            mFlexStyle = mFlexStyle.withAlignItems(toInnerAlignItems(alignItems));
             requestLayout();
         }
     }
@@ -658,6 +994,7 @@ public class FlexboxLayout extends ViewGroup implements FlexContainer {
     public void setAlignContent(@AlignContent int alignContent) {
         if (mAlignContent != alignContent) {
             mAlignContent = alignContent;
+            mFlexStyle = mFlexStyle.withAlignContent(toInnerAlignContent(alignContent));
             requestLayout();
         }
     }
@@ -671,10 +1008,129 @@ public class FlexboxLayout extends ViewGroup implements FlexContainer {
     public void setMaxLine(int maxLine) {
         if (mMaxLine != maxLine) {
             mMaxLine = maxLine;
+            mFlexStyle = mFlexStyle.withMaxLine(maxLine);
+            requestLayout();
+        }
+    }
+
+    /**
+     * @return the style holding the flex attributes of this FlexboxLayout, which can be shared with
+     * other FlexboxLayouts through {@link #setFlexStyle(FlexStyle)}
+     */
+    public FlexStyle getFlexStyle() {
+        return mFlexStyle;
+    }
+
+    /**
+     * Set all the flex attributes of this FlexboxLayout at once, including the ones that have no
+     * dedicated setter such as the gaps between flex items and flex lines.
+     *
+     * @param flexStyle the style to be used by this FlexboxLayout
+     */
+    public void setFlexStyle(FlexStyle flexStyle) {
+        if (mFlexStyle == flexStyle) {
+            return;
+        }
+        mFlexStyle = flexStyle;
+        mFlexDirection = fromFlexDirection(flexStyle.flexDirection);
+        mFlexWrap = fromFlexWrap(flexStyle.flexWrap);
+        mJustifyContent = fromJustifyContent(flexStyle.justifyContent);
+        mAlignItems = fromAlignItems(flexStyle.alignItems);
+        mAlignContent = fromAlignContent(flexStyle.alignContent);
+        mMaxLine = flexStyle.maxLine;
+        requestLayout();
+    }
+
+    /**
+     * Set a layout computed ahead of time, possibly on a background thread, by
+     * {@link PrecomputedFlexboxLayout#create}. The following measure passes use it as long as
+     * their measure specs, the attributes of this FlexboxLayout and its children match the ones
+     * it was computed for, and fall back to a regular measure pass otherwise.
+     *
+     * @param precomputedLayout the precomputed layout, or {@code null} to clear it
+     */
+    public void setPrecomputedLayout(@Nullable PrecomputedFlexboxLayout precomputedLayout) {
+        if (mPrecomputedLayout != precomputedLayout) {
+            mPrecomputedLayout = precomputedLayout;
+            requestLayout();
+        }
+    }
+
+    /**
+     * Set the time a measure pass may take per frame once this FlexboxLayout has been laid out.
+     * A pass that takes longer, e.g. over thousands of children, continues in the following
+     * frames while this FlexboxLayout keeps its previous size and child positions, and the
+     * layout is requested again once the pass is done.
+     *
+     * @param budgetNanos the time budget per frame in nanoseconds, or 0 to always run a measure
+     *                    pass in one go
+     */
+    public void setMeasureTimeBudget(long budgetNanos) {
+        mMeasureTimeBudgetNanos = budgetNanos;
+        if (budgetNanos <= 0 && mMeasurePending) {
+            cancelTimeSlicedMeasure();
             requestLayout();
         }
     }
 
+    /**
+     * Set whether the measure passes cache where the flex lines break for the main axis sizes
+     * they are measured for. A pass for a size the same flex lines hold for, e.g. while the
+     * width changes over and over in split-screen mode, only distributes the free space and
+     * stretches the children again instead of measuring every child. The cache is dropped
+     * whenever a child requests a layout.
+     *
+     * @param enabled {@code true} to cache the line breaks
+     */
+    public void setLineBreakCacheEnabled(boolean enabled) {
+        if (enabled == (mLineBreakCache != null)) {
+            return;
+        }
+        mLineBreakCache = enabled ? new LineBreakCache() : null;
+        com.xinwendewen.flexbox.FlexContainer container =
+                flexContainer instanceof RecordingFlexContainer
+                        ? ((RecordingFlexContainer) flexContainer).getDelegate() : flexContainer;
+        if (container instanceof FlexContainerImpl) {
+            ((FlexContainerImpl) container).setLineBreakCache(mLineBreakCache);
+        }
+    }
+
+    /**
+     * Record the next measure and layout passes of this FlexboxLayout that run the flex
+     * algorithm. The trace holds the sizes reported by the children, so that it can be replayed
+     * without them, e.g. to profile the layout of a slow screen on a desktop JVM.
+     *
+     * @param listener the listener receiving the trace once the layout pass is done
+     */
+    public void recordNextLayoutTrace(OnLayoutTraceRecordedListener listener) {
+        if (mLayoutTraceListener == null) {
+            flexContainer = new RecordingFlexContainer(flexContainer);
+            flexContainer.setFlexItems(flexItems, flexItems.size());
+        }
+        mLayoutTraceListener = listener;
+        requestLayout();
+    }
+
+    /**
+     * Set whether the free space is distributed with integer fixed-point arithmetic instead of
+     * floating point. The results are deterministic across devices, which allows comparing or
+     * caching them by value.
+     *
+     * @param enabled {@code true} to use the fixed-point arithmetic
+     */
+    public void setFixedPointArithmetic(boolean enabled) {
+        flexContainer.setFixedPointArithmetic(enabled);
+        requestLayout();
+    }
+
+    /**
+     * @return {@code true} if the free space is distributed with integer fixed-point arithmetic
+     * @see #setFixedPointArithmetic(boolean)
+     */
+    public boolean isFixedPointArithmetic() {
+        return flexContainer.isFixedPointArithmetic();
+    }
+
     /**
      * @return the flex lines composing this flex container. This method returns a copy of the
      * original list excluding a dummy flex line (flex line that doesn't have any flex items in it
@@ -987,6 +1443,17 @@ public class FlexboxLayout extends ViewGroup implements FlexContainer {
 
     }
 
+    /**
+     * Receives the trace recorded by {@link #recordNextLayoutTrace}.
+     */
+    public interface OnLayoutTraceRecordedListener {
+
+        /**
+         * @param trace the trace, which can be written with {@link LayoutTrace#writeTo}
+         */
+        void onLayoutTraceRecorded(LayoutTrace trace);
+    }
+
     /**
      * Per child parameters for children views of the {@link FlexboxLayout}.
      *
@@ -0,0 +1,53 @@
+package com.google.android.flexbox;
+
+import android.view.View;
+
+import com.xinwendewen.flexbox.MeasureConstraint;
+import com.xinwendewen.flexbox.MeasureFunction;
+import com.xinwendewen.flexbox.MeasureRequest;
+
+/**
+ * Conversions between {@link View.MeasureSpec}s and the {@link MeasureRequest}s of the flex
+ * engine.
+ */
+final class MeasureSpecs {
+
+    /** The largest size a measure spec can hold, the bits above are used by the mode. */
+    private static final int MAX_SIZE = (1 << 30) - 1;
+
+    private MeasureSpecs() {
+    }
+
+    /**
+     * Returns the constraint of a measure spec. Converting it back with
+     * {@link #toMeasureSpec(MeasureRequest)} gives the same measure spec.
+     */
+    static MeasureConstraint toMeasureConstraint(int measureSpec) {
+        int size = View.MeasureSpec.getSize(measureSpec);
+        switch (View.MeasureSpec.getMode(measureSpec)) {
+            case View.MeasureSpec.EXACTLY:
+                return MeasureConstraint.of(MeasureFunction.EXACTLY, size);
+            case View.MeasureSpec.AT_MOST:
+                return MeasureConstraint.of(MeasureFunction.AT_MOST, size);
+            default:
+                return MeasureConstraint.of(MeasureFunction.UNSPECIFIED, size);
+        }
+    }
+
+    /**
+     * Returns the measure spec of a request, with the expected size clamped to the range a
+     * measure spec can hold.
+     */
+    static int toMeasureSpec(MeasureRequest request) {
+        long constraint = MeasureConstraint.packOf(request);
+        int size = Math.max(0, Math.min(MeasureConstraint.getSize(constraint), MAX_SIZE));
+        switch (MeasureConstraint.getMode(constraint)) {
+            case MeasureFunction.EXACTLY:
+                return View.MeasureSpec.makeMeasureSpec(size, View.MeasureSpec.EXACTLY);
+            case MeasureFunction.AT_MOST:
+                return View.MeasureSpec.makeMeasureSpec(size, View.MeasureSpec.AT_MOST);
+            default:
+                return View.MeasureSpec.makeMeasureSpec(size, View.MeasureSpec.UNSPECIFIED);
+        }
+    }
+}
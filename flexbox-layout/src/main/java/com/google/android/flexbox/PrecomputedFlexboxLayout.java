@@ -0,0 +1,254 @@
+package com.google.android.flexbox;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import androidx.core.view.ViewCompat;
+
+import com.xinwendewen.flexbox.FlexContainerImpl;
+import com.xinwendewen.flexbox.FlexLine;
+import com.xinwendewen.flexbox.FlexStyle;
+import com.xinwendewen.flexbox.MeasureConstraint;
+import com.xinwendewen.flexbox.Paddings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of a {@link FlexboxLayout} measure pass computed ahead of time, typically on a
+ * background thread, from {@link Leaf}s whose sizes are known without a View (e.g. sizes derived
+ * from a {@code PrecomputedText}).
+ *
+ * Pass the result to {@link FlexboxLayout#setPrecomputedLayout(PrecomputedFlexboxLayout)}: as
+ * long as the measure specs, the container attributes and the children match the ones used for
+ * the computation, the FlexboxLayout only measures its children with the precomputed exact sizes
+ * instead of running the flex algorithm. Otherwise it falls back to a regular measure pass.
+ *
+ * Leaves have no visibility and no baseline, so the result is never applied when a child is
+ * {@link View#GONE} or aligned by {@link AlignItems#BASELINE}.
+ */
+public class PrecomputedFlexboxLayout {
+
+    /**
+     * Measures a leaf without a View. Implementations must be thread safe.
+     */
+    public interface LeafMeasurer {
+
+        /**
+         * @param widthMeasureSpec  horizontal space requirements as imposed by the flex container
+         * @param heightMeasureSpec vertical space requirements as imposed by the flex container
+         * @return the measured size packed by {@link PrecomputedFlexboxLayout#packSize(int, int)}
+         */
+        long measure(int widthMeasureSpec, int heightMeasureSpec);
+    }
+
+    /**
+     * A flex item without a View. The layout params must be the same instance as the one of the
+     * child view the leaf stands for, and must not be modified during the computation.
+     */
+    public static class Leaf {
+        final FlexboxLayout.LayoutParams layoutParams;
+        final LeafMeasurer measurer;
+
+        public Leaf(@NonNull FlexboxLayout.LayoutParams layoutParams,
+                @NonNull LeafMeasurer measurer) {
+            this.layoutParams = layoutParams;
+            this.measurer = measurer;
+        }
+    }
+
+    /**
+     * A snapshot of the attributes of a {@link FlexboxLayout} that affect the layout. It has to
+     * be created on the UI thread, from the FlexboxLayout the result is going to be applied to
+     * or from one with the same attributes.
+     */
+    public static class Params {
+        final FlexStyle flexStyle;
+        final boolean isRtl;
+        final boolean isFixedPointArithmetic;
+        final Paddings paddings = new Paddings();
+
+        public Params(@NonNull FlexboxLayout template) {
+            flexStyle = template.getFlexStyle();
+            isRtl = isRtl(template);
+            isFixedPointArithmetic = template.isFixedPointArithmetic();
+            paddings.startPadding = template.getPaddingStart();
+            paddings.endPadding = template.getPaddingEnd();
+            paddings.leftPadding = template.getPaddingLeft();
+            paddings.rightPadding = template.getPaddingRight();
+            paddings.topPadding = template.getPaddingTop();
+            paddings.bottomPadding = template.getPaddingBottom();
+        }
+
+        boolean matches(FlexboxLayout layout) {
+            return flexStyle == layout.getFlexStyle()
+                    && isRtl == isRtl(layout)
+                    && isFixedPointArithmetic == layout.isFixedPointArithmetic()
+                    && paddings.startPadding == layout.getPaddingStart()
+                    && paddings.endPadding == layout.getPaddingEnd()
+                    && paddings.leftPadding == layout.getPaddingLeft()
+                    && paddings.rightPadding == layout.getPaddingRight()
+                    && paddings.topPadding == layout.getPaddingTop()
+                    && paddings.bottomPadding == layout.getPaddingBottom();
+        }
+
+        private static boolean isRtl(View view) {
+            return ViewCompat.getLayoutDirection(view) == ViewCompat.LAYOUT_DIRECTION_RTL;
+        }
+    }
+
+    private final Params params;
+    private final int widthMeasureSpec;
+    private final int heightMeasureSpec;
+    private final FlexContainerImpl flexContainer;
+    private final List<LeafItem> items;
+    private final List<FlexLine> flexLines;
+
+    private PrecomputedFlexboxLayout(Params params, int widthMeasureSpec, int heightMeasureSpec,
+            FlexContainerImpl flexContainer, List<LeafItem> items) {
+        this.params = params;
+        this.widthMeasureSpec = widthMeasureSpec;
+        this.heightMeasureSpec = heightMeasureSpec;
+        this.flexContainer = flexContainer;
+        this.items = items;
+        this.flexLines = flexContainer.getFlexLines();
+    }
+
+    /**
+     * Runs the measure pass of a flex container with the given attributes and leaves. This
+     * method can be called from any thread.
+     *
+     * @param params            the attributes of the flex container
+     * @param leaves            the leaves standing for the children of the flex container, in
+     *                          order
+     * @param widthMeasureSpec  the width measure spec the flex container is expected to be
+     *                          measured with
+     * @param heightMeasureSpec the height measure spec the flex container is expected to be
+     *                          measured with
+     * @return the precomputed layout
+     */
+    @WorkerThread
+    @NonNull
+    public static PrecomputedFlexboxLayout create(@NonNull Params params,
+            @NonNull List<Leaf> leaves, int widthMeasureSpec, int heightMeasureSpec) {
+        FlexContainerImpl flexContainer = new FlexContainerImpl();
+        flexContainer.setFlexStyle(params.flexStyle);
+        flexContainer.setPaddings(params.paddings);
+        flexContainer.setFixedPointArithmetic(params.isFixedPointArithmetic);
+        List<LeafItem> items = new ArrayList<>(leaves.size());
+        for (Leaf leaf : leaves) {
+            items.add(new LeafItem(leaf));
+        }
+        flexContainer.setFlexItems(items, items.size());
+        MeasureConstraint widthMeasureRequest = MeasureSpecs.toMeasureConstraint(widthMeasureSpec);
+        MeasureConstraint heightMeasureRequest =
+                MeasureSpecs.toMeasureConstraint(heightMeasureSpec);
+        if (params.flexStyle.isMainAxisHorizontal()) {
+            flexContainer.measure(widthMeasureRequest, heightMeasureRequest);
+        } else {
+            flexContainer.measure(heightMeasureRequest, widthMeasureRequest);
+        }
+        return new PrecomputedFlexboxLayout(params, widthMeasureSpec, heightMeasureSpec,
+                flexContainer, items);
+    }
+
+    /**
+     * Packs a measured size to be returned from {@link LeafMeasurer#measure(int, int)}.
+     */
+    public static long packSize(int width, int height) {
+        return ((long) width << 32) | (height & 0xffffffffL);
+    }
+
+    boolean isApplicableTo(FlexboxLayout layout, int widthMeasureSpec, int heightMeasureSpec) {
+        if (this.widthMeasureSpec != widthMeasureSpec
+                || this.heightMeasureSpec != heightMeasureSpec) {
+            return false;
+        }
+        if (layout.getChildCount() != items.size() || !params.matches(layout)) {
+            return false;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            View child = layout.getChildAt(i);
+            FlexboxLayout.LayoutParams layoutParams = items.get(i).leaf.layoutParams;
+            if (child.getLayoutParams() != layoutParams || child.getVisibility() == View.GONE
+                    || isBaselineAligned(layoutParams)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBaselineAligned(FlexboxLayout.LayoutParams layoutParams) {
+        int alignSelf = layoutParams.getAlignSelf();
+        if (alignSelf == AlignSelf.AUTO) {
+            return params.flexStyle.alignItems == com.xinwendewen.flexbox.AlignItems.BASELINE;
+        }
+        return alignSelf == AlignSelf.BASELINE;
+    }
+
+    List<FlexLine> getFlexLines() {
+        return flexLines;
+    }
+
+    void measureChildren(FlexboxLayout layout) {
+        for (int i = 0; i < items.size(); i++) {
+            LeafItem item = items.get(i);
+            item.view = layout.getChildAt(i);
+            item.view.measure(ViewWrapper.generateExactlyMeasureSpec(item.measuredWidth),
+                    ViewWrapper.generateExactlyMeasureSpec(item.measuredHeight));
+        }
+    }
+
+    void layout(int left, int top, int right, int bottom, boolean isRtl) {
+        flexContainer.layout(left, top, right, bottom, isRtl);
+    }
+
+    private static class LeafItem extends ViewWrapper {
+        final Leaf leaf;
+        int measuredWidth;
+        int measuredHeight;
+
+        LeafItem(Leaf leaf) {
+            this.leaf = leaf;
+        }
+
+        @Override
+        public boolean isGone() {
+            return false;
+        }
+
+        @Override
+        public int getMeasuredWidth() {
+            return measuredWidth;
+        }
+
+        @Override
+        public int getMeasuredHeight() {
+            return measuredHeight;
+        }
+
+        @Override
+        protected int getMeasuredBaseline() {
+            return -1;
+        }
+
+        @Override
+        void measureView(int widthMeasureSpec, int heightMeasureSpec) {
+            long size = leaf.measurer.measure(widthMeasureSpec, heightMeasureSpec);
+            measuredWidth = (int) (size >>> 32);
+            measuredHeight = (int) size;
+        }
+
+        @Override
+        FlexItem getLayoutParams() {
+            return leaf.layoutParams;
+        }
+
+        @Override
+        ViewGroup.MarginLayoutParams getMarginLayoutParams() {
+            return leaf.layoutParams;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.google.android.flexbox;
+
+import android.view.Choreographer;
+import android.view.View;
+
+import com.xinwendewen.flexbox.FlexContainerImpl;
+import com.xinwendewen.flexbox.MeasureConstraint;
+import com.xinwendewen.flexbox.MeasureRequest;
+import com.xinwendewen.flexbox.MeasureTask;
+
+/**
+ * Spreads the measure passes of a {@link FlexboxLayout} over frames. A pass runs for a time budget
+ * in the measure call and then in a {@link Choreographer} frame callback per frame, and requests
+ * a layout once it is done, so that the next measure call picks up the result.
+ *
+ * <p>A parent may measure the view several times per layout pass with different requests. The
+ * pass runs for the requests of the last measure call, and only starts over in a frame callback
+ * once those differ from the ones it runs for, so that alternating requests cannot keep it from
+ * ever finishing.
+ */
+class TimeSlicedMeasure implements Choreographer.FrameCallback {
+    private final View view;
+    private final FlexContainerImpl flexContainer;
+    private final MeasureTask task;
+    private long budgetNanos;
+    private boolean frameCallbackPosted;
+    private MeasureConstraint pendingMainAxisMeasureRequest;
+    private MeasureConstraint pendingCrossAxisMeasureRequest;
+
+    TimeSlicedMeasure(View view, FlexContainerImpl flexContainer) {
+        this.view = view;
+        this.flexContainer = flexContainer;
+        task = new MeasureTask(flexContainer);
+    }
+
+    boolean isFor(com.xinwendewen.flexbox.FlexContainer flexContainer) {
+        return this.flexContainer == flexContainer;
+    }
+
+    /**
+     * Continues the pass if it runs for the measure requests, or starts one if none runs. A pass
+     * for other requests is left running.
+     *
+     * @return {@code true} if the flex container holds the result of the pass, {@code false} if
+     * the pass continues in the next frame
+     */
+    boolean measure(MeasureRequest mainAxisMeasureRequest, MeasureRequest crossAxisMeasureRequest,
+            long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+        pendingMainAxisMeasureRequest = MeasureConstraint.copyOf(mainAxisMeasureRequest);
+        pendingCrossAxisMeasureRequest = MeasureConstraint.copyOf(crossAxisMeasureRequest);
+        if (isIdle()) {
+            task.start(pendingMainAxisMeasureRequest, pendingCrossAxisMeasureRequest);
+        } else if (!task.isStartedFor(mainAxisMeasureRequest, crossAxisMeasureRequest)) {
+            // the next frame starts over if these remain the last requests
+            postFrameCallback();
+            return false;
+        }
+        if (task.isDone() || task.run(System.nanoTime() + budgetNanos)) {
+            // the result is consumed, the next measure call starts a new pass
+            task.reset();
+            return true;
+        }
+        postFrameCallback();
+        return false;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameCallbackPosted = false;
+        if (isIdle()) {
+            return;
+        }
+        if (!task.isStartedFor(pendingMainAxisMeasureRequest, pendingCrossAxisMeasureRequest)) {
+            task.start(pendingMainAxisMeasureRequest, pendingCrossAxisMeasureRequest);
+        } else if (task.isDone()) {
+            // waiting for the measure call the layout was requested for
+            return;
+        }
+        if (task.run(frameTimeNanos + budgetNanos)) {
+            view.requestLayout();
+        } else {
+            postFrameCallback();
+        }
+    }
+
+    private boolean isIdle() {
+        return !task.isRunning() && !task.isDone();
+    }
+
+    /** Drops the pass in progress, e.g. when the flex container is measured in one go. */
+    void cancel() {
+        task.reset();
+        if (frameCallbackPosted) {
+            Choreographer.getInstance().removeFrameCallback(this);
+            frameCallbackPosted = false;
+        }
+    }
+
+    private void postFrameCallback() {
+        if (!frameCallbackPosted) {
+            Choreographer.getInstance().postFrameCallback(this);
+            frameCallbackPosted = true;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import static android.view.ViewGroup.LayoutParams.MATCH_PARENT;
 import static com.google.android.flexbox.FlexContainer.NOT_SET;
 import static com.google.android.flexbox.FlexItem.FLEX_BASIS_PERCENT_DEFAULT;
 import static com.xinwendewen.flexbox.AlignSelf.AUTO;
+import static com.xinwendewen.flexbox.AlignSelf.BASELINE;
 import static com.xinwendewen.flexbox.AlignSelf.CENTER;
 import static com.xinwendewen.flexbox.AlignSelf.FLEX_END;
 import static com.xinwendewen.flexbox.AlignSelf.FLEX_START;
@@ -74,6 +75,11 @@ class ViewWrapper extends BaseFlexItem {
         return view.getMeasuredHeight();
     }
 
+    @Override
+    protected int getMeasuredBaseline() {
+        return view.getBaseline();
+    }
+
     @Override
     public void layout(int left, int top, int right, int bottom) {
         view.layout(left, top, right, bottom);
@@ -81,16 +87,12 @@ class ViewWrapper extends BaseFlexItem {
 
     @Override
     public int getMarginStart() {
-        ViewGroup.MarginLayoutParams lp = (ViewGroup.MarginLayoutParams)
-                view.getLayoutParams();
-        return MarginLayoutParamsCompat.getMarginStart(lp);
+        return MarginLayoutParamsCompat.getMarginStart(getMarginLayoutParams());
     }
 
     @Override
     public int getMarginEnd() {
-        ViewGroup.MarginLayoutParams lp = (ViewGroup.MarginLayoutParams)
-                view.getLayoutParams();
-        return MarginLayoutParamsCompat.getMarginEnd(lp);
+        return MarginLayoutParamsCompat.getMarginEnd(getMarginLayoutParams());
     }
 
     @Override
@@ -103,12 +105,12 @@ class ViewWrapper extends BaseFlexItem {
                            int expectedWidth, MeasureRequest parentHeightMeasureRequest,
                            int parentOccupiedHeight, int expectedHeight) {
         int widthMeasureSpec =
-                generateMeasureSpec(((MeasureSpecWrapper) parentWidthMeasureRequest).measureSpec,
+                generateMeasureSpec(MeasureSpecs.toMeasureSpec(parentWidthMeasureRequest),
                         parentOccupiedWidth + getHorizontalMargin(), expectedWidth);
         int heightMeasureSpec =
-                generateMeasureSpec(((MeasureSpecWrapper) parentHeightMeasureRequest).measureSpec,
+                generateMeasureSpec(MeasureSpecs.toMeasureSpec(parentHeightMeasureRequest),
                         parentOccupiedHeight + getVerticalMargin(), expectedHeight);
-        view.measure(widthMeasureSpec, heightMeasureSpec);
+        measureView(widthMeasureSpec, heightMeasureSpec);
     }
 
     @Override
@@ -116,25 +118,29 @@ class ViewWrapper extends BaseFlexItem {
                                      int parentOccupiedHeight, int expectedHeight) {
         int widthMeasureSpec = generateExactlyMeasureSpec(width);
         int heightMeasureSpec =
-                generateMeasureSpec(((MeasureSpecWrapper) parentHeightMeasureRequest).measureSpec,
+                generateMeasureSpec(MeasureSpecs.toMeasureSpec(parentHeightMeasureRequest),
                         parentOccupiedHeight + getVerticalMargin(), expectedHeight);
-        view.measure(widthMeasureSpec, heightMeasureSpec);
+        measureView(widthMeasureSpec, heightMeasureSpec);
     }
 
     @Override
     protected void fixedHeightMeasure(int height, MeasureRequest parentWidthMeasureRequest,
                                       int parentOccupiedWidth, int expectedWidth) {
         int widthMeasureSpec =
-                generateMeasureSpec(((MeasureSpecWrapper) parentWidthMeasureRequest).measureSpec,
+                generateMeasureSpec(MeasureSpecs.toMeasureSpec(parentWidthMeasureRequest),
                         parentOccupiedWidth + getHorizontalMargin(), expectedWidth);
         int heightMeasureSpec = generateExactlyMeasureSpec(height);
-        view.measure(widthMeasureSpec, heightMeasureSpec);
+        measureView(widthMeasureSpec, heightMeasureSpec);
     }
 
     @Override
     protected void fixedSizeMeasure(int width, int height) {
         int widthMeasureSpec = generateExactlyMeasureSpec(width);
         int heightMeasureSpec = generateExactlyMeasureSpec(height);
+        measureView(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    void measureView(int widthMeasureSpec, int heightMeasureSpec) {
         view.measure(widthMeasureSpec, heightMeasureSpec);
     }
 
@@ -205,6 +211,8 @@ class ViewWrapper extends BaseFlexItem {
                 return FLEX_END;
             case com.google.android.flexbox.AlignSelf.CENTER:
                 return CENTER;
+            case com.google.android.flexbox.AlignSelf.BASELINE:
+                return BASELINE;
             case com.google.android.flexbox.AlignSelf.STRETCH:
                 return STRETCH;
             default:
@@ -212,7 +220,11 @@ class ViewWrapper extends BaseFlexItem {
         }
     }
 
-    private FlexItem getLayoutParams() {
+    FlexItem getLayoutParams() {
         return (FlexItem) view.getLayoutParams();
     }
+
+    ViewGroup.MarginLayoutParams getMarginLayoutParams() {
+        return (ViewGroup.MarginLayoutParams) view.getLayoutParams();
+    }
 }
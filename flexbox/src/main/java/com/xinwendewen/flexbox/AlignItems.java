@@ -7,5 +7,7 @@ public enum AlignItems {
 
     CENTER,
 
+    BASELINE,
+
     STRETCH
 }
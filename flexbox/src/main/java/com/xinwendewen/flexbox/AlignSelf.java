@@ -9,5 +9,7 @@ public enum AlignSelf {
 
     CENTER,
 
+    BASELINE,
+
     STRETCH
 }
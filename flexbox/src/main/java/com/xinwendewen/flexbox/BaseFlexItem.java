@@ -1,10 +1,19 @@
 package com.xinwendewen.flexbox;
 
 public abstract class BaseFlexItem implements FlexItem {
+    private static final int BASELINE_UNKNOWN = Integer.MIN_VALUE;
+
+    static final int MAIN_SIZE_FIXED = 0;
+    static final int MAIN_SIZE_AT_MOST_AVAILABLE = 1;
+    static final int MAIN_SIZE_RELATIVE = 2;
+
+    private int cachedBaseline = BASELINE_UNKNOWN;
+
     @Override
     public void measure(MeasureRequest mainAxisMeasureRequest, int occupiedMainSize,
                         MeasureRequest crossAxisMeasureRequest, int occupiedCrossSize,
                         boolean isMainAxisHorizontal) {
+        invalidateBaseline();
         int itemFlexBasis = getFlexBasis(mainAxisMeasureRequest, isMainAxisHorizontal);
         int expectedCrossSize = getRequiredCrossSize(isMainAxisHorizontal);
         if (isMainAxisHorizontal) {
@@ -28,6 +37,27 @@ public abstract class BaseFlexItem implements FlexItem {
         }
     }
 
+    /**
+     * How the size {@link #measure} measures this item to on the main axis depends on the main
+     * size of the container: not at all, only through the size available to the item when that
+     * is an upper bound, or in any way.
+     */
+    int getMainSizeDependency(MeasureRequest containerMainMeasureRequest,
+                              boolean isMainHorizontal) {
+        if (isFlexBasisPercentSet() && containerMainMeasureRequest.isTight()) {
+            return MAIN_SIZE_RELATIVE;
+        }
+        int requiredMainSize = isMainHorizontal ? getRequiredWidth() : getRequiredHeight();
+        if (requiredMainSize >= 0) {
+            return MAIN_SIZE_FIXED;
+        }
+        if (requiredMainSize == LeafFlexItem.MATCH_PARENT
+                && containerMainMeasureRequest.isTight()) {
+            return MAIN_SIZE_RELATIVE;
+        }
+        return MAIN_SIZE_AT_MOST_AVAILABLE;
+    }
+
     protected abstract float getFlexBasisPercent();
 
     protected abstract boolean isFlexBasisPercentSet();
@@ -36,6 +66,7 @@ public abstract class BaseFlexItem implements FlexItem {
     public void fixedMainSizeMeasure(int roundedNewMainSize,
                                      MeasureRequest crossAxisMeasureRequest,
                                      int occupiedCrossSize, boolean isMainAxisHorizontal) {
+        invalidateBaseline();
         int expectedCrossSize = getRequiredCrossSize(isMainAxisHorizontal);
         if (isMainAxisHorizontal) {
             fixedWidthMeasure(roundedNewMainSize, crossAxisMeasureRequest, occupiedCrossSize,
@@ -68,10 +99,25 @@ public abstract class BaseFlexItem implements FlexItem {
         }
 
         if (violated) {
+            invalidateBaseline();
             fixedSizeMeasure(width, height);
         }
     }
 
+    @Override
+    public int getBaseline() {
+        if (cachedBaseline == BASELINE_UNKNOWN) {
+            int baseline = getMeasuredBaseline();
+            // an item without a baseline is aligned by its bottom edge
+            cachedBaseline = baseline < 0 ? getMeasuredHeight() : baseline;
+        }
+        return cachedBaseline;
+    }
+
+    private void invalidateBaseline() {
+        cachedBaseline = BASELINE_UNKNOWN;
+    }
+
     @Override
     public int getOuterMainSize(boolean isMainAxisHorizontal) {
         return getMeasuredMainSize(isMainAxisHorizontal) + getMainAxisMargin(isMainAxisHorizontal);
@@ -133,6 +179,7 @@ public abstract class BaseFlexItem implements FlexItem {
 
     @Override
     public void fixedSizeMeasure(int mainSize, int crossSize, boolean isMainAxisHorizontal) {
+        invalidateBaseline();
         if (isMainAxisHorizontal) {
             fixedSizeMeasure(mainSize, crossSize);
         } else {
@@ -140,7 +187,8 @@ public abstract class BaseFlexItem implements FlexItem {
         }
     }
 
-    private int getMaxCrossSize(boolean isMainAxisHorizontal) {
+    @Override
+    public int getMaxCrossSize(boolean isMainAxisHorizontal) {
         if (isMainAxisHorizontal) {
             return getMaxHeight();
         } else {
@@ -148,7 +196,8 @@ public abstract class BaseFlexItem implements FlexItem {
         }
     }
 
-    private int getMinCrossSize(boolean isMainAxisHorizontal) {
+    @Override
+    public int getMinCrossSize(boolean isMainAxisHorizontal) {
         if (isMainAxisHorizontal) {
             return getMinHeight();
         } else {
@@ -256,6 +305,8 @@ public abstract class BaseFlexItem implements FlexItem {
 
     protected abstract int getMeasuredHeight();
 
+    protected abstract int getMeasuredBaseline();
+
     protected abstract int getRequiredWidth();
 
     protected abstract int getRequiredHeight();
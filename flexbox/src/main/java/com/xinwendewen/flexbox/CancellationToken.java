@@ -0,0 +1,55 @@
+package com.xinwendewen.flexbox;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops a measure or layout pass that is no longer needed. The engine loops check the token
+ * every {@link FlexContainerImpl#CANCELLATION_CHECK_INTERVAL} items and throw a
+ * {@link LayoutCancelledException} once it is cancelled or its deadline has passed. The
+ * container can be measured and laid out again afterwards.
+ */
+public final class CancellationToken {
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final long deadlineNanos;
+    private volatile boolean isCancelled;
+
+    public CancellationToken() {
+        this(NO_DEADLINE);
+    }
+
+    private CancellationToken(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /** A token that expires when {@link System#nanoTime()} reaches the deadline. */
+    public static CancellationToken withDeadline(long deadlineNanos) {
+        return new CancellationToken(deadlineNanos);
+    }
+
+    public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+        return new CancellationToken(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /** Cancels the passes using this token. Can be called from any thread. */
+    public void cancel() {
+        isCancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return isCancelled || isDeadlineExceeded();
+    }
+
+    public boolean isDeadlineExceeded() {
+        return deadlineNanos != NO_DEADLINE && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    public void throwIfCancelled() {
+        if (isCancelled) {
+            throw new LayoutCancelledException("Layout cancelled");
+        }
+        if (isDeadlineExceeded()) {
+            throw new LayoutCancelledException("Layout deadline exceeded");
+        }
+    }
+}
@@ -1,9 +0,0 @@
-package com.xinwendewen.flexbox;
-
-class ContainerFlexProperties {
-    FlexDirection flexDirection = FlexDirection.ROW;
-    FlexWrap flexWrap = FlexWrap.NOWRAP;
-    JustifyContent justifyContent = JustifyContent.FLEX_START;
-    AlignContent alignContent = AlignContent.STRETCH;
-    AlignItems alignItems = AlignItems.STRETCH;
-}
@@ -0,0 +1,55 @@
+package com.xinwendewen.flexbox;
+
+import java.util.List;
+
+/**
+ * Runs the measure pass of a container for {@link MeasureFunction} style constraints and
+ * resolves the size of the container from its flex lines, for the containers nested in a tree,
+ * including the ones of other modules such as the headless {@code ContainerFlexItem}.
+ */
+public final class ContainerMeasure {
+    private ContainerMeasure() {
+    }
+
+    /**
+     * Measures the container with the paddings it was given and returns its size packed with
+     * {@link MeasureFunction#packSize}.
+     */
+    public static long measure(FlexContainerImpl container, Paddings paddings, int widthMode, int width,
+                        int heightMode, int height) {
+        FlexStyle flexStyle = container.getFlexStyle();
+        boolean isMainAxisHorizontal = flexStyle.isMainAxisHorizontal();
+        MeasureConstraint widthRequest = toMeasureConstraint(widthMode, width);
+        MeasureConstraint heightRequest = toMeasureConstraint(heightMode, height);
+        MeasureConstraint mainAxisMeasureRequest =
+                isMainAxisHorizontal ? widthRequest : heightRequest;
+        MeasureConstraint crossAxisMeasureRequest =
+                isMainAxisHorizontal ? heightRequest : widthRequest;
+        container.measure(mainAxisMeasureRequest, crossAxisMeasureRequest);
+        int largestMainSize = 0;
+        int crossSize = 0;
+        List<FlexLine> flexLines = container.getFlexLines();
+        for (FlexLine flexLine : flexLines) {
+            largestMainSize = Math.max(largestMainSize, flexLine.getMainSize());
+            crossSize += flexLine.getCrossSize();
+        }
+        crossSize += flexStyle.getCrossGaps(flexLines);
+        int mainSize = resolve(mainAxisMeasureRequest,
+                largestMainSize + paddings.getMainPaddings(isMainAxisHorizontal));
+        crossSize = resolve(crossAxisMeasureRequest,
+                crossSize + paddings.getCrossPaddings(isMainAxisHorizontal));
+        return isMainAxisHorizontal ? MeasureFunction.packSize(mainSize, crossSize)
+                : MeasureFunction.packSize(crossSize, mainSize);
+    }
+
+    static MeasureConstraint toMeasureConstraint(int mode, int size) {
+        // the largest line decides the size, see FlexContainerImpl#determineMainSize
+        return MeasureConstraint.of(mode, mode == MeasureFunction.UNSPECIFIED
+                ? Integer.MAX_VALUE : size);
+    }
+
+    private static int resolve(MeasureConstraint constraint, int contentSize) {
+        return constraint.isTight() ? constraint.getSize()
+                : Math.min(contentSize, constraint.getSize());
+    }
+}
@@ -0,0 +1,36 @@
+package com.xinwendewen.flexbox;
+
+/**
+ * Splits an integral amount of pixels across weighted parts using integer arithmetic only.
+ * Weights are fixed-point numbers with {@link #FRACTION_BITS} fractional bits (1/256 px), and
+ * the division remainder is carried from one part to the next, so the parts always add up to
+ * exactly the distributed amount, independently of the device or the JVM.
+ */
+public class FixedPointDistributor {
+    public static final int FRACTION_BITS = 8;
+
+    public static final int ONE = 1 << FRACTION_BITS;
+
+    private long amount;
+    private long totalWeight;
+    private long carry;
+
+    public static int toFixed(float value) {
+        return Math.round(value * ONE);
+    }
+
+    public void reset(int amount, long totalWeight) {
+        this.amount = amount;
+        this.totalWeight = totalWeight;
+        carry = 0;
+    }
+
+    public int next(long weight) {
+        if (totalWeight == 0) {
+            return 0;
+        }
+        long numerator = amount * weight + carry;
+        carry = numerator % totalWeight;
+        return (int) (numerator / totalWeight);
+    }
+}
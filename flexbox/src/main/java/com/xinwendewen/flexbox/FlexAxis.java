@@ -0,0 +1,160 @@
+package com.xinwendewen.flexbox;
+
+/**
+ * The orientation of the main axis, resolved once per pass. Each implementation calls the
+ * {@link FlexItem} accessors with a constant axis argument, so that the branches on the axis
+ * fold away once the accessors are inlined into the engine loops.
+ */
+abstract class FlexAxis {
+    static final FlexAxis ROW = new Row();
+    static final FlexAxis COLUMN = new Column();
+
+    final boolean isHorizontal;
+
+    private FlexAxis(boolean isHorizontal) {
+        this.isHorizontal = isHorizontal;
+    }
+
+    static FlexAxis of(FlexDirection flexDirection) {
+        switch (flexDirection) {
+            case ROW:
+            case ROW_REVERSE:
+                return ROW;
+            default:
+                return COLUMN;
+        }
+    }
+
+    abstract void measure(FlexItem item, MeasureRequest mainAxisMeasureRequest,
+                          int occupiedMainSize, MeasureRequest crossAxisMeasureRequest,
+                          int occupiedCrossSize);
+
+    abstract void fixedMainSizeMeasure(FlexItem item, int mainSize,
+                                       MeasureRequest crossAxisMeasureRequest,
+                                       int occupiedCrossSize);
+
+    abstract void fixedSizeMeasure(FlexItem item, int mainSize, int crossSize);
+
+    abstract boolean requireCrossSizeMatchParent(FlexItem item);
+
+    abstract int getMeasuredMainSize(FlexItem item);
+
+    abstract int getMeasuredCrossSize(FlexItem item);
+
+    abstract void layout(FlexItem item, int mainStart, int mainEnd, int crossStart, int crossEnd,
+                         int leftPadding, int topPadding);
+
+    abstract int getMainPaddings(Paddings paddings);
+
+    abstract int getCrossPaddings(Paddings paddings);
+
+    private static final class Row extends FlexAxis {
+        Row() {
+            super(true);
+        }
+
+        @Override
+        void measure(FlexItem item, MeasureRequest mainAxisMeasureRequest, int occupiedMainSize,
+                     MeasureRequest crossAxisMeasureRequest, int occupiedCrossSize) {
+            item.measure(mainAxisMeasureRequest, occupiedMainSize, crossAxisMeasureRequest,
+                    occupiedCrossSize, true);
+        }
+
+        @Override
+        void fixedMainSizeMeasure(FlexItem item, int mainSize,
+                                  MeasureRequest crossAxisMeasureRequest, int occupiedCrossSize) {
+            item.fixedMainSizeMeasure(mainSize, crossAxisMeasureRequest, occupiedCrossSize, true);
+        }
+
+        @Override
+        void fixedSizeMeasure(FlexItem item, int mainSize, int crossSize) {
+            item.fixedSizeMeasure(mainSize, crossSize, true);
+        }
+
+        @Override
+        boolean requireCrossSizeMatchParent(FlexItem item) {
+            return item.requireCrossSizeMatchParent(true);
+        }
+
+        @Override
+        int getMeasuredMainSize(FlexItem item) {
+            return item.getMeasuredMainSize(true);
+        }
+
+        @Override
+        int getMeasuredCrossSize(FlexItem item) {
+            return item.getMeasuredCrossSize(true);
+        }
+
+        @Override
+        void layout(FlexItem item, int mainStart, int mainEnd, int crossStart, int crossEnd,
+                    int leftPadding, int topPadding) {
+            item.layout(mainStart, mainEnd, crossStart, crossEnd, true, leftPadding, topPadding);
+        }
+
+        @Override
+        int getMainPaddings(Paddings paddings) {
+            return paddings.getMainPaddings(true);
+        }
+
+        @Override
+        int getCrossPaddings(Paddings paddings) {
+            return paddings.getCrossPaddings(true);
+        }
+    }
+
+    private static final class Column extends FlexAxis {
+        Column() {
+            super(false);
+        }
+
+        @Override
+        void measure(FlexItem item, MeasureRequest mainAxisMeasureRequest, int occupiedMainSize,
+                     MeasureRequest crossAxisMeasureRequest, int occupiedCrossSize) {
+            item.measure(mainAxisMeasureRequest, occupiedMainSize, crossAxisMeasureRequest,
+                    occupiedCrossSize, false);
+        }
+
+        @Override
+        void fixedMainSizeMeasure(FlexItem item, int mainSize,
+                                  MeasureRequest crossAxisMeasureRequest, int occupiedCrossSize) {
+            item.fixedMainSizeMeasure(mainSize, crossAxisMeasureRequest, occupiedCrossSize, false);
+        }
+
+        @Override
+        void fixedSizeMeasure(FlexItem item, int mainSize, int crossSize) {
+            item.fixedSizeMeasure(mainSize, crossSize, false);
+        }
+
+        @Override
+        boolean requireCrossSizeMatchParent(FlexItem item) {
+            return item.requireCrossSizeMatchParent(false);
+        }
+
+        @Override
+        int getMeasuredMainSize(FlexItem item) {
+            return item.getMeasuredMainSize(false);
+        }
+
+        @Override
+        int getMeasuredCrossSize(FlexItem item) {
+            return item.getMeasuredCrossSize(false);
+        }
+
+        @Override
+        void layout(FlexItem item, int mainStart, int mainEnd, int crossStart, int crossEnd,
+                    int leftPadding, int topPadding) {
+            item.layout(mainStart, mainEnd, crossStart, crossEnd, false, leftPadding, topPadding);
+        }
+
+        @Override
+        int getMainPaddings(Paddings paddings) {
+            return paddings.getMainPaddings(false);
+        }
+
+        @Override
+        int getCrossPaddings(Paddings paddings) {
+            return paddings.getCrossPaddings(false);
+        }
+    }
+}
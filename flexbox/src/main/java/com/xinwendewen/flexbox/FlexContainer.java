@@ -13,10 +13,24 @@ public interface FlexContainer {
 
     void setAlignItems(AlignItems alignItems);
 
+    void setFlexStyle(FlexStyle flexStyle);
+
+    FlexStyle getFlexStyle();
+
     void setPaddings(Paddings paddings);
 
+    void setFixedPointArithmetic(boolean enabled);
+
+    boolean isFixedPointArithmetic();
+
     <T extends FlexItem> void setFlexItems(List<T> flexItems, int count);
 
+    void addFlexItem(int index, FlexItem flexItem);
+
+    void removeFlexItemAt(int index);
+
+    int getStructureVersion();
+
     void measure(MeasureRequest mainAxisMeasureRequest, MeasureRequest crossAxisMeasureRequest);
 
     void layout(int left, int top, int right, int bottom, boolean isRtl);
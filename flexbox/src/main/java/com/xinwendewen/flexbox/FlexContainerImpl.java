@@ -2,17 +2,37 @@ package com.xinwendewen.flexbox;
 
 import static com.xinwendewen.flexbox.AlignSelf.AUTO;
 import static com.xinwendewen.flexbox.AlignSelf.STRETCH;
-import static com.xinwendewen.flexbox.FlexWrap.WRAP;
-import static com.xinwendewen.flexbox.FlexWrap.WRAP_REVERSE;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 public class FlexContainerImpl implements FlexContainer {
+    static final int CANCELLATION_CHECK_INTERVAL = 16;
+    // the wrap size of an item that never wraps
+    private static final int NEVER_WRAPS = Integer.MIN_VALUE;
+
     private final List<FlexItem> items = new ArrayList<>();
+    private final FlexItemParams itemParams = new FlexItemParams();
     private final FlexLines flexLines = new FlexLines();
-    private final ContainerFlexProperties flexProperties = new ContainerFlexProperties();
+    private final MeasureProgress measureProgress = new MeasureProgress();
+    private FlexStyle flexStyle = FlexStyle.DEFAULT;
     private final Paddings paddings = new Paddings();
+    private boolean fixedPointArithmetic;
+    private FlexAxis axis = FlexAxis.ROW;
+    private LayoutResultBuffer resultBuffer;
+    private CancellationToken cancellationToken;
+    private LineBreakCache lineBreakCache;
+    private int structureVersion;
+    // what the last finished measure pass was for, null while none is
+    private FlexStyle measuredFlexStyle;
+    private int measuredStructureVersion;
+    private int measuredMainPaddings;
+    private int measuredCrossPaddings;
+    private boolean measuredFixedPointArithmetic;
+    private long measuredMainAxisConstraint;
+    private long measuredCrossAxisConstraint;
 
     @Override
     public List<FlexLine> getFlexLines() {
@@ -21,27 +41,37 @@ public class FlexContainerImpl implements FlexContainer {
 
     @Override
     public void setFlexDirection(FlexDirection flexDirection) {
-        flexProperties.flexDirection = flexDirection;
+        flexStyle = flexStyle.withFlexDirection(flexDirection);
     }
 
     @Override
     public void setFlexWrap(FlexWrap flexWrap) {
-        flexProperties.flexWrap = flexWrap;
+        flexStyle = flexStyle.withFlexWrap(flexWrap);
     }
 
     @Override
     public void setJustifyContent(JustifyContent justifyContent) {
-        flexProperties.justifyContent = justifyContent;
+        flexStyle = flexStyle.withJustifyContent(justifyContent);
     }
 
     @Override
     public void setAlignContent(AlignContent alignContent) {
-        flexProperties.alignContent = alignContent;
+        flexStyle = flexStyle.withAlignContent(alignContent);
     }
 
     @Override
     public void setAlignItems(AlignItems alignItems) {
-        flexProperties.alignItems = alignItems;
+        flexStyle = flexStyle.withAlignItems(alignItems);
+    }
+
+    @Override
+    public void setFlexStyle(FlexStyle flexStyle) {
+        this.flexStyle = flexStyle;
+    }
+
+    @Override
+    public FlexStyle getFlexStyle() {
+        return flexStyle;
     }
 
     @Override
@@ -49,59 +79,397 @@ public class FlexContainerImpl implements FlexContainer {
         this.paddings.update(paddings);
     }
 
+    @Override
+    public void setFixedPointArithmetic(boolean enabled) {
+        fixedPointArithmetic = enabled;
+    }
+
+    @Override
+    public boolean isFixedPointArithmetic() {
+        return fixedPointArithmetic;
+    }
+
+    /**
+     * Sets the buffer every following layout pass writes its item rects and line metrics to, or
+     * {@code null} to stop writing them.
+     */
+    public void setLayoutResultBuffer(LayoutResultBuffer resultBuffer) {
+        this.resultBuffer = resultBuffer;
+    }
+
+    /**
+     * Sets the token the following passes check while they measure and lay out the items, or
+     * {@code null} to never stop them.
+     */
+    public void setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * Sets the cache the following measure passes restore their flex lines from when the main
+     * size is in a range of a previous pass, or {@code null} to always fill the flex lines.
+     */
+    public void setLineBreakCache(LineBreakCache lineBreakCache) {
+        this.lineBreakCache = lineBreakCache;
+    }
+
+    public LineBreakCache getLineBreakCache() {
+        return lineBreakCache;
+    }
+
+    /**
+     * Whether the flex lines of the last measure pass still hold for the requests, so that the
+     * container can be laid out again without measuring the items: the pass finished for the
+     * same requests, items, paddings and arithmetic, and the style only changed in
+     * {@link FlexStyle#LAYOUT_ONLY_CHANGES}. Changes of the content of the items are not tracked.
+     */
+    public boolean isMeasureValidFor(MeasureRequest mainAxisMeasureRequest,
+                                     MeasureRequest crossAxisMeasureRequest) {
+        return measuredFlexStyle != null
+                && (measuredFlexStyle.diff(flexStyle) & ~FlexStyle.LAYOUT_ONLY_CHANGES) == 0
+                && measuredStructureVersion == structureVersion
+                && measuredMainPaddings == getMainPaddings()
+                && measuredCrossPaddings == getCrossPaddings()
+                && measuredFixedPointArithmetic == fixedPointArithmetic
+                && measuredMainAxisConstraint == MeasureConstraint.packOf(mainAxisMeasureRequest)
+                && measuredCrossAxisConstraint == MeasureConstraint.packOf(crossAxisMeasureRequest);
+    }
+
+    private void onMeasured(MeasureRequest mainAxisMeasureRequest,
+                            MeasureRequest crossAxisMeasureRequest) {
+        measuredFlexStyle = flexStyle;
+        measuredStructureVersion = structureVersion;
+        measuredMainPaddings = getMainPaddings();
+        measuredCrossPaddings = getCrossPaddings();
+        measuredFixedPointArithmetic = fixedPointArithmetic;
+        measuredMainAxisConstraint = MeasureConstraint.packOf(mainAxisMeasureRequest);
+        measuredCrossAxisConstraint = MeasureConstraint.packOf(crossAxisMeasureRequest);
+    }
+
+    int getMainPaddings() {
+        return flexStyle.axis.getMainPaddings(paddings);
+    }
+
+    int getCrossPaddings() {
+        return flexStyle.axis.getCrossPaddings(paddings);
+    }
+
+    private void checkCancelled(int iteration) {
+        if (cancellationToken != null && iteration % CANCELLATION_CHECK_INTERVAL == 0) {
+            cancellationToken.throwIfCancelled();
+        }
+    }
+
     @Override
     public <T extends FlexItem> void setFlexItems(List<T> flexItems, int count) {
         items.clear();
         for (int i = 0; i < count; i++) {
             items.add(flexItems.get(i));
         }
+        structureVersion++;
+    }
+
+    @Override
+    public void addFlexItem(int index, FlexItem flexItem) {
+        items.add(index, flexItem);
+        structureVersion++;
+    }
+
+    @Override
+    public void removeFlexItemAt(int index) {
+        items.remove(index);
+        structureVersion++;
+    }
+
+    @Override
+    public int getStructureVersion() {
+        return structureVersion;
     }
 
     @Override
     public void measure(MeasureRequest mainAxisMeasureRequest, MeasureRequest crossAxisMeasureRequest) {
+        startMeasure();
+        continueMeasure(mainAxisMeasureRequest, crossAxisMeasureRequest, MeasureTask.NO_DEADLINE);
+    }
+
+    void startMeasure() {
+        measuredFlexStyle = null;
         flexLines.reset();
-        flexLines.flexLineList = fillFlexLines(mainAxisMeasureRequest, crossAxisMeasureRequest);
-        int mainSize = determineMainSize(mainAxisMeasureRequest);
-        calculateFlexibleLength(mainSize, crossAxisMeasureRequest);
+        axis = flexStyle.axis;
+        itemParams.snapshot(items, axis);
+        measureProgress.start(new FlexLine(itemParams, 0), axis.getCrossPaddings(paddings));
+    }
+
+    /**
+     * Continues the measure pass started by {@link #startMeasure()} until it is done or the
+     * deadline passes, and returns whether it is done. Every call makes progress before it checks
+     * the deadline.
+     */
+    @SuppressWarnings("fallthrough") // each phase continues with the next one
+    boolean continueMeasure(MeasureRequest mainAxisMeasureRequest,
+                            MeasureRequest crossAxisMeasureRequest, long deadlineNanos) {
+        MeasureProgress progress = measureProgress;
+        boolean hasProgressed = false;
+        switch (progress.phase) {
+            case MeasureProgress.FILL_FLEX_LINES:
+                if (!restoreFlexLines(mainAxisMeasureRequest, crossAxisMeasureRequest, progress)) {
+                    if (!fillFlexLines(mainAxisMeasureRequest, crossAxisMeasureRequest, progress,
+                            deadlineNanos)) {
+                        return false;
+                    }
+                    putLineBreaks(mainAxisMeasureRequest, crossAxisMeasureRequest, progress);
+                }
+                flexLines.flexLineList = progress.flexLines;
+                progress.mainSize = determineMainSize(mainAxisMeasureRequest);
+                hasProgressed = true;
+                progress.startPhase(MeasureProgress.RESOLVE_FLEXIBLE_LENGTHS);
+                // fall through
+            case MeasureProgress.RESOLVE_FLEXIBLE_LENGTHS:
+                while (progress.lineIndex < flexLines.size()) {
+                    if (hasProgressed && isPastDeadline(deadlineNanos)) {
+                        return false;
+                    }
+                    hasProgressed = true;
+                    FlexLine flexLine = flexLines.flexLineList.get(progress.lineIndex++);
+                    calculateFlexibleLengthIfNeeded(flexLine, progress.mainSize,
+                            crossAxisMeasureRequest);
+                    alignBaselines(flexLine);
+                }
+                resolveCrossSize(crossAxisMeasureRequest);
+                progress.startPhase(MeasureProgress.STRETCH_ITEMS);
+                // fall through
+            case MeasureProgress.STRETCH_ITEMS:
+                while (progress.lineIndex < flexLines.size()) {
+                    if (hasProgressed && isPastDeadline(deadlineNanos)) {
+                        return false;
+                    }
+                    hasProgressed = true;
+                    stretchItems(flexLines.flexLineList.get(progress.lineIndex++));
+                }
+                progress.finish();
+                onMeasured(mainAxisMeasureRequest, crossAxisMeasureRequest);
+                // fall through
+            default:
+                return true;
+        }
+    }
+
+    private static boolean isPastDeadline(long deadlineNanos) {
+        return deadlineNanos != MeasureTask.NO_DEADLINE && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    private void resolveCrossSize(MeasureRequest crossAxisMeasureRequest) {
         if (crossAxisMeasureRequest.isTight()) {
             if (flexLines.isSingleLine()) {
                 flexLines.flexLineList.get(0).crossSize =
-                        crossAxisMeasureRequest.getExpectedSize() - paddings.getCrossPaddings(isMainAxisHorizontal());
+                        crossAxisMeasureRequest.getExpectedSize() - axis.getCrossPaddings(paddings);
             } else {
                 int determinedCrossSize = crossAxisMeasureRequest.getExpectedSize();
-                int containerCrossAxisPadding = paddings.getCrossPaddings(isMainAxisHorizontal());
-                crossAlignment(determinedCrossSize - containerCrossAxisPadding, flexLines);
+                int containerCrossAxisPadding = axis.getCrossPaddings(paddings);
+                int crossGaps = flexStyle.getCrossGaps(flexLines.flexLineList);
+                crossAlignment(determinedCrossSize - containerCrossAxisPadding - crossGaps,
+                        flexLines);
             }
         }
-        stretchItems();
     }
 
-    void stretchItems() {
-        for (FlexLine flexLine : flexLines.flexLineList) {
-            for (FlexItem item : flexLine.items) {
-                if (needStretch(item, flexProperties.alignItems, flexLine.crossSize,
-                        isMainAxisHorizontal())) {
-                    stretchItem(item, flexLine, isMainAxisHorizontal());
+    /**
+     * Measures and lays out the items of the iterator with the style and paddings of this
+     * container, handing every finished flex line to the sink, and returns the cross size of the
+     * container. The items are not kept: afterwards the container has no items and
+     * {@link #getFlexLines()} is empty, so the lines are only available to the sink.
+     *
+     * <p>When the main axis request is tight and the cross axis request is not, each line is
+     * finished as soon as the next item wraps, so only one line of items is held at a time.
+     * Otherwise all the items are collected first and go through {@link #measure} and
+     * {@link #layout}. Either way a line is only valid during its {@link FlexLineSink} call.
+     */
+    public int measureAndLayout(Iterator<? extends FlexItem> flexItems,
+                                MeasureRequest mainAxisMeasureRequest,
+                                MeasureRequest crossAxisMeasureRequest, boolean isRtl,
+                                FlexLineSink sink) {
+        items.clear();
+        structureVersion++;
+        measuredFlexStyle = null;
+        flexLines.reset();
+        axis = flexStyle.axis;
+        if (!mainAxisMeasureRequest.isTight() || crossAxisMeasureRequest.isTight()
+                || flexStyle.isCrossAxisReversed(isRtl)) {
+            try {
+                return measureAndLayoutAll(flexItems, mainAxisMeasureRequest,
+                        crossAxisMeasureRequest, isRtl, sink);
+            } finally {
+                dropStreamedItems();
+            }
+        }
+        if (resultBuffer != null) {
+            resultBuffer.start(LayoutResultBuffer.ITEM_COUNT_UNKNOWN);
+        }
+        boolean isLaidOut = false;
+        int crossSize;
+        try {
+            crossSize = streamFlexLines(flexItems, mainAxisMeasureRequest,
+                    crossAxisMeasureRequest, isRtl, sink);
+            isLaidOut = true;
+        } finally {
+            finishResults(isLaidOut);
+            dropStreamedItems();
+        }
+        return crossSize;
+    }
+
+    private int streamFlexLines(Iterator<? extends FlexItem> flexItems,
+                                MeasureRequest mainAxisMeasureRequest,
+                                MeasureRequest crossAxisMeasureRequest, boolean isRtl,
+                                FlexLineSink sink) {
+        int mainSize = mainAxisMeasureRequest.getExpectedSize();
+        int containerInnerMainSize = mainSize - axis.getMainPaddings(paddings);
+        boolean isMainAxisReversed = flexStyle.isMainAxisReversed(isRtl);
+        int occupiedMainSize = axis.getMainPaddings(paddings);
+        int occupiedContainerCrossSize = axis.getCrossPaddings(paddings);
+        int crossAxisAnchor = 0;
+        boolean isFirstFlexLine = true;
+        int finishedFlexLineCount = 0;
+        int index = 0;
+        FlexLine currentFlexLine = new FlexLine(itemParams, 0);
+        int itemCount = 0;
+        while (flexItems.hasNext()) {
+            checkCancelled(itemCount++);
+            FlexItem item = flexItems.next();
+            itemParams.ensureCapacity(index + 1);
+            itemParams.set(index, item, axis);
+            axis.measure(item, mainAxisMeasureRequest, occupiedMainSize, crossAxisMeasureRequest,
+                    occupiedContainerCrossSize);
+            item.clampByMinMaxDimensions();
+            if (isWrapNeeded(mainAxisMeasureRequest, flexStyle, finishedFlexLineCount,
+                    currentFlexLine, item, index)) {
+                currentFlexLine.crossSizeSumAbove = occupiedContainerCrossSize;
+                crossAxisAnchor = finishFlexLine(currentFlexLine, mainSize,
+                        containerInnerMainSize, crossAxisMeasureRequest, crossAxisAnchor,
+                        isFirstFlexLine, isMainAxisReversed, sink);
+                isFirstFlexLine &= currentFlexLine.getItemCount() == 0;
+                finishedFlexLineCount++;
+                occupiedContainerCrossSize += currentFlexLine.crossSize
+                        + flexStyle.getCrossGapAfter(currentFlexLine);
+                // the item starts the next flex line, which reuses the item params from 0
+                index = 0;
+                itemParams.set(index, item, axis);
+                if (axis.requireCrossSizeMatchParent(item)) {
+                    axis.measure(item, mainAxisMeasureRequest, occupiedMainSize,
+                            crossAxisMeasureRequest, occupiedContainerCrossSize);
                 }
+                currentFlexLine = new FlexLine(itemParams, 0);
+            }
+            if (currentFlexLine.getItemCount() > 0) {
+                currentFlexLine.mainSize += flexStyle.mainGap;
+            }
+            currentFlexLine.addItem(item, axis);
+            index++;
+        }
+        crossAxisAnchor = finishFlexLine(currentFlexLine, mainSize, containerInnerMainSize,
+                crossAxisMeasureRequest, crossAxisAnchor, isFirstFlexLine, isMainAxisReversed,
+                sink);
+        return crossAxisAnchor + axis.getCrossPaddings(paddings);
+    }
+
+    private int finishFlexLine(FlexLine flexLine, int mainSize, int containerInnerMainSize,
+                               MeasureRequest crossAxisMeasureRequest, int crossAxisAnchor,
+                               boolean isFirstFlexLine, boolean isMainAxisReversed,
+                               FlexLineSink sink) {
+        calculateFlexibleLengthIfNeeded(flexLine, mainSize, crossAxisMeasureRequest);
+        alignBaselines(flexLine);
+        stretchItems(flexLine);
+        if (flexLine.getItemCount() > 0) {
+            if (!isFirstFlexLine) {
+                crossAxisAnchor += flexStyle.crossGap;
+            }
+            layoutFlexLine(flexLine, containerInnerMainSize, crossAxisAnchor, isMainAxisReversed,
+                    false, paddings);
+            sink.onFlexLine(flexLine);
+        }
+        return crossAxisAnchor + flexLine.crossSize;
+    }
+
+    private int measureAndLayoutAll(Iterator<? extends FlexItem> flexItems,
+                                    MeasureRequest mainAxisMeasureRequest,
+                                    MeasureRequest crossAxisMeasureRequest, boolean isRtl,
+                                    FlexLineSink sink) {
+        while (flexItems.hasNext()) {
+            items.add(flexItems.next());
+        }
+        measure(mainAxisMeasureRequest, crossAxisMeasureRequest);
+        int mainSize = mainAxisMeasureRequest.isTight() ? mainAxisMeasureRequest.getExpectedSize()
+                : determineMainSize(mainAxisMeasureRequest) + axis.getMainPaddings(paddings);
+        int crossSize;
+        if (crossAxisMeasureRequest.isTight()) {
+            crossSize = crossAxisMeasureRequest.getExpectedSize();
+        } else {
+            crossSize = flexLines.getCrossSize() + axis.getCrossPaddings(paddings)
+                    + flexStyle.getCrossGaps(flexLines.flexLineList);
+        }
+        if (axis.isHorizontal) {
+            layout(0, 0, mainSize, crossSize, isRtl);
+        } else {
+            layout(0, 0, crossSize, mainSize, isRtl);
+        }
+        for (FlexLine flexLine : flexLines.flexLineList) {
+            if (flexLine.getItemCount() > 0) {
+                sink.onFlexLine(flexLine);
+            }
+        }
+        return crossSize;
+    }
+
+    private void dropStreamedItems() {
+        items.clear();
+        structureVersion++;
+        flexLines.flexLineList = Collections.emptyList();
+    }
+
+    private void alignBaselines(FlexLine flexLine) {
+        // baseline alignment only applies when the cross axis is vertical
+        if (axis != FlexAxis.ROW) {
+            return;
+        }
+        boolean isCrossAxisReversed = flexStyle.isCrossAxisReversed(false);
+        for (int i = 0; i < flexLine.getItemCount(); i++) {
+            AlignSelf alignSelf = itemParams.alignSelf[flexLine.getItemIndex(i)];
+            if (resolveCrossAlignment(alignSelf, flexStyle.alignItems) == AlignItems.BASELINE) {
+                flexLine.addBaselineItem(i, isCrossAxisReversed);
             }
         }
     }
 
-    private void stretchItem(FlexItem item, FlexLine flexLine, boolean isMainAxisHorizontal) {
-        int newCrossSize = flexLine.crossSize - item.getCrossAxisMargin(isMainAxisHorizontal);
-        newCrossSize = item.getClampedCrossSize(newCrossSize, isMainAxisHorizontal);
-        item.fixedSizeMeasure(item.getMeasuredMainSize(isMainAxisHorizontal), newCrossSize, isMainAxisHorizontal);
+    private void stretchItems(FlexLine flexLine) {
+        for (int i = 0; i < flexLine.getItemCount(); i++) {
+            FlexItem item = flexLine.getItemAt(i);
+            int index = flexLine.getItemIndex(i);
+            if (needStretch(item, index, flexStyle.alignItems, flexLine.crossSize)) {
+                stretchItem(item, index, flexLine);
+            }
+        }
+    }
+
+    private void stretchItem(FlexItem item, int index, FlexLine flexLine) {
+        int newCrossSize = flexLine.crossSize - itemParams.getCrossMargin(index);
+        newCrossSize = itemParams.getClampedCrossSize(index, newCrossSize);
+        axis.fixedSizeMeasure(item, axis.getMeasuredMainSize(item), newCrossSize);
     }
 
-    private boolean needStretch(FlexItem item, AlignItems alignItems, int flexLineCrossSize,
-                                boolean isMainAxisHorizontal) {
-        if (item.getOuterCrossSize(isMainAxisHorizontal) >= flexLineCrossSize) {
+    private boolean needStretch(FlexItem item, int index, AlignItems alignItems,
+                                int flexLineCrossSize) {
+        if (itemParams.getOuterCrossSize(item, index, axis) >= flexLineCrossSize) {
             return false;
         }
-        if (item.getAlignSelf() == STRETCH) {
+        AlignSelf alignSelf = itemParams.alignSelf[index];
+        if (alignSelf == STRETCH) {
             return true;
         }
-        if (item.getAlignSelf() == AUTO && alignItems == AlignItems.STRETCH) {
+        if (alignSelf == AUTO && alignItems == AlignItems.STRETCH) {
             return true;
         }
         return false;
@@ -110,7 +478,7 @@ public class FlexContainerImpl implements FlexContainer {
     public void crossAlignment(int containerInnerCrossSize, FlexLines mFlexLinesResult) {
         int flexLinesCrossSize = mFlexLinesResult.getCrossSize();
         int freeSpace = containerInnerCrossSize - flexLinesCrossSize;
-        switch (flexProperties.alignContent) {
+        switch (flexStyle.alignContent) {
             case FLEX_START:
                 // do nothing
                 break;
@@ -137,7 +505,11 @@ public class FlexContainerImpl implements FlexContainer {
     }
 
     private void alignContentSpaceBetween(FlexLines mFlexLinesResult, int freeSpace) {
-        if (freeSpace > 0) {
+        if (freeSpace > 0 && fixedPointArithmetic) {
+            FixedPointDistributor distributor = new FixedPointDistributor();
+            distributor.reset(freeSpace, mFlexLinesResult.size() - 1);
+            mFlexLinesResult.insertBetweenFlexLines(distributor);
+        } else if (freeSpace > 0) {
             float unitSpace = (float) freeSpace / (mFlexLinesResult.size() - 1);
             mFlexLinesResult.insertBetweenFlexLines(unitSpace);
         }
@@ -159,7 +531,11 @@ public class FlexContainerImpl implements FlexContainer {
     }
 
     private void alignContentSpaceAround(FlexLines mFlexLinesResult, int freeSpace) {
-        if (freeSpace > 0) {
+        if (freeSpace > 0 && fixedPointArithmetic) {
+            FixedPointDistributor distributor = new FixedPointDistributor();
+            distributor.reset(freeSpace, mFlexLinesResult.size() * 2);
+            mFlexLinesResult.insertAround(distributor);
+        } else if (freeSpace > 0) {
             float unitSpace = (float) freeSpace / (mFlexLinesResult.size() * 2);
             mFlexLinesResult.insertAround(unitSpace);
         } else {
@@ -177,113 +553,252 @@ public class FlexContainerImpl implements FlexContainer {
         }
     }
 
-    void calculateFlexibleLength(int mainSize, MeasureRequest crossAxisMeasureRequest) {
-        for (FlexLine flexLine : flexLines.flexLineList) {
-            if (flexLine.hasFlexibleItem &&
-                    (flexLine.mainSize != mainSize)) {
-                calculateFlexibleLength(flexLine, mainSize, crossAxisMeasureRequest);
-            }
+    private void calculateFlexibleLengthIfNeeded(FlexLine flexLine, int mainSize,
+                                                 MeasureRequest crossAxisMeasureRequest) {
+        if (flexLine.hasFlexibleItem &&
+                (flexLine.mainSize != mainSize)) {
+            calculateFlexibleLength(flexLine, mainSize, crossAxisMeasureRequest);
         }
     }
 
     private void calculateFlexibleLength(FlexLine flexLine, int containerMainSize,
                                          MeasureRequest crossAxisMeasureRequest) {
         RoundingErrorAccumulator errorAccumulator = new RoundingErrorAccumulator();
-        boolean isMainAxisHorizontal = isMainAxisHorizontal();
+        FixedPointDistributor distributor = new FixedPointDistributor();
         while (!flexLine.isFrozen() && flexLine.mainSize != containerMainSize) {
             int available = containerMainSize - flexLine.mainSize;
-            float spaceUnit = available / (available > 0 ? flexLine.totalFlexGrow : flexLine.totalFlexShrink);
+            boolean isGrowing = available > 0;
+            float spaceUnit = available / (isGrowing ? flexLine.totalFlexGrow : flexLine.totalFlexShrink);
+            if (fixedPointArithmetic) {
+                distributor.reset(available, flexLine.getFixedPointFlexFactorSum(isGrowing));
+            }
             boolean hasViolation = false;
             for (int i = 0; i < flexLine.getItemCount(); i++) {
+                checkCancelled(i);
                 FlexItem item = flexLine.getItemAt(i);
-                if (available < 0 && flexLine.isItemShrinkFrozen(i)) {
+                int index = flexLine.getItemIndex(i);
+                if (!isGrowing && flexLine.isItemShrinkFrozen(i)) {
                     continue;
                 }
-                if (available > 0 && flexLine.isItemGrowFrozen(i)) {
+                if (isGrowing && flexLine.isItemGrowFrozen(i)) {
                     continue;
                 }
-                flexLine.mainSize -= item.getOuterMainSize(isMainAxisHorizontal);
-                int measuredMainSize =
-                        item.getMeasuredMainSize(isMainAxisHorizontal);
-                float newMainSize = measuredMainSize + spaceUnit * (available > 0 ?
-                        item.getFlexGrow() : item.getFlexShrink());
-                if (newMainSize < item.getMinMainSize(isMainAxisHorizontal)) {
+                flexLine.mainSize -= itemParams.getOuterMainSize(item, index, axis);
+                int measuredMainSize = axis.getMeasuredMainSize(item);
+                float flexFactor = isGrowing ?
+                        itemParams.flexGrow[index] : itemParams.flexShrink[index];
+                // a double holds both the float and the integral size exactly
+                double newMainSize = fixedPointArithmetic ? (double) measuredMainSize
+                        + distributor.next(FixedPointDistributor.toFixed(flexFactor))
+                        : measuredMainSize + spaceUnit * flexFactor;
+                if (newMainSize < itemParams.minMainSize[index]) {
                     hasViolation = true;
-                    newMainSize = item.getMinMainSize(isMainAxisHorizontal);
+                    newMainSize = itemParams.minMainSize[index];
                     flexLine.freezeItemAt(i);
-                } else if (newMainSize > item.getMaxMainSize(isMainAxisHorizontal)) {
+                } else if (newMainSize > itemParams.maxMainSize[index]) {
                     hasViolation = true;
-                    newMainSize = item.getMaxMainSize(isMainAxisHorizontal);
+                    newMainSize = itemParams.maxMainSize[index];
                     flexLine.freezeItemAt(i);
                 }
-                int roundedNewMainSize = errorAccumulator.round(newMainSize);
-                roundedNewMainSize += errorAccumulator.compensate();
-                item.fixedMainSizeMeasure(roundedNewMainSize, crossAxisMeasureRequest,
-                        flexLine.crossSizeSumAbove, isMainAxisHorizontal);
+                int roundedNewMainSize = fixedPointArithmetic ? (int) newMainSize
+                        : errorAccumulator.roundAndCompensate(newMainSize);
+                axis.fixedMainSizeMeasure(item, roundedNewMainSize, crossAxisMeasureRequest,
+                        flexLine.crossSizeSumAbove);
                 item.clampByMinMaxDimensions();
-                flexLine.mainSize += item.getOuterMainSize(isMainAxisHorizontal);
+                flexLine.mainSize += itemParams.getOuterMainSize(item, index, axis);
             }
             if (!hasViolation) {
                 break;
             }
         }
-        flexLine.refreshCrossSize(isMainAxisHorizontal);
+        flexLine.refreshCrossSize(axis.isHorizontal);
     }
 
-    List<FlexLine> fillFlexLines(MeasureRequest mainAxisMeasureRequest,
-                                 MeasureRequest crossAxisMeasureRequest) {
-        boolean isMainAxisHorizontal = isMainAxisHorizontal();
-        // prepare flex lines
-        List<FlexLine> flexLines = new ArrayList<>();
-        // prepare current flex line
-        FlexLine currentFlexLine = new FlexLine();
+    private boolean restoreFlexLines(MeasureRequest mainAxisMeasureRequest,
+                                     MeasureRequest crossAxisMeasureRequest,
+                                     MeasureProgress progress) {
+        // only a pass that has not started filling the flex lines yet
+        if (lineBreakCache == null || mainAxisMeasureRequest.isUnconstrained()
+                || progress.itemIndex > 0) {
+            return false;
+        }
+        LineBreaks lineBreaks = lineBreakCache.get(this, mainAxisMeasureRequest,
+                crossAxisMeasureRequest);
+        if (lineBreaks == null || lineBreaks.getItemCount() != items.size()) {
+            return false;
+        }
+        for (int line = 0; line < lineBreaks.getLineCount(); line++) {
+            FlexLine flexLine = new FlexLine(itemParams, lineBreaks.firstItemIndexes[line]);
+            for (int i = flexLine.firstItemIndex; i < lineBreaks.getEndItemIndex(line); i++) {
+                checkCancelled(i);
+                FlexItem item = items.get(i);
+                // only the items resized by the flexible lengths or stretched are measured again
+                int mainSize = lineBreaks.itemMainSizes[i];
+                int crossSize = lineBreaks.itemCrossSizes[i];
+                if (axis.getMeasuredMainSize(item) != mainSize
+                        || axis.getMeasuredCrossSize(item) != crossSize) {
+                    axis.fixedSizeMeasure(item, mainSize, crossSize);
+                }
+                if (flexLine.getItemCount() > 0) {
+                    flexLine.mainSize += flexStyle.mainGap;
+                }
+                flexLine.addItem(item, axis);
+            }
+            flexLine.crossSizeSumAbove = lineBreaks.crossSizesAbove[line];
+            progress.flexLines.add(flexLine);
+        }
+        return true;
+    }
 
-        int occupiedContainerCrossSize = paddings.getCrossPaddings(isMainAxisHorizontal);
-        for (FlexItem item : items) {
+    private void putLineBreaks(MeasureRequest mainAxisMeasureRequest,
+                               MeasureRequest crossAxisMeasureRequest, MeasureProgress progress) {
+        if (lineBreakCache == null || mainAxisMeasureRequest.isUnconstrained()) {
+            return;
+        }
+        lineBreakCache.put(this, mainAxisMeasureRequest, crossAxisMeasureRequest,
+                new LineBreaks(progress.minMainSize, progress.maxMainSize, progress.flexLines,
+                        items, axis));
+    }
+
+    /**
+     * Narrows the main sizes the line breaks of the pass hold for to the ones the item is
+     * measured to the same size for.
+     */
+    private void narrowMainSizeRange(FlexItem item, int index,
+                                     MeasureRequest mainAxisMeasureRequest,
+                                     MeasureProgress progress) {
+        int mainSize = mainAxisMeasureRequest.getExpectedSize();
+        int dependency = BaseFlexItem.MAIN_SIZE_RELATIVE;
+        if (item instanceof BaseFlexItem) {
+            dependency = ((BaseFlexItem) item).getMainSizeDependency(mainAxisMeasureRequest,
+                    axis.isHorizontal);
+        }
+        if (dependency == BaseFlexItem.MAIN_SIZE_FIXED) {
+            return;
+        }
+        if (dependency == BaseFlexItem.MAIN_SIZE_AT_MOST_AVAILABLE) {
+            int occupiedMainSize = axis.getMainPaddings(paddings) + itemParams.getMainMargin(index);
+            int measuredMainSize = axis.getMeasuredMainSize(item);
+            // an item clamped by its max size may be measured to less with less available
+            if (measuredMainSize < Math.max(0, mainSize - occupiedMainSize)
+                    && measuredMainSize < itemParams.maxMainSize[index]) {
+                progress.minMainSize = Math.max(progress.minMainSize,
+                        measuredMainSize + occupiedMainSize + 1);
+                return;
+            }
+        }
+        progress.holdOnlyFor(mainSize);
+    }
+
+    private boolean fillFlexLines(MeasureRequest mainAxisMeasureRequest,
+                                  MeasureRequest crossAxisMeasureRequest,
+                                  MeasureProgress progress, long deadlineNanos) {
+        // resume with the flex lines filled so far
+        List<FlexLine> flexLines = progress.flexLines;
+        FlexLine currentFlexLine = progress.currentFlexLine;
+        int occupiedContainerCrossSize = progress.occupiedContainerCrossSize;
+        int firstItemIndex = progress.itemIndex;
+        for (int i = firstItemIndex; i < items.size(); i++) {
+            if (i > firstItemIndex && isPastDeadline(deadlineNanos)) {
+                progress.itemIndex = i;
+                progress.currentFlexLine = currentFlexLine;
+                progress.occupiedContainerCrossSize = occupiedContainerCrossSize;
+                return false;
+            }
+            checkCancelled(i);
+            FlexItem item = items.get(i);
             // measure flex item
-            int occupiedMainSize = paddings.getMainPaddings(isMainAxisHorizontal);
-            item.measure(mainAxisMeasureRequest, occupiedMainSize, crossAxisMeasureRequest,
-                    occupiedContainerCrossSize, isMainAxisHorizontal);
+            int occupiedMainSize = axis.getMainPaddings(paddings);
+            axis.measure(item, mainAxisMeasureRequest, occupiedMainSize, crossAxisMeasureRequest,
+                    occupiedContainerCrossSize);
             // clamp by min/max constraints and remeasure if needed
             item.clampByMinMaxDimensions();
-            if (isWrapNeeded(mainAxisMeasureRequest, flexProperties.flexWrap, currentFlexLine, item,
-                    isMainAxisHorizontal)) {
+            int wrapMainSize = getWrapMainSize(mainAxisMeasureRequest, flexStyle,
+                    flexLines.size(), currentFlexLine, item, i);
+            boolean isWrapNeeded = mainAxisMeasureRequest.getExpectedSize() < wrapMainSize;
+            if (wrapMainSize != NEVER_WRAPS) {
+                progress.onWrapChecked(wrapMainSize, isWrapNeeded);
+            }
+            if (isWrapNeeded) {
                 // finish current flex line
                 currentFlexLine.crossSizeSumAbove = occupiedContainerCrossSize;
                 flexLines.add(currentFlexLine);
-                occupiedContainerCrossSize += currentFlexLine.crossSize;
+                occupiedContainerCrossSize += currentFlexLine.crossSize
+                        + flexStyle.getCrossGapAfter(currentFlexLine);
                 // remeasure if cross size MATCH_PARENT
-                if (item.requireCrossSizeMatchParent(isMainAxisHorizontal)) {
-                    item.measure(mainAxisMeasureRequest, occupiedMainSize,
-                            crossAxisMeasureRequest, occupiedContainerCrossSize, isMainAxisHorizontal);
+                if (axis.requireCrossSizeMatchParent(item)) {
+                    axis.measure(item, mainAxisMeasureRequest, occupiedMainSize,
+                            crossAxisMeasureRequest, occupiedContainerCrossSize);
                 }
                 // prepare new flex line
-                currentFlexLine = new FlexLine();
+                currentFlexLine = new FlexLine(itemParams, i);
+            }
+            if (lineBreakCache != null) {
+                narrowMainSizeRange(item, i, mainAxisMeasureRequest, progress);
             }
             // add current item
-            currentFlexLine.addItem(item, isMainAxisHorizontal);
+            if (currentFlexLine.getItemCount() > 0) {
+                currentFlexLine.mainSize += flexStyle.mainGap;
+            }
+            currentFlexLine.addItem(item, axis);
         }
         flexLines.add(currentFlexLine);
-        return flexLines;
+        return true;
     }
 
     private boolean isWrapNeeded(MeasureRequest mainAxisMeasureRequest,
-                                 FlexWrap flexWrap,
-                                 FlexLine currentFlexLine, FlexItem item,
-                                 boolean isMainAxisHorizontal) {
-        if (flexWrap == FlexWrap.NOWRAP) {
-            return false;
+                                 FlexStyle flexStyle, int finishedFlexLineCount,
+                                 FlexLine currentFlexLine, FlexItem item, int index) {
+        return mainAxisMeasureRequest.getExpectedSize() < getWrapMainSize(mainAxisMeasureRequest,
+                flexStyle, finishedFlexLineCount, currentFlexLine, item, index);
+    }
+
+    /**
+     * Returns the main size below which the item wraps to a new flex line, or
+     * {@link #NEVER_WRAPS}.
+     */
+    private int getWrapMainSize(MeasureRequest mainAxisMeasureRequest,
+                                FlexStyle flexStyle, int finishedFlexLineCount,
+                                FlexLine currentFlexLine, FlexItem item, int index) {
+        if (flexStyle.flexWrap == FlexWrap.NOWRAP) {
+            return NEVER_WRAPS;
         }
         if (mainAxisMeasureRequest.isUnconstrained()) {
-            return false;
+            return NEVER_WRAPS;
+        }
+        // the remaining items all go to the last allowed flex line
+        if (flexStyle.maxLine != FlexStyle.NOT_SET
+                && finishedFlexLineCount + 1 >= flexStyle.maxLine) {
+            return NEVER_WRAPS;
         }
-        return mainAxisMeasureRequest.getExpectedSize()
-                < currentFlexLine.mainSize + item.getOuterMainSize(isMainAxisHorizontal);
+        int gap = currentFlexLine.getItemCount() > 0 ? flexStyle.mainGap : 0;
+        return currentFlexLine.mainSize + gap + itemParams.getOuterMainSize(item, index, axis);
     }
 
     @Override
     public void layout(int left, int top, int right, int bottom, boolean isRtl) {
-        layout(left, top, right, bottom, isRtl, paddings);
+        if (resultBuffer != null) {
+            resultBuffer.start(items.size());
+        }
+        boolean isLaidOut = false;
+        try {
+            layout(left, top, right, bottom, isRtl, paddings);
+            isLaidOut = true;
+        } finally {
+            finishResults(isLaidOut);
+        }
+    }
+
+    // a pass that stopped early, e.g. when cancelled, leaves no results rather than torn ones
+    private void finishResults(boolean isLaidOut) {
+        if (resultBuffer == null) {
+            return;
+        }
+        if (isLaidOut) {
+            resultBuffer.finish();
+        } else {
+            resultBuffer.discard();
+        }
     }
 
     private void layout(int left, int top, int right, int bottom, boolean isRtl, Paddings paddings) {
@@ -291,197 +806,221 @@ public class FlexContainerImpl implements FlexContainer {
         int innerWidth = width - paddings.startPadding - paddings.endPadding;
         int height = bottom - top;
         int innerHeight = height - paddings.topPadding - paddings.bottomPadding;
+        axis = flexStyle.axis;
         int containerInnerMainSize;
         int containerInnerCrossSize;
-        boolean isMainAxisHorizontal = isMainAxisHorizontal();
-        if (isMainAxisHorizontal) {
+        if (axis.isHorizontal) {
             containerInnerMainSize = innerWidth;
             containerInnerCrossSize = innerHeight;
         } else {
             containerInnerMainSize = innerHeight;
             containerInnerCrossSize = innerWidth;
         }
-        boolean isMainAxisReversed = false;
-        boolean isCrossAxisReversed = false;
-        FlexDirection flexDirection = flexProperties.flexDirection;
-        FlexWrap flexWrap = flexProperties.flexWrap;
-        switch (flexDirection) {
-            case ROW:
-                if (isRtl) {
-                    isMainAxisReversed = true;
-                }
-                if (flexWrap == WRAP_REVERSE) {
-                    isCrossAxisReversed = true;
+        boolean isMainAxisReversed = flexStyle.isMainAxisReversed(isRtl);
+        boolean isCrossAxisReversed = flexStyle.isCrossAxisReversed(isRtl);
+        int crossAxisAnchor = isCrossAxisReversed ? containerInnerCrossSize : 0;
+        boolean isFirstFlexLine = true;
+        for (FlexLine flexLine : flexLines.flexLineList) {
+            if (flexLine.getItemCount() > 0) {
+                if (!isFirstFlexLine) {
+                    crossAxisAnchor = isCrossAxisReversed ? crossAxisAnchor - flexStyle.crossGap :
+                            crossAxisAnchor + flexStyle.crossGap;
                 }
+                isFirstFlexLine = false;
+            }
+            layoutFlexLine(flexLine, containerInnerMainSize, crossAxisAnchor, isMainAxisReversed,
+                    isCrossAxisReversed, paddings);
+            crossAxisAnchor = forwardCrossAxisAnchor(crossAxisAnchor, isCrossAxisReversed, flexLine);
+        }
+    }
+
+    private void layoutFlexLine(FlexLine flexLine, int containerInnerMainSize, int crossAxisAnchor,
+                                boolean isMainAxisReversed, boolean isCrossAxisReversed,
+                                Paddings paddings) {
+        JustifyContent justifyContent = flexStyle.justifyContent;
+        int flexLineMainSize = flexLine.mainSize;
+        int mainAxisAnchor = 0;
+        float spaceBetweenItems = 0;
+        FixedPointDistributor gapDistributor = new FixedPointDistributor();
+        int gapWeight = 1;
+        int freeSpace = containerInnerMainSize - flexLineMainSize;
+        switch (justifyContent) {
+            case FLEX_START:
+                mainAxisAnchor = isMainAxisReversed ? containerInnerMainSize : 0;
                 break;
-            case ROW_REVERSE:
-                if (!isRtl) {
-                    isMainAxisReversed = true;
-                }
-                if (flexWrap == WRAP_REVERSE) {
-                    isCrossAxisReversed = true;
-                }
+            case FLEX_END:
+                mainAxisAnchor = isMainAxisReversed ? flexLineMainSize :
+                        containerInnerMainSize - flexLineMainSize;
                 break;
-            case COLUMN:
-                if (!isRtl && flexWrap == WRAP_REVERSE) {
-                    isCrossAxisReversed = true;
-                }
-                if (isRtl && flexWrap == WRAP) {
-                    isCrossAxisReversed = true;
-                }
+            case CENTER:
+                mainAxisAnchor = isMainAxisReversed ?
+                        (containerInnerMainSize + flexLineMainSize) / 2 :
+                        (containerInnerMainSize - flexLineMainSize) / 2;
                 break;
-            case COLUMN_REVERSE:
-                if (!isRtl && flexWrap == WRAP_REVERSE) {
-                    isCrossAxisReversed = true;
-                }
-                if (isRtl && flexWrap == WRAP) {
-                    isCrossAxisReversed = true;
-                }
-                isMainAxisReversed = true;
-        }
-        int crossAxisAnchor = isCrossAxisReversed ? containerInnerCrossSize : 0;
-        for (FlexLine flexLine : flexLines.flexLineList) {
-            JustifyContent justifyContent = flexProperties.justifyContent;
-            int flexLineMainSize = flexLine.mainSize;
-            int mainAxisAnchor = 0;
-            float spaceBetweenItems = 0;
-            switch (justifyContent) {
-                case FLEX_START:
-                    mainAxisAnchor = isMainAxisReversed ? containerInnerMainSize : 0;
-                    break;
-                case FLEX_END:
-                    mainAxisAnchor = isMainAxisReversed ? flexLineMainSize :
-                            containerInnerMainSize - flexLineMainSize;
-                    break;
-                case CENTER:
-                    mainAxisAnchor = isMainAxisReversed ?
-                            (containerInnerMainSize + flexLineMainSize) / 2 :
-                            (containerInnerMainSize - flexLineMainSize) / 2;
-                    break;
-                case SPACE_AROUND:
-                    spaceBetweenItems =
-                            (float) (containerInnerMainSize - flexLineMainSize) / flexLine.getItemCount();
+            case SPACE_AROUND:
+                if (fixedPointArithmetic) {
+                    // distribute in half gaps so that both edges get exactly half a gap
+                    gapDistributor.reset(freeSpace, flexLine.getItemCount() * 2);
+                    gapWeight = 2;
+                    int halfGap = gapDistributor.next(1);
                     mainAxisAnchor = isMainAxisReversed ?
-                            containerInnerMainSize - Math.round(spaceBetweenItems) / 2 :
-                            Math.round(spaceBetweenItems) / 2;
+                            containerInnerMainSize - halfGap : halfGap;
                     break;
-                case SPACE_BETWEEN:
-                    spaceBetweenItems = flexLine.getItemCount() > 1 ?
-                            (float) (containerInnerMainSize - flexLineMainSize) / (flexLine.getItemCount() - 1) : 0;
+                }
+                spaceBetweenItems =
+                        (float) (containerInnerMainSize - flexLineMainSize) / flexLine.getItemCount();
+                mainAxisAnchor = isMainAxisReversed ?
+                        containerInnerMainSize - Math.round(spaceBetweenItems) / 2 :
+                        Math.round(spaceBetweenItems) / 2;
+                break;
+            case SPACE_BETWEEN:
+                if (fixedPointArithmetic) {
+                    gapDistributor.reset(freeSpace, flexLine.getItemCount() - 1);
                     mainAxisAnchor = isMainAxisReversed ? containerInnerMainSize : 0;
                     break;
-                case SPACE_EVENLY:
-                    spaceBetweenItems =
-                            (float) (containerInnerMainSize - flexLineMainSize) / (flexLine.getItemCount() + 1);
+                }
+                spaceBetweenItems = flexLine.getItemCount() > 1 ?
+                        (float) (containerInnerMainSize - flexLineMainSize) / (flexLine.getItemCount() - 1) : 0;
+                mainAxisAnchor = isMainAxisReversed ? containerInnerMainSize : 0;
+                break;
+            case SPACE_EVENLY:
+                if (fixedPointArithmetic) {
+                    gapDistributor.reset(freeSpace, flexLine.getItemCount() + 1);
+                    int gap = gapDistributor.next(1);
                     mainAxisAnchor = isMainAxisReversed ?
-                            Math.round(containerInnerMainSize - spaceBetweenItems) :
-                            Math.round(spaceBetweenItems);
+                            containerInnerMainSize - gap : gap;
                     break;
-            }
-            RoundingErrorAccumulator errorAccumulator = new RoundingErrorAccumulator();
-            for (int i = 0; i < flexLine.getItemCount(); i++) {
-                FlexItem item = flexLine.getItemAt(i);
-                layoutItem(item, isMainAxisReversed, mainAxisAnchor, isCrossAxisReversed,
-                        crossAxisAnchor, isMainAxisHorizontal, flexProperties.alignItems,
-                        flexLine, paddings.leftPadding, paddings.topPadding);
-                mainAxisAnchor = forwardMainAxisAnchor(mainAxisAnchor, isMainAxisReversed, item,
-                        errorAccumulator.roundAndCompensate(spaceBetweenItems),
-                        isMainAxisHorizontal);
-            }
-            crossAxisAnchor = forwardCrossAxisAnchor(crossAxisAnchor, isCrossAxisReversed, flexLine);
+                }
+                spaceBetweenItems =
+                        (float) (containerInnerMainSize - flexLineMainSize) / (flexLine.getItemCount() + 1);
+                mainAxisAnchor = isMainAxisReversed ?
+                        Math.round(containerInnerMainSize - spaceBetweenItems) :
+                        Math.round(spaceBetweenItems);
+                break;
+        }
+        if (resultBuffer != null && flexLine.getItemCount() > 0) {
+            resultBuffer.putFlexLine(flexLine);
+        }
+        RoundingErrorAccumulator errorAccumulator = new RoundingErrorAccumulator();
+        for (int i = 0; i < flexLine.getItemCount(); i++) {
+            checkCancelled(i);
+            FlexItem item = flexLine.getItemAt(i);
+            int index = flexLine.getItemIndex(i);
+            layoutItem(item, index, isMainAxisReversed, mainAxisAnchor, isCrossAxisReversed,
+                    crossAxisAnchor, flexStyle.alignItems,
+                    flexLine, paddings.leftPadding, paddings.topPadding);
+            int gap = fixedPointArithmetic ? gapDistributor.next(gapWeight) :
+                    errorAccumulator.roundAndCompensate(spaceBetweenItems);
+            mainAxisAnchor = forwardMainAxisAnchor(mainAxisAnchor, isMainAxisReversed, item,
+                    index, gap + flexStyle.mainGap);
         }
     }
 
     private int forwardMainAxisAnchor(int mainAxisAnchor, boolean isMainAxisReversed,
-                                      FlexItem item, int spaceBetweenItems,
-                                      boolean isMainAxisHorizontal) {
+                                      FlexItem item, int index, int spaceBetweenItems) {
         return isMainAxisReversed ?
-                mainAxisAnchor - (item.getMainAxisMarginStart(isMainAxisHorizontal) + item.getMeasuredMainSize(isMainAxisHorizontal) + spaceBetweenItems) :
-                mainAxisAnchor + (item.getMainAxisMarginEnd(isMainAxisHorizontal) + item.getMeasuredMainSize(isMainAxisHorizontal) + spaceBetweenItems);
+                mainAxisAnchor - (itemParams.mainMarginStart[index] + axis.getMeasuredMainSize(item) + spaceBetweenItems) :
+                mainAxisAnchor + (itemParams.mainMarginEnd[index] + axis.getMeasuredMainSize(item) + spaceBetweenItems);
     }
 
     private int forwardCrossAxisAnchor(int crossAxisAnchor, boolean isCrossAxisReversed, FlexLine flexLine) {
         return isCrossAxisReversed ? crossAxisAnchor - flexLine.getCrossSize() : crossAxisAnchor + flexLine.getCrossSize();
     }
 
-    void layoutItem(FlexItem item, boolean isMainAxisReversed, int mainAxisAnchor,
+    void layoutItem(FlexItem item, int index, boolean isMainAxisReversed, int mainAxisAnchor,
                     boolean isCrossAxisReversed, int crossAxisAnchor,
-                    boolean isMainAxisHorizontal, AlignItems alignItems, FlexLine flexLine,
+                    AlignItems alignItems, FlexLine flexLine,
                     int leftPadding, int topPadding) {
         int mainStart;
         int mainEnd;
         int crossStart;
         int crossEnd;
         if (isMainAxisReversed) {
-            mainEnd = mainAxisAnchor - item.getMainAxisMarginEnd(isMainAxisHorizontal);
-            mainStart = mainEnd - item.getMeasuredMainSize(isMainAxisHorizontal);
+            mainEnd = mainAxisAnchor - itemParams.mainMarginEnd[index];
+            mainStart = mainEnd - axis.getMeasuredMainSize(item);
         } else {
-            mainStart = mainAxisAnchor + item.getMainAxisMarginStart(isMainAxisHorizontal);
-            mainEnd = mainStart + item.getMeasuredMainSize(isMainAxisHorizontal);
-        }
-        AlignItems crossAlignment = alignItems;
-        AlignSelf alignSelf = item.getAlignSelf();
-        if (alignSelf != AUTO) {
-            switch (alignSelf) {
-                case FLEX_START:
-                    crossAlignment = AlignItems.FLEX_START;
-                    break;
-                case FLEX_END:
-                    crossAlignment = AlignItems.FLEX_END;
-                    break;
-                case CENTER:
-                    crossAlignment = AlignItems.CENTER;
-                    break;
-                case STRETCH:
-                    crossAlignment = AlignItems.STRETCH;
-                    break;
-            }
+            mainStart = mainAxisAnchor + itemParams.mainMarginStart[index];
+            mainEnd = mainStart + axis.getMeasuredMainSize(item);
+        }
+        AlignItems crossAlignment = resolveCrossAlignment(itemParams.alignSelf[index], alignItems);
+        if (crossAlignment == AlignItems.BASELINE && axis != FlexAxis.ROW) {
+            crossAlignment = AlignItems.FLEX_START;
         }
         switch (crossAlignment) {
             case STRETCH:
             case FLEX_START:
                 if (isCrossAxisReversed) {
-                    crossEnd = crossAxisAnchor - item.getCrossAxisMarginEnd(isMainAxisHorizontal);
-                    crossStart = crossEnd - item.getMeasuredCrossSize(isMainAxisHorizontal);
+                    crossEnd = crossAxisAnchor - itemParams.crossMarginEnd[index];
+                    crossStart = crossEnd - axis.getMeasuredCrossSize(item);
+                } else {
+                    crossStart = crossAxisAnchor + itemParams.crossMarginStart[index];
+                    crossEnd = crossStart + axis.getMeasuredCrossSize(item);
+                }
+                break;
+            case BASELINE:
+                if (isCrossAxisReversed) {
+                    crossEnd = crossAxisAnchor - flexLine.maxBaseline
+                            + axis.getMeasuredCrossSize(item) - item.getBaseline();
+                    crossStart = crossEnd - axis.getMeasuredCrossSize(item);
                 } else {
-                    crossStart = crossAxisAnchor + item.getCrossAxisMarginStart(isMainAxisHorizontal);
-                    crossEnd = crossStart + item.getMeasuredCrossSize(isMainAxisHorizontal);
+                    crossStart = crossAxisAnchor + flexLine.maxBaseline - item.getBaseline();
+                    crossEnd = crossStart + axis.getMeasuredCrossSize(item);
                 }
                 break;
             case FLEX_END:
                 if (isCrossAxisReversed) {
                     crossStart =
-                            crossAxisAnchor - flexLine.crossSize + item.getCrossAxisMarginStart(isMainAxisHorizontal);
-                    crossEnd = crossStart + item.getMeasuredCrossSize(isMainAxisHorizontal);
+                            crossAxisAnchor - flexLine.crossSize + itemParams.crossMarginStart[index];
+                    crossEnd = crossStart + axis.getMeasuredCrossSize(item);
                 } else {
                     crossEnd =
-                            crossAxisAnchor + flexLine.crossSize - item.getCrossAxisMarginEnd(isMainAxisHorizontal);
-                    crossStart = crossEnd - item.getMeasuredCrossSize(isMainAxisHorizontal);
+                            crossAxisAnchor + flexLine.crossSize - itemParams.crossMarginEnd[index];
+                    crossStart = crossEnd - axis.getMeasuredCrossSize(item);
                 }
                 break;
             case CENTER:
                 if (isCrossAxisReversed) {
                     crossEnd =
                             crossAxisAnchor - (flexLine.crossSize / 2 -
-                                    item.getOuterCrossSize(isMainAxisHorizontal) / 2) -
-                                    item.getCrossAxisMarginEnd(isMainAxisHorizontal);
-                    crossStart = crossEnd - item.getMeasuredCrossSize(isMainAxisHorizontal);
+                                    itemParams.getOuterCrossSize(item, index, axis) / 2) -
+                                    itemParams.crossMarginEnd[index];
+                    crossStart = crossEnd - axis.getMeasuredCrossSize(item);
                 } else {
                     crossStart =
                             crossAxisAnchor + flexLine.crossSize / 2 -
-                                    item.getOuterCrossSize(isMainAxisHorizontal) / 2 +
-                                    item.getCrossAxisMarginStart(isMainAxisHorizontal);
-                    crossEnd = crossStart + item.getMeasuredCrossSize(isMainAxisHorizontal);
+                                    itemParams.getOuterCrossSize(item, index, axis) / 2 +
+                                    itemParams.crossMarginStart[index];
+                    crossEnd = crossStart + axis.getMeasuredCrossSize(item);
                 }
                 break;
             default:
                 throw new IllegalStateException();
         }
-        item.layout(mainStart, mainEnd, crossStart, crossEnd, isMainAxisHorizontal, leftPadding,
-                topPadding);
+        axis.layout(item, mainStart, mainEnd, crossStart, crossEnd, leftPadding, topPadding);
+        if (resultBuffer != null) {
+            resultBuffer.putItem(mainStart, mainEnd, crossStart, crossEnd, axis.isHorizontal,
+                    leftPadding, topPadding);
+        }
+    }
+
+    private static AlignItems resolveCrossAlignment(AlignSelf alignSelf, AlignItems alignItems) {
+        switch (alignSelf) {
+            case FLEX_START:
+                return AlignItems.FLEX_START;
+            case FLEX_END:
+                return AlignItems.FLEX_END;
+            case CENTER:
+                return AlignItems.CENTER;
+            case BASELINE:
+                return AlignItems.BASELINE;
+            case STRETCH:
+                return AlignItems.STRETCH;
+            default:
+                return alignItems;
+        }
     }
 
     public boolean isMainAxisHorizontal() {
-        return flexProperties.flexDirection == FlexDirection.ROW || flexProperties.flexDirection == FlexDirection.ROW_REVERSE;
+        return flexStyle.isMainAxisHorizontal();
     }
 }
@@ -27,6 +27,8 @@ public interface FlexItem {
 
     AlignSelf getAlignSelf();
 
+    int getBaseline();
+
     int getMeasuredMainSize(boolean mainAxisHorizontal);
 
     int getMinMainSize(boolean isMainAxisHorizontal);
@@ -52,5 +54,9 @@ public interface FlexItem {
 
     int getClampedCrossSize(int crossSize, boolean isMainAxisHorizontal);
 
+    int getMinCrossSize(boolean isMainAxisHorizontal);
+
+    int getMaxCrossSize(boolean isMainAxisHorizontal);
+
     void fixedSizeMeasure(int mainSize, int crossSize, boolean isMainAxisHorizontal);
 }
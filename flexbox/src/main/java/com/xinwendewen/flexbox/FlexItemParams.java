@@ -0,0 +1,92 @@
+package com.xinwendewen.flexbox;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The flex properties of the flex items, copied into primitive arrays indexed by item position
+ * once at the beginning of a measure pass and resolved against the main axis, so that the engine
+ * loops read plain arrays instead of calling the {@link FlexItem} getters over and over.
+ */
+class FlexItemParams {
+    int count;
+    float[] flexGrow = new float[0];
+    float[] flexShrink = new float[0];
+    boolean[] flexible = new boolean[0];
+    int[] minMainSize = new int[0];
+    float[] maxMainSize = new float[0];
+    int[] minCrossSize = new int[0];
+    int[] maxCrossSize = new int[0];
+    int[] mainMarginStart = new int[0];
+    int[] mainMarginEnd = new int[0];
+    int[] crossMarginStart = new int[0];
+    int[] crossMarginEnd = new int[0];
+    AlignSelf[] alignSelf = new AlignSelf[0];
+    boolean[] frozen = new boolean[0];
+
+    void snapshot(List<FlexItem> items, FlexAxis axis) {
+        count = items.size();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            set(i, items.get(i), axis);
+        }
+    }
+
+    void set(int index, FlexItem item, FlexAxis axis) {
+        boolean isMainAxisHorizontal = axis.isHorizontal;
+        flexGrow[index] = item.getFlexGrow();
+        flexShrink[index] = item.getFlexShrink();
+        flexible[index] = item.isFlexible();
+        minMainSize[index] = item.getMinMainSize(isMainAxisHorizontal);
+        maxMainSize[index] = item.getMaxMainSize(isMainAxisHorizontal);
+        minCrossSize[index] = item.getMinCrossSize(isMainAxisHorizontal);
+        maxCrossSize[index] = item.getMaxCrossSize(isMainAxisHorizontal);
+        mainMarginStart[index] = item.getMainAxisMarginStart(isMainAxisHorizontal);
+        mainMarginEnd[index] = item.getMainAxisMarginEnd(isMainAxisHorizontal);
+        crossMarginStart[index] = item.getCrossAxisMarginStart(isMainAxisHorizontal);
+        crossMarginEnd[index] = item.getCrossAxisMarginEnd(isMainAxisHorizontal);
+        alignSelf[index] = item.getAlignSelf();
+        frozen[index] = false;
+    }
+
+    void ensureCapacity(int capacity) {
+        if (flexGrow.length >= capacity) {
+            return;
+        }
+        capacity = Math.max(capacity, flexGrow.length * 2);
+        flexGrow = Arrays.copyOf(flexGrow, capacity);
+        flexShrink = Arrays.copyOf(flexShrink, capacity);
+        flexible = Arrays.copyOf(flexible, capacity);
+        minMainSize = Arrays.copyOf(minMainSize, capacity);
+        maxMainSize = Arrays.copyOf(maxMainSize, capacity);
+        minCrossSize = Arrays.copyOf(minCrossSize, capacity);
+        maxCrossSize = Arrays.copyOf(maxCrossSize, capacity);
+        mainMarginStart = Arrays.copyOf(mainMarginStart, capacity);
+        mainMarginEnd = Arrays.copyOf(mainMarginEnd, capacity);
+        crossMarginStart = Arrays.copyOf(crossMarginStart, capacity);
+        crossMarginEnd = Arrays.copyOf(crossMarginEnd, capacity);
+        alignSelf = Arrays.copyOf(alignSelf, capacity);
+        frozen = Arrays.copyOf(frozen, capacity);
+    }
+
+    int getMainMargin(int index) {
+        return mainMarginStart[index] + mainMarginEnd[index];
+    }
+
+    int getCrossMargin(int index) {
+        return crossMarginStart[index] + crossMarginEnd[index];
+    }
+
+    int getOuterMainSize(FlexItem item, int index, FlexAxis axis) {
+        return axis.getMeasuredMainSize(item) + getMainMargin(index);
+    }
+
+    int getOuterCrossSize(FlexItem item, int index, FlexAxis axis) {
+        return axis.getMeasuredCrossSize(item) + getCrossMargin(index);
+    }
+
+    int getClampedCrossSize(int index, int crossSize) {
+        crossSize = Math.max(crossSize, minCrossSize[index]);
+        return Math.min(crossSize, maxCrossSize[index]);
+    }
+}
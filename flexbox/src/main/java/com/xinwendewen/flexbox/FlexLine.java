@@ -1,13 +1,15 @@
 package com.xinwendewen.flexbox;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 public class FlexLine {
     final List<FlexItem> items = new ArrayList<>();
 
+    final FlexItemParams params;
+
+    final int firstItemIndex;
+
     int mainSize;
 
     int crossSize;
@@ -18,28 +20,55 @@ public class FlexLine {
 
     int crossSizeSumAbove;
 
+    int maxBaseline;
+
+    int maxBelowBaseline;
+
     boolean hasFlexibleItem;
 
-    Set<Integer> violatedIndices = new HashSet<>();
+    FlexLine(FlexItemParams params, int firstItemIndex) {
+        this.params = params;
+        this.firstItemIndex = firstItemIndex;
+    }
 
     static FlexLine createDummyWithCrossSize(int crossSize) {
-        FlexLine flexLine = new FlexLine();
+        FlexLine flexLine = new FlexLine(null, 0);
         flexLine.crossSize = crossSize;
         return flexLine;
     }
 
-    FlexItem getItemAt(int index) {
+    public FlexItem getItemAt(int index) {
         return items.get(index);
     }
 
-    void addItem(FlexItem item, boolean isMainAxisHorizontal) {
+    int getItemIndex(int indexInLine) {
+        return firstItemIndex + indexInLine;
+    }
+
+    void addItem(FlexItem item, FlexAxis axis) {
+        int index = getItemIndex(items.size());
         items.add(item);
-        hasFlexibleItem |= item.getFlexGrow() > 0;
-        hasFlexibleItem |= item.getFlexShrink() > 0;
-        mainSize += item.getOuterMainSize(isMainAxisHorizontal);
-        totalFlexGrow += item.getFlexGrow();
-        totalFlexShrink += item.getFlexShrink();
-        crossSize = Math.max(crossSize, item.getOuterCrossSize(isMainAxisHorizontal));
+        float flexGrow = params.flexGrow[index];
+        float flexShrink = params.flexShrink[index];
+        hasFlexibleItem |= flexGrow > 0;
+        hasFlexibleItem |= flexShrink > 0;
+        mainSize += params.getOuterMainSize(item, index, axis);
+        totalFlexGrow += flexGrow;
+        totalFlexShrink += flexShrink;
+        crossSize = Math.max(crossSize, params.getOuterCrossSize(item, index, axis));
+    }
+
+    void addBaselineItem(int indexInLine, boolean isCrossAxisReversed) {
+        FlexItem item = items.get(indexInLine);
+        int index = getItemIndex(indexInLine);
+        int baseline = item.getBaseline();
+        int aboveBaseline = isCrossAxisReversed ?
+                FlexAxis.ROW.getMeasuredCrossSize(item) - baseline + params.crossMarginEnd[index] :
+                baseline + params.crossMarginStart[index];
+        maxBaseline = Math.max(maxBaseline, aboveBaseline);
+        maxBelowBaseline = Math.max(maxBelowBaseline,
+                params.getOuterCrossSize(item, index, FlexAxis.ROW) - aboveBaseline);
+        crossSize = Math.max(crossSize, maxBaseline + maxBelowBaseline);
     }
 
     public int getMainSize() {
@@ -56,8 +85,8 @@ public class FlexLine {
 
     boolean isFrozen() {
         for (int i = 0; i < items.size(); i++) {
-            FlexItem item = items.get(i);
-            boolean isItemFrozen = !item.isFlexible() || violatedIndices.contains(i);
+            int index = getItemIndex(i);
+            boolean isItemFrozen = !params.flexible[index] || params.frozen[index];
             if (!isItemFrozen) {
                 return false;
             }
@@ -65,38 +94,37 @@ public class FlexLine {
         return true;
     }
 
-    boolean isItemShrinkFrozen(int index) {
-        if (violatedIndices.contains(index)) {
-            return true;
-        }
-        FlexItem item = items.get(index);
-        float flexShrink = item.getFlexShrink();
-        if (flexShrink <= 0) {
-            return true;
-        }
-        return false;
+    boolean isItemShrinkFrozen(int indexInLine) {
+        int index = getItemIndex(indexInLine);
+        return params.frozen[index] || params.flexShrink[index] <= 0;
     }
 
-    boolean isItemGrowFrozen(int index) {
-        if (violatedIndices.contains(index)) {
-            return true;
-        }
-        FlexItem item = items.get(index);
-        float flexGrow = item.getFlexGrow();
-        if (flexGrow <= 0) {
-            return true;
+    boolean isItemGrowFrozen(int indexInLine) {
+        int index = getItemIndex(indexInLine);
+        return params.frozen[index] || params.flexGrow[index] <= 0;
+    }
+
+    long getFixedPointFlexFactorSum(boolean isGrowing) {
+        long sum = 0;
+        for (int i = 0; i < items.size(); i++) {
+            if (isGrowing ? isItemGrowFrozen(i) : isItemShrinkFrozen(i)) {
+                continue;
+            }
+            int index = getItemIndex(i);
+            sum += FixedPointDistributor.toFixed(isGrowing ?
+                    params.flexGrow[index] : params.flexShrink[index]);
         }
-        return false;
+        return sum;
     }
 
-    void freezeItemAt(int index) {
-        violatedIndices.add(index);
-        FlexItem item = items.get(index);
-        float growFactor = item.getFlexGrow();
+    void freezeItemAt(int indexInLine) {
+        int index = getItemIndex(indexInLine);
+        params.frozen[index] = true;
+        float growFactor = params.flexGrow[index];
         if (growFactor > 0) {
             totalFlexGrow -= growFactor;
         }
-        float shrinkFactor = item.getFlexShrink();
+        float shrinkFactor = params.flexShrink[index];
         if (shrinkFactor > 0) {
             totalFlexShrink -= shrinkFactor;
         }
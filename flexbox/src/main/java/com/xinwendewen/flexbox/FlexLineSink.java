@@ -0,0 +1,10 @@
+package com.xinwendewen.flexbox;
+
+/**
+ * Receives the flex lines of a streaming pass as soon as they are measured and laid out. A line
+ * and its items are only valid during the call: the next line reuses the item params of the
+ * container from index 0, so copy whatever is needed later.
+ */
+public interface FlexLineSink {
+    void onFlexLine(FlexLine flexLine);
+}
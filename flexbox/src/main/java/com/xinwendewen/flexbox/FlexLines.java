@@ -57,6 +57,27 @@ class FlexLines {
         flexLineList = newFlexLines;
     }
 
+    void insertBetweenFlexLines(FixedPointDistributor distributor) {
+        List<FlexLine> newFlexLines = new ArrayList<>();
+        for (int i = 0; i < flexLineList.size(); i++) {
+            if (i != 0) {
+                newFlexLines.add(FlexLine.createDummyWithCrossSize(distributor.next(1)));
+            }
+            newFlexLines.add(flexLineList.get(i));
+        }
+        flexLineList = newFlexLines;
+    }
+
+    void insertAround(FixedPointDistributor distributor) {
+        List<FlexLine> newFlexLines = new ArrayList<>();
+        for (FlexLine currentFlexLine : flexLineList) {
+            newFlexLines.add(FlexLine.createDummyWithCrossSize(distributor.next(1)));
+            newFlexLines.add(currentFlexLine);
+            newFlexLines.add(FlexLine.createDummyWithCrossSize(distributor.next(1)));
+        }
+        flexLineList = newFlexLines;
+    }
+
     void insertAround(float space) {
         RoundingErrorAccumulator errorAccumulator = new RoundingErrorAccumulator();
         List<FlexLine> newFlexLines = new ArrayList<>();
@@ -0,0 +1,316 @@
+package com.xinwendewen.flexbox;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * An immutable node of a flex tree: a container with a style and children, or a leaf measured
+ * by a {@link MeasureFunction}, plus its own flex item properties. Every update returns a new
+ * node and {@link #update(int[], UnaryOperator)} copies only the path to the updated node, so
+ * variants of a tree share their untouched subtrees.
+ *
+ * <p>Since a subtree never changes, its measured sizes and layouts are cached on its nodes and
+ * shared by all the trees it is part of: laying out a variant that changed one container
+ * measures and lays out again the nodes on the path to it, and reuses the results of every
+ * other subtree of the same size. A tree can be laid out from several threads at once.
+ */
+public final class FlexNode {
+    private static final int WIDTH = 0;
+    private static final int HEIGHT = 1;
+    private static final int MARGIN_LEFT = 2;
+    private static final int MARGIN_TOP = 3;
+    private static final int MARGIN_RIGHT = 4;
+    private static final int MARGIN_BOTTOM = 5;
+    private static final int MIN_WIDTH = 6;
+    private static final int MIN_HEIGHT = 7;
+    private static final int MAX_WIDTH = 8;
+    private static final int MAX_HEIGHT = 9;
+    private static final int PADDING_LEFT = 10;
+    private static final int PADDING_TOP = 11;
+    private static final int PADDING_RIGHT = 12;
+    private static final int PADDING_BOTTOM = 13;
+    private static final int SIZE_COUNT = 14;
+
+    private static final int FLEX_GROW = 0;
+    private static final int FLEX_SHRINK = 1;
+    private static final int FLEX_BASIS_PERCENT = 2;
+
+    private static final int[] DEFAULT_SIZES = {LeafFlexItem.WRAP_CONTENT,
+            LeafFlexItem.WRAP_CONTENT, 0, 0, 0, 0, 0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE,
+            0, 0, 0, 0};
+    private static final float[] DEFAULT_FLEX_FACTORS = {0, 1, LeafFlexItem.NOT_SET};
+    private static final FlexNode[] NO_CHILDREN = new FlexNode[0];
+
+    private final FlexStyle flexStyle;
+    private final boolean isRtl;
+    private final MeasureFunction content;
+    private final FlexNode[] children;
+    private final int[] sizes;
+    private final float[] flexFactors;
+    private final AlignSelf alignSelf;
+
+    private final MeasureCache measureCache = new MeasureCache();
+    private volatile NodeLayout lastLayout;
+
+    private FlexNode(FlexStyle flexStyle, boolean isRtl, MeasureFunction content,
+                     FlexNode[] children, int[] sizes, float[] flexFactors, AlignSelf alignSelf) {
+        this.flexStyle = flexStyle;
+        this.isRtl = isRtl;
+        this.content = content;
+        this.children = children;
+        this.sizes = sizes;
+        this.flexFactors = flexFactors;
+        this.alignSelf = alignSelf;
+    }
+
+    public static FlexNode leaf(MeasureFunction content) {
+        return new FlexNode(null, false, content, NO_CHILDREN, DEFAULT_SIZES,
+                DEFAULT_FLEX_FACTORS, AlignSelf.AUTO);
+    }
+
+    public static FlexNode container(FlexStyle flexStyle, FlexNode... children) {
+        return new FlexNode(flexStyle, false, null, children.clone(), DEFAULT_SIZES,
+                DEFAULT_FLEX_FACTORS, AlignSelf.AUTO);
+    }
+
+    public static FlexNode container(FlexStyle flexStyle, List<FlexNode> children) {
+        return new FlexNode(flexStyle, false, null, children.toArray(NO_CHILDREN), DEFAULT_SIZES,
+                DEFAULT_FLEX_FACTORS, AlignSelf.AUTO);
+    }
+
+    public boolean isContainer() {
+        return flexStyle != null;
+    }
+
+    public FlexStyle getFlexStyle() {
+        return flexStyle;
+    }
+
+    public int getChildCount() {
+        return children.length;
+    }
+
+    public FlexNode getChildAt(int index) {
+        return children[index];
+    }
+
+    public FlexNode withFlexStyle(FlexStyle flexStyle) {
+        checkContainer();
+        return new FlexNode(flexStyle, isRtl, content, children, sizes, flexFactors, alignSelf);
+    }
+
+    public FlexNode withRtl(boolean isRtl) {
+        checkContainer();
+        return new FlexNode(flexStyle, isRtl, content, children, sizes, flexFactors, alignSelf);
+    }
+
+    public FlexNode withPaddings(int left, int top, int right, int bottom) {
+        checkContainer();
+        return withSizes(PADDING_LEFT, left, top, right, bottom);
+    }
+
+    public FlexNode withChild(int index, FlexNode child) {
+        checkContainer();
+        FlexNode[] newChildren = children.clone();
+        newChildren[index] = child;
+        return new FlexNode(flexStyle, isRtl, content, newChildren, sizes, flexFactors,
+                alignSelf);
+    }
+
+    public FlexNode withChildAdded(int index, FlexNode child) {
+        checkContainer();
+        FlexNode[] newChildren = new FlexNode[children.length + 1];
+        System.arraycopy(children, 0, newChildren, 0, index);
+        newChildren[index] = child;
+        System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+        return new FlexNode(flexStyle, isRtl, content, newChildren, sizes, flexFactors,
+                alignSelf);
+    }
+
+    public FlexNode withChildRemoved(int index) {
+        checkContainer();
+        FlexNode[] newChildren = new FlexNode[children.length - 1];
+        System.arraycopy(children, 0, newChildren, 0, index);
+        System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+        return new FlexNode(flexStyle, isRtl, content, newChildren, sizes, flexFactors,
+                alignSelf);
+    }
+
+    /**
+     * Returns a tree where the node at the path of child indexes is replaced by the result of
+     * the update. Only the nodes on the path are copied.
+     */
+    public FlexNode update(int[] path, UnaryOperator<FlexNode> update) {
+        return update(path, 0, update);
+    }
+
+    private FlexNode update(int[] path, int depth, UnaryOperator<FlexNode> update) {
+        if (depth == path.length) {
+            return update.apply(this);
+        }
+        int index = path[depth];
+        return withChild(index, children[index].update(path, depth + 1, update));
+    }
+
+    public FlexNode withContent(MeasureFunction content) {
+        if (isContainer()) {
+            throw new IllegalStateException("A container has no content");
+        }
+        return new FlexNode(null, false, content, children, sizes, flexFactors, alignSelf);
+    }
+
+    public FlexNode withSize(int width, int height) {
+        return withSizes(WIDTH, width, height);
+    }
+
+    public FlexNode withMargins(int left, int top, int right, int bottom) {
+        return withSizes(MARGIN_LEFT, left, top, right, bottom);
+    }
+
+    public FlexNode withMinSize(int width, int height) {
+        return withSizes(MIN_WIDTH, width, height);
+    }
+
+    public FlexNode withMaxSize(int width, int height) {
+        return withSizes(MAX_WIDTH, width, height);
+    }
+
+    public FlexNode withFlexGrow(float flexGrow) {
+        return withFlexFactor(FLEX_GROW, flexGrow);
+    }
+
+    public FlexNode withFlexShrink(float flexShrink) {
+        return withFlexFactor(FLEX_SHRINK, flexShrink);
+    }
+
+    public FlexNode withFlexBasisPercent(float flexBasisPercent) {
+        return withFlexFactor(FLEX_BASIS_PERCENT, flexBasisPercent);
+    }
+
+    public FlexNode withAlignSelf(AlignSelf alignSelf) {
+        return new FlexNode(flexStyle, isRtl, content, children, sizes, flexFactors, alignSelf);
+    }
+
+    private FlexNode withSizes(int offset, int... values) {
+        int[] newSizes = sizes.clone();
+        System.arraycopy(values, 0, newSizes, offset, values.length);
+        return new FlexNode(flexStyle, isRtl, content, children, newSizes, flexFactors,
+                alignSelf);
+    }
+
+    private FlexNode withFlexFactor(int index, float value) {
+        float[] newFlexFactors = flexFactors.clone();
+        newFlexFactors[index] = value;
+        return new FlexNode(flexStyle, isRtl, content, children, sizes, newFlexFactors,
+                alignSelf);
+    }
+
+    private void checkContainer() {
+        if (!isContainer()) {
+            throw new IllegalStateException("Not a container");
+        }
+    }
+
+    /** Measures and lays out the tree with this node as the root. */
+    public NodeLayout layout(int widthMode, int width, int heightMode, int height) {
+        long size = measure(widthMode, width, heightMode, height);
+        return layout(MeasureFunction.unpackWidth(size), MeasureFunction.unpackHeight(size));
+    }
+
+    /** Returns the size of this node for the constraints, packed by the measure function. */
+    public long measure(int widthMode, int width, int heightMode, int height) {
+        if (widthMode == MeasureFunction.EXACTLY && heightMode == MeasureFunction.EXACTLY) {
+            return MeasureFunction.packSize(width, height);
+        }
+        MeasureFunction measureFunction = isContainer() ? this::measureContainer : content;
+        synchronized (measureCache) {
+            return measureCache.measure(measureFunction, widthMode, width, heightMode, height);
+        }
+    }
+
+    /** Lays out the subtree of this node at the given size. */
+    public NodeLayout layout(int width, int height) {
+        NodeLayout layout = lastLayout;
+        if (layout != null && layout.width == width && layout.height == height) {
+            return layout;
+        }
+        if (!isContainer()) {
+            layout = new NodeLayout(width, height, new int[0], new NodeLayout[0]);
+        } else {
+            layout = layoutContainer(width, height);
+        }
+        lastLayout = layout;
+        return layout;
+    }
+
+    private long measureContainer(int widthMode, int width, int heightMode, int height) {
+        FlexContainerImpl container = createContainer(createItems());
+        return ContainerMeasure.measure(container, createPaddings(), widthMode, width,
+                heightMode, height);
+    }
+
+    private NodeLayout layoutContainer(int width, int height) {
+        LeafFlexItem[] items = createItems();
+        FlexContainerImpl container = createContainer(items);
+        ContainerMeasure.measure(container, createPaddings(), MeasureFunction.EXACTLY, width,
+                MeasureFunction.EXACTLY, height);
+        container.layout(0, 0, width, height, isRtl);
+        int[] childRects = new int[children.length * 4];
+        NodeLayout[] childLayouts = new NodeLayout[children.length];
+        for (int i = 0; i < children.length; i++) {
+            LeafFlexItem item = items[i];
+            childRects[i * 4] = item.getLeft();
+            childRects[i * 4 + 1] = item.getTop();
+            childRects[i * 4 + 2] = item.getRight();
+            childRects[i * 4 + 3] = item.getBottom();
+            childLayouts[i] = children[i].layout(item.getRight() - item.getLeft(),
+                    item.getBottom() - item.getTop());
+        }
+        return new NodeLayout(width, height, childRects, childLayouts);
+    }
+
+    private LeafFlexItem[] createItems() {
+        LeafFlexItem[] items = new LeafFlexItem[children.length];
+        for (int i = 0; i < children.length; i++) {
+            items[i] = children[i].createItem();
+        }
+        return items;
+    }
+
+    private FlexContainerImpl createContainer(LeafFlexItem[] items) {
+        FlexContainerImpl container = new FlexContainerImpl();
+        container.setFlexStyle(flexStyle);
+        container.setPaddings(createPaddings());
+        container.setFlexItems(Arrays.asList(items), items.length);
+        return container;
+    }
+
+    private Paddings createPaddings() {
+        Paddings paddings = new Paddings();
+        paddings.leftPadding = sizes[PADDING_LEFT];
+        paddings.topPadding = sizes[PADDING_TOP];
+        paddings.rightPadding = sizes[PADDING_RIGHT];
+        paddings.bottomPadding = sizes[PADDING_BOTTOM];
+        paddings.startPadding = isRtl ? paddings.rightPadding : paddings.leftPadding;
+        paddings.endPadding = isRtl ? paddings.leftPadding : paddings.rightPadding;
+        return paddings;
+    }
+
+    private LeafFlexItem createItem() {
+        LeafFlexItem item = new LeafFlexItem(this::measure);
+        item.setWidth(sizes[WIDTH]);
+        item.setHeight(sizes[HEIGHT]);
+        item.setMargins(sizes[MARGIN_LEFT], sizes[MARGIN_TOP], sizes[MARGIN_RIGHT],
+                sizes[MARGIN_BOTTOM]);
+        item.setMinWidth(sizes[MIN_WIDTH]);
+        item.setMinHeight(sizes[MIN_HEIGHT]);
+        item.setMaxWidth(sizes[MAX_WIDTH]);
+        item.setMaxHeight(sizes[MAX_HEIGHT]);
+        item.setFlexGrow(flexFactors[FLEX_GROW]);
+        item.setFlexShrink(flexFactors[FLEX_SHRINK]);
+        item.setFlexBasisPercent(flexFactors[FLEX_BASIS_PERCENT]);
+        item.setAlignSelf(alignSelf);
+        return item;
+    }
+}
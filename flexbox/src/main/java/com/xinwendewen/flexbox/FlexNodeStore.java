@@ -0,0 +1,679 @@
+package com.xinwendewen.flexbox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An arena of flex nodes for very large headless trees. A node is an int handle into columns of
+ * primitive arrays (the links to its parent and siblings, its style and item params, its content
+ * size, its measured size and its position) instead of an object per item, which takes 57 bytes
+ * per node. Containers share styles and nodes share item params through the tables of
+ * {@link #addStyle} and {@link #addItemParams}.
+ *
+ * <p>{@link #layout(int, int, int, int, int)} lays out the subtree of a node through a few
+ * flyweight items per tree depth, and caches the last measured size of every node for its
+ * constraints until the node or one of its descendants changes. A store is not thread safe.
+ */
+public final class FlexNodeStore {
+    public static final int NO_NODE = -1;
+    public static final int DEFAULT_ITEM_PARAMS = 0;
+
+    private static final int NO_STYLE = -1;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final byte MEASURED = 0x10;
+
+    private int nodeCount;
+    private int[] parent;
+    private int[] firstChild;
+    private int[] lastChild;
+    private int[] nextSibling;
+    private int[] style;
+    private int[] itemParams;
+    private int[] contentWidth;
+    private int[] contentHeight;
+    private int[] measuredWidth;
+    private int[] measuredHeight;
+    private int[] left;
+    private int[] top;
+    private byte[] measuredModes;
+    private int[] measuredForWidth;
+    private int[] measuredForHeight;
+
+    private int styleCount;
+    private FlexStyle[] flexStyles = new FlexStyle[8];
+    private Paddings[] paddings = new Paddings[8];
+    private boolean[] isRtl = new boolean[8];
+
+    private int paramsCount;
+    private int[] requiredWidth = new int[8];
+    private int[] requiredHeight = new int[8];
+    private float[] flexGrow = new float[8];
+    private float[] flexShrink = new float[8];
+    private float[] flexBasisPercent = new float[8];
+    private AlignSelf[] alignSelf = new AlignSelf[8];
+    private int[] margins = new int[8 * 4];
+    private int[] minMaxSizes = new int[8 * 4];
+    private boolean[] gone = new boolean[8];
+
+    private LeafMeasureFunction leafMeasureFunction;
+    private CancellationToken cancellationToken;
+    private final List<Level> levels = new ArrayList<>();
+
+    /** Measures the leaves of a store from their handles, see {@link MeasureFunction}. */
+    public interface LeafMeasureFunction {
+        long measure(FlexNodeStore store, int node, int widthMode, int width, int heightMode,
+                     int height);
+    }
+
+    public FlexNodeStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public FlexNodeStore(int nodeCapacity) {
+        allocate(Math.max(nodeCapacity, 1));
+        addDefaultItemParams();
+    }
+
+    /**
+     * Sets how the leaves are measured. Without one a leaf takes its content size within its
+     * constraints.
+     */
+    public void setLeafMeasureFunction(LeafMeasureFunction leafMeasureFunction) {
+        this.leafMeasureFunction = leafMeasureFunction;
+        Arrays.fill(measuredModes, 0, nodeCount, (byte) 0);
+    }
+
+    public int addStyle(FlexStyle flexStyle, boolean isRtl, int paddingLeft, int paddingTop,
+                        int paddingRight, int paddingBottom) {
+        if (styleCount == flexStyles.length) {
+            int capacity = styleCount * 2;
+            flexStyles = Arrays.copyOf(flexStyles, capacity);
+            paddings = Arrays.copyOf(paddings, capacity);
+            this.isRtl = Arrays.copyOf(this.isRtl, capacity);
+        }
+        Paddings containerPaddings = new Paddings();
+        containerPaddings.leftPadding = paddingLeft;
+        containerPaddings.topPadding = paddingTop;
+        containerPaddings.rightPadding = paddingRight;
+        containerPaddings.bottomPadding = paddingBottom;
+        containerPaddings.startPadding = isRtl ? paddingRight : paddingLeft;
+        containerPaddings.endPadding = isRtl ? paddingLeft : paddingRight;
+        flexStyles[styleCount] = flexStyle;
+        paddings[styleCount] = containerPaddings;
+        this.isRtl[styleCount] = isRtl;
+        return styleCount++;
+    }
+
+    public int addItemParams(int width, int height, float flexGrow, float flexShrink,
+                             float flexBasisPercent, AlignSelf alignSelf) {
+        if (paramsCount == requiredWidth.length) {
+            int capacity = paramsCount * 2;
+            requiredWidth = Arrays.copyOf(requiredWidth, capacity);
+            requiredHeight = Arrays.copyOf(requiredHeight, capacity);
+            this.flexGrow = Arrays.copyOf(this.flexGrow, capacity);
+            this.flexShrink = Arrays.copyOf(this.flexShrink, capacity);
+            this.flexBasisPercent = Arrays.copyOf(this.flexBasisPercent, capacity);
+            this.alignSelf = Arrays.copyOf(this.alignSelf, capacity);
+            margins = Arrays.copyOf(margins, capacity * 4);
+            minMaxSizes = Arrays.copyOf(minMaxSizes, capacity * 4);
+            gone = Arrays.copyOf(gone, capacity);
+        }
+        int params = paramsCount++;
+        requiredWidth[params] = width;
+        requiredHeight[params] = height;
+        this.flexGrow[params] = flexGrow;
+        this.flexShrink[params] = flexShrink;
+        this.flexBasisPercent[params] = flexBasisPercent;
+        this.alignSelf[params] = alignSelf;
+        // new params are not used by any node yet, so nothing needs to be invalidated, but a
+        // slot reused after clear() still holds the values of its previous params
+        Arrays.fill(margins, params * 4, params * 4 + 4, 0);
+        minMaxSizes[params * 4] = 0;
+        minMaxSizes[params * 4 + 1] = 0;
+        minMaxSizes[params * 4 + 2] = Integer.MAX_VALUE;
+        minMaxSizes[params * 4 + 3] = Integer.MAX_VALUE;
+        gone[params] = false;
+        return params;
+    }
+
+    private void addDefaultItemParams() {
+        addItemParams(LeafFlexItem.WRAP_CONTENT, LeafFlexItem.WRAP_CONTENT, 0, 1,
+                LeafFlexItem.NOT_SET, AlignSelf.AUTO);
+    }
+
+    public void setItemMargins(int params, int left, int top, int right, int bottom) {
+        checkParams(params);
+        margins[params * 4] = left;
+        margins[params * 4 + 1] = top;
+        margins[params * 4 + 2] = right;
+        margins[params * 4 + 3] = bottom;
+        invalidateAll();
+    }
+
+    public void setItemMinSize(int params, int minWidth, int minHeight) {
+        checkParams(params);
+        minMaxSizes[params * 4] = minWidth;
+        minMaxSizes[params * 4 + 1] = minHeight;
+        invalidateAll();
+    }
+
+    public void setItemMaxSize(int params, int maxWidth, int maxHeight) {
+        checkParams(params);
+        minMaxSizes[params * 4 + 2] = maxWidth;
+        minMaxSizes[params * 4 + 3] = maxHeight;
+        invalidateAll();
+    }
+
+    public void setItemGone(int params, boolean gone) {
+        checkParams(params);
+        this.gone[params] = gone;
+        invalidateAll();
+    }
+
+    public int createContainer(int parent, int style, int itemParams) {
+        if (style < 0 || style >= styleCount) {
+            throw new IllegalArgumentException("Unknown style: " + style);
+        }
+        return createNode(parent, style, itemParams, 0, 0);
+    }
+
+    public int createLeaf(int parent, int itemParams, int contentWidth, int contentHeight) {
+        return createNode(parent, NO_STYLE, itemParams, contentWidth, contentHeight);
+    }
+
+    private int createNode(int parent, int style, int itemParams, int contentWidth,
+                           int contentHeight) {
+        checkParams(itemParams);
+        if (parent != NO_NODE && !isContainer(parent)) {
+            throw new IllegalArgumentException("Not a container: " + parent);
+        }
+        if (nodeCount == this.parent.length) {
+            allocate(nodeCount * 2);
+        }
+        int node = nodeCount++;
+        this.parent[node] = parent;
+        firstChild[node] = NO_NODE;
+        lastChild[node] = NO_NODE;
+        nextSibling[node] = NO_NODE;
+        this.style[node] = style;
+        this.itemParams[node] = itemParams;
+        this.contentWidth[node] = contentWidth;
+        this.contentHeight[node] = contentHeight;
+        measuredWidth[node] = 0;
+        measuredHeight[node] = 0;
+        left[node] = 0;
+        top[node] = 0;
+        measuredModes[node] = 0;
+        if (parent != NO_NODE) {
+            if (lastChild[parent] == NO_NODE) {
+                firstChild[parent] = node;
+            } else {
+                nextSibling[lastChild[parent]] = node;
+            }
+            lastChild[parent] = node;
+            invalidate(parent);
+        }
+        return node;
+    }
+
+    /** Removes all the nodes, styles and item params but keeps the allocated columns. */
+    public void clear() {
+        nodeCount = 0;
+        Arrays.fill(flexStyles, 0, styleCount, null);
+        Arrays.fill(paddings, 0, styleCount, null);
+        styleCount = 0;
+        // the default params may have been changed as well
+        paramsCount = 0;
+        addDefaultItemParams();
+    }
+
+    public void setContentSize(int node, int contentWidth, int contentHeight) {
+        checkNode(node);
+        this.contentWidth[node] = contentWidth;
+        this.contentHeight[node] = contentHeight;
+        invalidate(node);
+    }
+
+    public void setItemParams(int node, int itemParams) {
+        checkNode(node);
+        checkParams(itemParams);
+        this.itemParams[node] = itemParams;
+        invalidate(node);
+    }
+
+    public void setStyle(int node, int style) {
+        checkNode(node);
+        if (!isContainer(node) || style < 0 || style >= styleCount) {
+            throw new IllegalArgumentException("Cannot set style " + style + " on " + node);
+        }
+        this.style[node] = style;
+        invalidate(node);
+    }
+
+    /** Drops the measured sizes of the node and its ancestors after its content changed. */
+    public void invalidate(int node) {
+        checkNode(node);
+        for (int n = node; n != NO_NODE; n = parent[n]) {
+            measuredModes[n] = 0;
+        }
+    }
+
+    private void invalidateAll() {
+        Arrays.fill(measuredModes, 0, nodeCount, (byte) 0);
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public boolean isContainer(int node) {
+        checkNode(node);
+        return style[node] != NO_STYLE;
+    }
+
+    public int getParent(int node) {
+        checkNode(node);
+        return parent[node];
+    }
+
+    public int getFirstChild(int node) {
+        checkNode(node);
+        return firstChild[node];
+    }
+
+    public int getNextSibling(int node) {
+        checkNode(node);
+        return nextSibling[node];
+    }
+
+    public int getContentWidth(int node) {
+        checkNode(node);
+        return contentWidth[node];
+    }
+
+    public int getContentHeight(int node) {
+        checkNode(node);
+        return contentHeight[node];
+    }
+
+    /** The left of the node relative to its parent, after a layout. */
+    public int getLeft(int node) {
+        checkNode(node);
+        return left[node];
+    }
+
+    /** The top of the node relative to its parent, after a layout. */
+    public int getTop(int node) {
+        checkNode(node);
+        return top[node];
+    }
+
+    public int getWidth(int node) {
+        checkNode(node);
+        return measuredWidth[node];
+    }
+
+    public int getHeight(int node) {
+        checkNode(node);
+        return measuredHeight[node];
+    }
+
+    /**
+     * Measures the subtree of the node for the given constraints and lays it out at its measured
+     * size, at (0, 0).
+     *
+     * @return the measured size packed by {@link MeasureFunction#packSize(int, int)}
+     */
+    public long layout(int node, int widthMode, int width, int heightMode, int height) {
+        checkNode(node);
+        measureNode(node, 0, widthMode, width, heightMode, height);
+        left[node] = 0;
+        top[node] = 0;
+        layoutNode(node, 0, measuredWidth[node], measuredHeight[node]);
+        return MeasureFunction.packSize(measuredWidth[node], measuredHeight[node]);
+    }
+
+    /**
+     * Like {@link #layout(int, int, int, int, int)}, but stops with a
+     * {@link LayoutCancelledException} once the token is cancelled. The nodes keep the sizes
+     * measured so far and can be laid out again.
+     */
+    public long layout(int node, int widthMode, int width, int heightMode, int height,
+                       CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+        try {
+            return layout(node, widthMode, width, heightMode, height);
+        } finally {
+            this.cancellationToken = null;
+        }
+    }
+
+    private void layoutNode(int node, int depth, int width, int height) {
+        if (!isContainer(node)) {
+            return;
+        }
+        Level level = runPass(node, depth, MeasureFunction.EXACTLY, width,
+                MeasureFunction.EXACTLY, height);
+        level.container.layout(0, 0, width, height, isRtl[style[node]]);
+        for (int child = firstChild[node]; child != NO_NODE; child = nextSibling[child]) {
+            if (style[child] != NO_STYLE && !gone[itemParams[child]]) {
+                layoutNode(child, depth + 1, measuredWidth[child], measuredHeight[child]);
+            }
+        }
+    }
+
+    private void measureNode(int node, int depth, int widthMode, int width, int heightMode,
+                             int height) {
+        if (widthMode == MeasureFunction.UNSPECIFIED) {
+            width = 0;
+        }
+        if (heightMode == MeasureFunction.UNSPECIFIED) {
+            height = 0;
+        }
+        byte modes = (byte) (MEASURED | widthMode << 2 | heightMode);
+        if (measuredModes[node] == modes && measuredForWidth[node] == width
+                && measuredForHeight[node] == height) {
+            return;
+        }
+        long size;
+        if (widthMode == MeasureFunction.EXACTLY && heightMode == MeasureFunction.EXACTLY) {
+            size = MeasureFunction.packSize(width, height);
+        } else if (style[node] != NO_STYLE) {
+            Level level = runPass(node, depth, widthMode, width, heightMode, height);
+            size = level.size;
+        } else if (leafMeasureFunction != null) {
+            size = leafMeasureFunction.measure(this, node, widthMode, width, heightMode, height);
+        } else {
+            size = MeasureFunction.packSize(
+                    resolveContentSize(contentWidth[node], widthMode, width),
+                    resolveContentSize(contentHeight[node], heightMode, height));
+        }
+        setMeasuredSize(node, MeasureFunction.unpackWidth(size),
+                MeasureFunction.unpackHeight(size), modes, width, height);
+    }
+
+    private void setMeasuredSize(int node, int width, int height, byte modes, int widthSize,
+                                 int heightSize) {
+        measuredWidth[node] = width;
+        measuredHeight[node] = height;
+        measuredModes[node] = modes;
+        measuredForWidth[node] = widthSize;
+        measuredForHeight[node] = heightSize;
+    }
+
+    private static int resolveContentSize(int contentSize, int mode, int size) {
+        switch (mode) {
+            case MeasureFunction.EXACTLY:
+                return size;
+            case MeasureFunction.AT_MOST:
+                return Math.min(contentSize, size);
+            default:
+                return contentSize;
+        }
+    }
+
+    private Level runPass(int node, int depth, int widthMode, int width, int heightMode,
+                          int height) {
+        while (levels.size() <= depth) {
+            levels.add(new Level(levels.size()));
+        }
+        Level level = levels.get(depth);
+        int count = 0;
+        for (int child = firstChild[node]; child != NO_NODE; child = nextSibling[child]) {
+            level.obtainItem(count++).node = child;
+        }
+        FlexContainerImpl container = level.container;
+        Paddings containerPaddings = paddings[style[node]];
+        container.setCancellationToken(cancellationToken);
+        container.setFlexStyle(flexStyles[style[node]]);
+        container.setPaddings(containerPaddings);
+        container.setFlexItems(level.items, count);
+        level.size = ContainerMeasure.measure(container, containerPaddings, widthMode, width,
+                heightMode, height);
+        return level;
+    }
+
+    private void allocate(int capacity) {
+        parent = grow(parent, capacity);
+        firstChild = grow(firstChild, capacity);
+        lastChild = grow(lastChild, capacity);
+        nextSibling = grow(nextSibling, capacity);
+        style = grow(style, capacity);
+        itemParams = grow(itemParams, capacity);
+        contentWidth = grow(contentWidth, capacity);
+        contentHeight = grow(contentHeight, capacity);
+        measuredWidth = grow(measuredWidth, capacity);
+        measuredHeight = grow(measuredHeight, capacity);
+        left = grow(left, capacity);
+        top = grow(top, capacity);
+        measuredModes = measuredModes == null ? new byte[capacity]
+                : Arrays.copyOf(measuredModes, capacity);
+        measuredForWidth = grow(measuredForWidth, capacity);
+        measuredForHeight = grow(measuredForHeight, capacity);
+    }
+
+    private static int[] grow(int[] column, int capacity) {
+        return column == null ? new int[capacity] : Arrays.copyOf(column, capacity);
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= nodeCount) {
+            throw new IndexOutOfBoundsException("Unknown node: " + node);
+        }
+    }
+
+    private void checkParams(int params) {
+        if (params < 0 || params >= paramsCount) {
+            throw new IndexOutOfBoundsException("Unknown item params: " + params);
+        }
+    }
+
+    /**
+     * The container and the flyweight items that measure and lay out the children of the
+     * containers at one depth of the tree, reused by all of them.
+     */
+    private final class Level {
+        final int depth;
+        final FlexContainerImpl container = new FlexContainerImpl();
+        final List<NodeItem> items = new ArrayList<>();
+        long size;
+
+        Level(int depth) {
+            this.depth = depth;
+        }
+
+        NodeItem obtainItem(int index) {
+            if (index == items.size()) {
+                items.add(new NodeItem(depth + 1));
+            }
+            return items.get(index);
+        }
+    }
+
+    private final class NodeItem extends BaseFlexItem {
+        final int childDepth;
+        int node;
+
+        NodeItem(int childDepth) {
+            this.childDepth = childDepth;
+        }
+
+        private int params() {
+            return itemParams[node];
+        }
+
+        @Override
+        public int getMeasuredWidth() {
+            return measuredWidth[node];
+        }
+
+        @Override
+        public int getMeasuredHeight() {
+            return measuredHeight[node];
+        }
+
+        @Override
+        public boolean isGone() {
+            return gone[params()];
+        }
+
+        @Override
+        public boolean requireCrossSizeMatchParent(boolean isMainAxisHorizontal) {
+            int params = params();
+            return (isMainAxisHorizontal ? requiredHeight[params] : requiredWidth[params])
+                    == LeafFlexItem.MATCH_PARENT;
+        }
+
+        @Override
+        public float getFlexGrow() {
+            return flexGrow[params()];
+        }
+
+        @Override
+        public float getFlexShrink() {
+            return flexShrink[params()];
+        }
+
+        @Override
+        public AlignSelf getAlignSelf() {
+            return alignSelf[params()];
+        }
+
+        @Override
+        protected float getFlexBasisPercent() {
+            return flexBasisPercent[params()];
+        }
+
+        @Override
+        protected boolean isFlexBasisPercentSet() {
+            return flexBasisPercent[params()] != LeafFlexItem.NOT_SET;
+        }
+
+        @Override
+        protected boolean isFlexShrinkSet() {
+            return flexShrink[params()] != LeafFlexItem.NOT_SET;
+        }
+
+        @Override
+        protected boolean isFlexGrowSet() {
+            return flexGrow[params()] != LeafFlexItem.NOT_SET;
+        }
+
+        @Override
+        protected int getMarginStart() {
+            return getMarginLeft();
+        }
+
+        @Override
+        protected int getMarginEnd() {
+            return getMarginRight();
+        }
+
+        @Override
+        public int getMarginLeft() {
+            return margins[params() * 4];
+        }
+
+        @Override
+        public int getMarginTop() {
+            return margins[params() * 4 + 1];
+        }
+
+        @Override
+        public int getMarginRight() {
+            return margins[params() * 4 + 2];
+        }
+
+        @Override
+        public int getMarginBottom() {
+            return margins[params() * 4 + 3];
+        }
+
+        @Override
+        public int getMinWidth() {
+            return minMaxSizes[params() * 4];
+        }
+
+        @Override
+        public int getMinHeight() {
+            return minMaxSizes[params() * 4 + 1];
+        }
+
+        @Override
+        public int getMaxWidth() {
+            return minMaxSizes[params() * 4 + 2];
+        }
+
+        @Override
+        public int getMaxHeight() {
+            return minMaxSizes[params() * 4 + 3];
+        }
+
+        @Override
+        protected int getMeasuredBaseline() {
+            return -1;
+        }
+
+        @Override
+        protected int getRequiredWidth() {
+            return requiredWidth[params()];
+        }
+
+        @Override
+        protected int getRequiredHeight() {
+            return requiredHeight[params()];
+        }
+
+        @Override
+        protected void measure(MeasureRequest parentWidthMeasureRequest, int parentOccupiedWidth,
+                               int expectedWidth, MeasureRequest parentHeightMeasureRequest,
+                               int parentOccupiedHeight, int expectedHeight) {
+            int occupiedWidth = parentOccupiedWidth + getMarginLeft() + getMarginRight();
+            int occupiedHeight = parentOccupiedHeight + getMarginTop() + getMarginBottom();
+            measureNode(node, childDepth,
+                    LeafFlexItem.getChildMode(parentWidthMeasureRequest, expectedWidth),
+                    LeafFlexItem.getChildSize(parentWidthMeasureRequest, occupiedWidth,
+                            expectedWidth),
+                    LeafFlexItem.getChildMode(parentHeightMeasureRequest, expectedHeight),
+                    LeafFlexItem.getChildSize(parentHeightMeasureRequest, occupiedHeight,
+                            expectedHeight));
+        }
+
+        @Override
+        protected void fixedSizeMeasure(int width, int height) {
+            measureNode(node, childDepth, MeasureFunction.EXACTLY, width, MeasureFunction.EXACTLY,
+                    height);
+        }
+
+        @Override
+        protected void fixedWidthMeasure(int width, MeasureRequest parentHeightMeasureRequest,
+                                         int parentOccupiedHeight, int expectedHeight) {
+            int occupiedHeight = parentOccupiedHeight + getMarginTop() + getMarginBottom();
+            measureNode(node, childDepth, MeasureFunction.EXACTLY, width,
+                    LeafFlexItem.getChildMode(parentHeightMeasureRequest, expectedHeight),
+                    LeafFlexItem.getChildSize(parentHeightMeasureRequest, occupiedHeight,
+                            expectedHeight));
+        }
+
+        @Override
+        protected void fixedHeightMeasure(int height, MeasureRequest parentWidthMeasureRequest,
+                                          int parentOccupiedWidth, int expectedWidth) {
+            int occupiedWidth = parentOccupiedWidth + getMarginLeft() + getMarginRight();
+            measureNode(node, childDepth,
+                    LeafFlexItem.getChildMode(parentWidthMeasureRequest, expectedWidth),
+                    LeafFlexItem.getChildSize(parentWidthMeasureRequest, occupiedWidth,
+                            expectedWidth),
+                    MeasureFunction.EXACTLY, height);
+        }
+
+        @Override
+        protected void layout(int left, int top, int right, int bottom) {
+            FlexNodeStore.this.left[node] = left;
+            FlexNodeStore.this.top[node] = top;
+            setMeasuredSize(node, right - left, bottom - top,
+                    (byte) (MEASURED | MeasureFunction.EXACTLY << 2 | MeasureFunction.EXACTLY),
+                    right - left, bottom - top);
+        }
+    }
+}
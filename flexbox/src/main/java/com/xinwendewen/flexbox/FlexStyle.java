@@ -0,0 +1,238 @@
+package com.xinwendewen.flexbox;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The immutable flex properties of a container. Instances are interned: two styles with the
+ * same properties are the same instance, so styles can be shared by any number of containers and
+ * compared by identity. The interning is weak, a style nobody refers to any more is collected.
+ */
+public final class FlexStyle {
+    public static final int NOT_SET = -1;
+
+    public static final int CHANGED_FLEX_DIRECTION = 1;
+    public static final int CHANGED_FLEX_WRAP = 1 << 1;
+    public static final int CHANGED_JUSTIFY_CONTENT = 1 << 2;
+    public static final int CHANGED_ALIGN_ITEMS = 1 << 3;
+    public static final int CHANGED_ALIGN_CONTENT = 1 << 4;
+    public static final int CHANGED_MAX_LINE = 1 << 5;
+    public static final int CHANGED_MAIN_GAP = 1 << 6;
+    public static final int CHANGED_CROSS_GAP = 1 << 7;
+
+    /** The changes that only move items and leave their sizes and the flex lines unchanged. */
+    public static final int LAYOUT_ONLY_CHANGES = CHANGED_JUSTIFY_CONTENT;
+
+    // the values are weak too, a strong value would keep its own key reachable
+    private static final Map<FlexStyle, WeakReference<FlexStyle>> INTERNED = new WeakHashMap<>();
+
+    public static final FlexStyle DEFAULT = intern(new FlexStyle(FlexDirection.ROW,
+            FlexWrap.NOWRAP, JustifyContent.FLEX_START, AlignItems.STRETCH,
+            AlignContent.STRETCH, NOT_SET, 0, 0));
+
+    public final FlexDirection flexDirection;
+    public final FlexWrap flexWrap;
+    public final JustifyContent justifyContent;
+    public final AlignItems alignItems;
+    public final AlignContent alignContent;
+    public final int maxLine;
+    public final int mainGap;
+    public final int crossGap;
+    final FlexAxis axis;
+    private final boolean isMainAxisReversed;
+    private final boolean isMainAxisReversedRtl;
+    private final boolean isCrossAxisReversed;
+    private final boolean isCrossAxisReversedRtl;
+    private final int hashCode;
+
+    private FlexStyle(FlexDirection flexDirection, FlexWrap flexWrap,
+                      JustifyContent justifyContent, AlignItems alignItems,
+                      AlignContent alignContent, int maxLine, int mainGap, int crossGap) {
+        this.flexDirection = flexDirection;
+        this.flexWrap = flexWrap;
+        this.justifyContent = justifyContent;
+        this.alignItems = alignItems;
+        this.alignContent = alignContent;
+        this.maxLine = maxLine;
+        this.mainGap = mainGap;
+        this.crossGap = crossGap;
+        axis = FlexAxis.of(flexDirection);
+        isMainAxisReversed = resolveMainAxisReversed(flexDirection, false);
+        isMainAxisReversedRtl = resolveMainAxisReversed(flexDirection, true);
+        isCrossAxisReversed = resolveCrossAxisReversed(flexDirection, flexWrap, false);
+        isCrossAxisReversedRtl = resolveCrossAxisReversed(flexDirection, flexWrap, true);
+        int hash = flexDirection.ordinal();
+        hash = 31 * hash + flexWrap.ordinal();
+        hash = 31 * hash + justifyContent.ordinal();
+        hash = 31 * hash + alignItems.ordinal();
+        hash = 31 * hash + alignContent.ordinal();
+        hash = 31 * hash + maxLine;
+        hash = 31 * hash + mainGap;
+        hash = 31 * hash + crossGap;
+        hashCode = hash;
+    }
+
+    public static FlexStyle of(FlexDirection flexDirection, FlexWrap flexWrap,
+                               JustifyContent justifyContent, AlignItems alignItems,
+                               AlignContent alignContent, int maxLine, int mainGap,
+                               int crossGap) {
+        return intern(new FlexStyle(flexDirection, flexWrap, justifyContent, alignItems,
+                alignContent, maxLine, mainGap, crossGap));
+    }
+
+    private static FlexStyle intern(FlexStyle style) {
+        synchronized (INTERNED) {
+            WeakReference<FlexStyle> reference = INTERNED.get(style);
+            FlexStyle interned = reference != null ? reference.get() : null;
+            if (interned != null) {
+                return interned;
+            }
+            INTERNED.put(style, new WeakReference<>(style));
+            return style;
+        }
+    }
+
+    public FlexStyle withFlexDirection(FlexDirection flexDirection) {
+        return of(flexDirection, flexWrap, justifyContent, alignItems, alignContent, maxLine,
+                mainGap, crossGap);
+    }
+
+    public FlexStyle withFlexWrap(FlexWrap flexWrap) {
+        return of(flexDirection, flexWrap, justifyContent, alignItems, alignContent, maxLine,
+                mainGap, crossGap);
+    }
+
+    public FlexStyle withJustifyContent(JustifyContent justifyContent) {
+        return of(flexDirection, flexWrap, justifyContent, alignItems, alignContent, maxLine,
+                mainGap, crossGap);
+    }
+
+    public FlexStyle withAlignItems(AlignItems alignItems) {
+        return of(flexDirection, flexWrap, justifyContent, alignItems, alignContent, maxLine,
+                mainGap, crossGap);
+    }
+
+    public FlexStyle withAlignContent(AlignContent alignContent) {
+        return of(flexDirection, flexWrap, justifyContent, alignItems, alignContent, maxLine,
+                mainGap, crossGap);
+    }
+
+    public FlexStyle withMaxLine(int maxLine) {
+        return of(flexDirection, flexWrap, justifyContent, alignItems, alignContent, maxLine,
+                mainGap, crossGap);
+    }
+
+    public FlexStyle withGaps(int mainGap, int crossGap) {
+        return of(flexDirection, flexWrap, justifyContent, alignItems, alignContent, maxLine,
+                mainGap, crossGap);
+    }
+
+    /**
+     * Returns the sum of the cross gaps of the lines. Gaps are only put between lines with items,
+     * so empty lines, like the spacing lines of {@link AlignContent}, add none.
+     */
+    public int getCrossGaps(List<FlexLine> flexLines) {
+        int nonEmptyLineCount = 0;
+        for (int i = 0, size = flexLines.size(); i < size; i++) {
+            if (flexLines.get(i).getItemCount() > 0) {
+                nonEmptyLineCount++;
+            }
+        }
+        return nonEmptyLineCount > 1 ? crossGap * (nonEmptyLineCount - 1) : 0;
+    }
+
+    /** Returns the cross gap that follows the line, none if it is empty. */
+    int getCrossGapAfter(FlexLine flexLine) {
+        return flexLine.getItemCount() > 0 ? crossGap : 0;
+    }
+
+    public boolean isMainAxisHorizontal() {
+        return axis.isHorizontal;
+    }
+
+    public boolean isMainAxisReversed(boolean isRtl) {
+        return isRtl ? isMainAxisReversedRtl : isMainAxisReversed;
+    }
+
+    public boolean isCrossAxisReversed(boolean isRtl) {
+        return isRtl ? isCrossAxisReversedRtl : isCrossAxisReversed;
+    }
+
+    private static boolean resolveMainAxisReversed(FlexDirection flexDirection, boolean isRtl) {
+        switch (flexDirection) {
+            case ROW:
+                return isRtl;
+            case ROW_REVERSE:
+                return !isRtl;
+            case COLUMN_REVERSE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean resolveCrossAxisReversed(FlexDirection flexDirection,
+                                                    FlexWrap flexWrap, boolean isRtl) {
+        switch (flexDirection) {
+            case ROW:
+            case ROW_REVERSE:
+                return flexWrap == FlexWrap.WRAP_REVERSE;
+            default:
+                return isRtl ? flexWrap == FlexWrap.WRAP : flexWrap == FlexWrap.WRAP_REVERSE;
+        }
+    }
+
+    /**
+     * @return the {@code CHANGED_*} flags of the properties that differ from the other style
+     */
+    public int diff(FlexStyle other) {
+        if (this == other) {
+            return 0;
+        }
+        int changes = 0;
+        if (flexDirection != other.flexDirection) {
+            changes |= CHANGED_FLEX_DIRECTION;
+        }
+        if (flexWrap != other.flexWrap) {
+            changes |= CHANGED_FLEX_WRAP;
+        }
+        if (justifyContent != other.justifyContent) {
+            changes |= CHANGED_JUSTIFY_CONTENT;
+        }
+        if (alignItems != other.alignItems) {
+            changes |= CHANGED_ALIGN_ITEMS;
+        }
+        if (alignContent != other.alignContent) {
+            changes |= CHANGED_ALIGN_CONTENT;
+        }
+        if (maxLine != other.maxLine) {
+            changes |= CHANGED_MAX_LINE;
+        }
+        if (mainGap != other.mainGap) {
+            changes |= CHANGED_MAIN_GAP;
+        }
+        if (crossGap != other.crossGap) {
+            changes |= CHANGED_CROSS_GAP;
+        }
+        return changes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FlexStyle)) {
+            return false;
+        }
+        FlexStyle other = (FlexStyle) o;
+        return hashCode == other.hashCode && diff(other) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
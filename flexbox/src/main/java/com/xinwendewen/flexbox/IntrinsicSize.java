@@ -0,0 +1,40 @@
+package com.xinwendewen.flexbox;
+
+/**
+ * The content of a leaf with a fixed natural size, e.g. an image, shrunk to the available size
+ * when measured at most.
+ */
+public final class IntrinsicSize implements MeasureFunction {
+    private final int width;
+    private final int height;
+
+    public IntrinsicSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public long measure(int widthMode, int width, int heightMode, int height) {
+        return MeasureFunction.packSize(resolve(this.width, widthMode, width),
+                resolve(this.height, heightMode, height));
+    }
+
+    private static int resolve(int intrinsicSize, int mode, int size) {
+        switch (mode) {
+            case EXACTLY:
+                return size;
+            case AT_MOST:
+                return Math.min(intrinsicSize, size);
+            default:
+                return intrinsicSize;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.xinwendewen.flexbox;
+
+import java.util.concurrent.CancellationException;
+
+/** Thrown by a measure or layout pass whose {@link CancellationToken} was cancelled. */
+public class LayoutCancelledException extends CancellationException {
+    private static final long serialVersionUID = 1L;
+
+    public LayoutCancelledException(String message) {
+        super(message);
+    }
+}
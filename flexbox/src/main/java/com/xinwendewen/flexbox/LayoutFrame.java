@@ -0,0 +1,115 @@
+package com.xinwendewen.flexbox;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The results of one finished layout pass, published by a {@link LayoutFramePublisher}. A frame
+ * never changes while it is acquired; {@link #release()} it when done so that its buffer can be
+ * reused by a later pass.
+ */
+public final class LayoutFrame {
+    static final int WRITING = -1;
+
+    // the number of readers holding the frame, or WRITING while a pass fills it
+    final AtomicInteger holdCount = new AtomicInteger();
+    IntBuffer ints = IntBuffer.allocate(0);
+    LayoutResultBuffer resultBuffer = new LayoutResultBuffer(ints);
+    private int[] itemOffsets = new int[0];
+    private int itemCount;
+    private long frameNumber;
+    private int width;
+    private int height;
+
+    void ensureCapacity(int itemCount) {
+        int requiredInts = LayoutResultBuffer.getRequiredBytes(itemCount) / 4;
+        if (ints.capacity() < requiredInts) {
+            ints = IntBuffer.allocate(requiredInts);
+            resultBuffer = new LayoutResultBuffer(ints);
+        }
+    }
+
+    void finish(long frameNumber, int width, int height) {
+        this.frameNumber = frameNumber;
+        this.width = width;
+        this.height = height;
+        itemCount = ints.get(0);
+        if (itemOffsets.length < itemCount) {
+            itemOffsets = new int[itemCount];
+        }
+        int offset = LayoutResultBuffer.HEADER_SIZE;
+        int itemIndex = 0;
+        int lineCount = ints.get(1);
+        for (int i = 0; i < lineCount; i++) {
+            int lineItemCount = ints.get(offset + 2);
+            offset += LayoutResultBuffer.LINE_SIZE;
+            for (int j = 0; j < lineItemCount; j++) {
+                itemOffsets[itemIndex++] = offset;
+                offset += LayoutResultBuffer.ITEM_SIZE;
+            }
+        }
+    }
+
+    public long getFrameNumber() {
+        return frameNumber;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public int getLineCount() {
+        return ints.get(1);
+    }
+
+    public int getItemLeft(int index) {
+        return ints.get(getItemOffset(index));
+    }
+
+    public int getItemTop(int index) {
+        return ints.get(getItemOffset(index) + 1);
+    }
+
+    public int getItemRight(int index) {
+        return ints.get(getItemOffset(index) + 2);
+    }
+
+    public int getItemBottom(int index) {
+        return ints.get(getItemOffset(index) + 3);
+    }
+
+    /** Returns a read-only view of the results in the {@link LayoutResultBuffer} format. */
+    public IntBuffer getResults() {
+        IntBuffer results = ints.asReadOnlyBuffer();
+        results.position(0);
+        results.limit(resultBuffer.getSize());
+        return results.slice();
+    }
+
+    public void release() {
+        if (holdCount.getAndDecrement() <= 0) {
+            holdCount.incrementAndGet();
+            throw new IllegalStateException("The frame is not acquired");
+        }
+    }
+
+    boolean tryAcquire() {
+        int count = holdCount.get();
+        return count != WRITING && holdCount.compareAndSet(count, count + 1);
+    }
+
+    private int getItemOffset(int index) {
+        if (index < 0 || index >= itemCount) {
+            throw new IndexOutOfBoundsException("Item " + index + " of " + itemCount);
+        }
+        return itemOffsets[index];
+    }
+}
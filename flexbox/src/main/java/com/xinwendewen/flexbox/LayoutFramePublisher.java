@@ -0,0 +1,84 @@
+package com.xinwendewen.flexbox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands the results of the layout passes of one thread over to other threads, e.g. from a
+ * layout thread to a render thread. The layout thread fills a frame that no reader holds, and
+ * publishes it with a single atomic reference swap; readers {@link #acquire()} the latest
+ * frame without blocking, and never see a frame that a pass is still writing.
+ *
+ * <p>Three frames are kept, so that a pass never waits for a reader holding the previous
+ * frame; when readers hold more frames than that, a new frame is allocated.
+ * <pre>
+ * LayoutResultBuffer results = publisher.beginFrame(itemCount);
+ * container.setLayoutResultBuffer(results);
+ * container.measure(...);
+ * container.layout(0, 0, width, height, isRtl);
+ * publisher.publish(width, height);
+ * </pre>
+ */
+public final class LayoutFramePublisher {
+    private static final int INITIAL_FRAME_COUNT = 3;
+
+    private final AtomicReference<LayoutFrame> latestFrame = new AtomicReference<>();
+    // only touched by the layout thread
+    private final List<LayoutFrame> frames = new ArrayList<>();
+    private LayoutFrame writingFrame;
+    private long frameCount;
+
+    public LayoutFramePublisher() {
+        for (int i = 0; i < INITIAL_FRAME_COUNT; i++) {
+            frames.add(new LayoutFrame());
+        }
+    }
+
+    /** Returns the buffer for the results of the next pass, over at most the given items. */
+    public LayoutResultBuffer beginFrame(int itemCount) {
+        if (writingFrame == null) {
+            writingFrame = claimFrame();
+        }
+        writingFrame.ensureCapacity(itemCount);
+        return writingFrame.resultBuffer;
+    }
+
+    /** Publishes the results written since {@link #beginFrame}. */
+    public void publish(int width, int height) {
+        if (writingFrame == null) {
+            throw new IllegalStateException("No frame begun");
+        }
+        writingFrame.finish(++frameCount, width, height);
+        writingFrame.holdCount.set(0);
+        latestFrame.set(writingFrame);
+        writingFrame = null;
+    }
+
+    /**
+     * Returns the latest published frame, held until {@link LayoutFrame#release()}, or
+     * {@code null} if none was published yet.
+     */
+    public LayoutFrame acquire() {
+        while (true) {
+            LayoutFrame frame = latestFrame.get();
+            if (frame == null || frame.tryAcquire()) {
+                return frame;
+            }
+            // the frame was claimed for a new pass since, a newer one is published by now
+        }
+    }
+
+    private LayoutFrame claimFrame() {
+        LayoutFrame latest = latestFrame.get();
+        for (LayoutFrame frame : frames) {
+            if (frame != latest && frame.holdCount.compareAndSet(0, LayoutFrame.WRITING)) {
+                return frame;
+            }
+        }
+        LayoutFrame frame = new LayoutFrame();
+        frame.holdCount.set(LayoutFrame.WRITING);
+        frames.add(frame);
+        return frame;
+    }
+}
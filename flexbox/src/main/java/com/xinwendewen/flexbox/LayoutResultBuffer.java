@@ -0,0 +1,119 @@
+package com.xinwendewen.flexbox;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Receives the results of a layout pass as plain ints in a caller provided buffer, so that a
+ * native renderer can read them from a direct {@link ByteBuffer} without intermediate objects.
+ * The same buffer is rewritten by every pass of the container it is set on.
+ *
+ * <p>The buffer holds, in order:
+ * <pre>
+ * header:   itemCount, lineCount
+ * per line: mainSize, crossSize, lineItemCount,
+ *           then per item of the line: left, top, right, bottom
+ * </pre>
+ * Lines and items appear in layout order, and item rects are relative to the container like
+ * the rects passed to {@link BaseFlexItem#layout(int, int, int, int)}. Lines without items are
+ * skipped.
+ */
+public final class LayoutResultBuffer {
+    public static final int HEADER_SIZE = 2;
+    public static final int LINE_SIZE = 3;
+    public static final int ITEM_SIZE = 4;
+    static final int ITEM_COUNT_UNKNOWN = -1;
+
+    private final IntBuffer buffer;
+    private int itemCount;
+    private int lineCount;
+
+    public LayoutResultBuffer(IntBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Wraps the bytes from the position to the limit of the buffer, written in native byte
+     * order. The position and the byte order of the buffer itself are left untouched.
+     */
+    public static LayoutResultBuffer wrap(ByteBuffer buffer) {
+        return new LayoutResultBuffer(
+                buffer.duplicate().order(ByteOrder.nativeOrder()).asIntBuffer());
+    }
+
+    /**
+     * Returns the number of bytes a pass over the given number of items can write at most,
+     * with every item on a line of its own.
+     */
+    public static int getRequiredBytes(int itemCount) {
+        return (HEADER_SIZE + itemCount * (LINE_SIZE + ITEM_SIZE)) * 4;
+    }
+
+    public IntBuffer getBuffer() {
+        return buffer;
+    }
+
+    /** Returns the number of ints written by the last pass. */
+    public int getSize() {
+        return buffer.position();
+    }
+
+    /**
+     * Starts a pass over the given number of items, or {@link #ITEM_COUNT_UNKNOWN} for a
+     * streaming pass, which can only check the capacity line by line.
+     *
+     * @throws IllegalArgumentException if the buffer is too small for the items
+     */
+    void start(int itemCount) {
+        if (itemCount != ITEM_COUNT_UNKNOWN && buffer.limit() < getRequiredBytes(itemCount) / 4) {
+            throw new IllegalArgumentException("The buffer holds " + buffer.limit()
+                    + " ints, a pass over " + itemCount + " items needs "
+                    + getRequiredBytes(itemCount) / 4);
+        }
+        this.itemCount = 0;
+        lineCount = 0;
+        buffer.position(HEADER_SIZE);
+    }
+
+    void putFlexLine(FlexLine flexLine) {
+        int lineSize = LINE_SIZE + flexLine.getItemCount() * ITEM_SIZE;
+        if (buffer.remaining() < lineSize) {
+            throw new IllegalArgumentException("The buffer holds " + buffer.limit()
+                    + " ints, too few for line " + lineCount);
+        }
+        buffer.put(flexLine.mainSize);
+        buffer.put(flexLine.crossSize);
+        buffer.put(flexLine.getItemCount());
+        lineCount++;
+    }
+
+    void putItem(int mainStart, int mainEnd, int crossStart, int crossEnd,
+                 boolean isMainAxisHorizontal, int leftPadding, int topPadding) {
+        if (isMainAxisHorizontal) {
+            buffer.put(leftPadding + mainStart);
+            buffer.put(topPadding + crossStart);
+            buffer.put(leftPadding + mainEnd);
+            buffer.put(topPadding + crossEnd);
+        } else {
+            buffer.put(leftPadding + crossStart);
+            buffer.put(topPadding + mainStart);
+            buffer.put(leftPadding + crossEnd);
+            buffer.put(topPadding + mainEnd);
+        }
+        itemCount++;
+    }
+
+    void finish() {
+        buffer.put(0, itemCount);
+        buffer.put(1, lineCount);
+    }
+
+    /** Empties the results of a pass that stopped before it was done. */
+    void discard() {
+        itemCount = 0;
+        lineCount = 0;
+        buffer.position(HEADER_SIZE);
+        finish();
+    }
+}
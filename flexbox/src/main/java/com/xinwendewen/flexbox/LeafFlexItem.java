@@ -0,0 +1,314 @@
+package com.xinwendewen.flexbox;
+
+/**
+ * A flex item measured by a {@link MeasureFunction} instead of a platform view. The measure
+ * calls of a pass (the initial measure, the min/max clamps, the flexible length and stretch
+ * remeasures) go through a cache of the last {@link MeasureCache#CAPACITY} distinct constraints,
+ * so repeated constraints do not reach the measure function. Call {@link #markDirty()} when the
+ * content of the leaf changes.
+ */
+public class LeafFlexItem extends BaseFlexItem {
+    public static final int NOT_SET = -1;
+    public static final int MATCH_PARENT = -1;
+    public static final int WRAP_CONTENT = -2;
+
+    private final MeasureFunction measureFunction;
+    private final MeasureCache measureCache = new MeasureCache();
+
+    private int width = WRAP_CONTENT;
+    private int height = WRAP_CONTENT;
+    private float flexGrow = 0;
+    private float flexShrink = 1;
+    private float flexBasisPercent = NOT_SET;
+    private AlignSelf alignSelf = AlignSelf.AUTO;
+    private int minWidth;
+    private int minHeight;
+    private int maxWidth = Integer.MAX_VALUE;
+    private int maxHeight = Integer.MAX_VALUE;
+    private int marginLeft;
+    private int marginTop;
+    private int marginRight;
+    private int marginBottom;
+    private boolean gone;
+
+    private int measuredWidth;
+    private int measuredHeight;
+    private int left;
+    private int top;
+    private int right;
+    private int bottom;
+
+    public LeafFlexItem(MeasureFunction measureFunction) {
+        this.measureFunction = measureFunction;
+    }
+
+    public MeasureFunction getMeasureFunction() {
+        return measureFunction;
+    }
+
+    public void markDirty() {
+        measureCache.clear();
+    }
+
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    public void setFlexGrow(float flexGrow) {
+        this.flexGrow = flexGrow;
+    }
+
+    public void setFlexShrink(float flexShrink) {
+        this.flexShrink = flexShrink;
+    }
+
+    public void setFlexBasisPercent(float flexBasisPercent) {
+        this.flexBasisPercent = flexBasisPercent;
+    }
+
+    public void setAlignSelf(AlignSelf alignSelf) {
+        this.alignSelf = alignSelf;
+    }
+
+    public void setMinWidth(int minWidth) {
+        this.minWidth = minWidth;
+    }
+
+    public void setMinHeight(int minHeight) {
+        this.minHeight = minHeight;
+    }
+
+    public void setMaxWidth(int maxWidth) {
+        this.maxWidth = maxWidth;
+    }
+
+    public void setMaxHeight(int maxHeight) {
+        this.maxHeight = maxHeight;
+    }
+
+    public void setMargins(int left, int top, int right, int bottom) {
+        marginLeft = left;
+        marginTop = top;
+        marginRight = right;
+        marginBottom = bottom;
+    }
+
+    public void setGone(boolean gone) {
+        this.gone = gone;
+    }
+
+    public int getLeft() {
+        return left;
+    }
+
+    public int getTop() {
+        return top;
+    }
+
+    public int getRight() {
+        return right;
+    }
+
+    public int getBottom() {
+        return bottom;
+    }
+
+    @Override
+    public int getMeasuredWidth() {
+        return measuredWidth;
+    }
+
+    @Override
+    public int getMeasuredHeight() {
+        return measuredHeight;
+    }
+
+    @Override
+    public boolean isGone() {
+        return gone;
+    }
+
+    @Override
+    public boolean requireCrossSizeMatchParent(boolean isMainAxisHorizontal) {
+        return (isMainAxisHorizontal ? height : width) == MATCH_PARENT;
+    }
+
+    @Override
+    public float getFlexGrow() {
+        return flexGrow;
+    }
+
+    @Override
+    public float getFlexShrink() {
+        return flexShrink;
+    }
+
+    @Override
+    public AlignSelf getAlignSelf() {
+        return alignSelf;
+    }
+
+    @Override
+    public float getFlexBasisPercent() {
+        return flexBasisPercent;
+    }
+
+    @Override
+    protected boolean isFlexBasisPercentSet() {
+        return flexBasisPercent != NOT_SET;
+    }
+
+    @Override
+    protected boolean isFlexShrinkSet() {
+        return flexShrink != NOT_SET;
+    }
+
+    @Override
+    protected boolean isFlexGrowSet() {
+        return flexGrow != NOT_SET;
+    }
+
+    @Override
+    protected int getMarginStart() {
+        return marginLeft;
+    }
+
+    @Override
+    protected int getMarginEnd() {
+        return marginRight;
+    }
+
+    @Override
+    public int getMarginBottom() {
+        return marginBottom;
+    }
+
+    @Override
+    public int getMarginTop() {
+        return marginTop;
+    }
+
+    @Override
+    public int getMarginLeft() {
+        return marginLeft;
+    }
+
+    @Override
+    public int getMarginRight() {
+        return marginRight;
+    }
+
+    @Override
+    public int getMinWidth() {
+        return minWidth;
+    }
+
+    @Override
+    public int getMinHeight() {
+        return minHeight;
+    }
+
+    @Override
+    public int getMaxWidth() {
+        return maxWidth;
+    }
+
+    @Override
+    public int getMaxHeight() {
+        return maxHeight;
+    }
+
+    @Override
+    protected int getMeasuredBaseline() {
+        return -1;
+    }
+
+    @Override
+    public int getRequiredWidth() {
+        return width;
+    }
+
+    @Override
+    public int getRequiredHeight() {
+        return height;
+    }
+
+    @Override
+    protected void measure(MeasureRequest parentWidthMeasureRequest, int parentOccupiedWidth,
+                           int expectedWidth, MeasureRequest parentHeightMeasureRequest,
+                           int parentOccupiedHeight, int expectedHeight) {
+        int occupiedWidth = parentOccupiedWidth + marginLeft + marginRight;
+        int occupiedHeight = parentOccupiedHeight + marginTop + marginBottom;
+        measureLeaf(getChildMode(parentWidthMeasureRequest, expectedWidth),
+                getChildSize(parentWidthMeasureRequest, occupiedWidth, expectedWidth),
+                getChildMode(parentHeightMeasureRequest, expectedHeight),
+                getChildSize(parentHeightMeasureRequest, occupiedHeight, expectedHeight));
+    }
+
+    @Override
+    protected void fixedSizeMeasure(int width, int height) {
+        measureLeaf(MeasureFunction.EXACTLY, width, MeasureFunction.EXACTLY, height);
+    }
+
+    @Override
+    protected void fixedWidthMeasure(int width, MeasureRequest parentHeightMeasureRequest,
+                                     int parentOccupiedHeight, int expectedHeight) {
+        int occupiedHeight = parentOccupiedHeight + marginTop + marginBottom;
+        measureLeaf(MeasureFunction.EXACTLY, width,
+                getChildMode(parentHeightMeasureRequest, expectedHeight),
+                getChildSize(parentHeightMeasureRequest, occupiedHeight, expectedHeight));
+    }
+
+    @Override
+    protected void fixedHeightMeasure(int height, MeasureRequest parentWidthMeasureRequest,
+                                      int parentOccupiedWidth, int expectedWidth) {
+        int occupiedWidth = parentOccupiedWidth + marginLeft + marginRight;
+        measureLeaf(getChildMode(parentWidthMeasureRequest, expectedWidth),
+                getChildSize(parentWidthMeasureRequest, occupiedWidth, expectedWidth),
+                MeasureFunction.EXACTLY, height);
+    }
+
+    private void measureLeaf(int widthMode, int width, int heightMode, int height) {
+        if (widthMode == MeasureFunction.EXACTLY && heightMode == MeasureFunction.EXACTLY) {
+            measuredWidth = width;
+            measuredHeight = height;
+            return;
+        }
+        long size = measureCache.measure(measureFunction, widthMode, width, heightMode, height);
+        measuredWidth = MeasureFunction.unpackWidth(size);
+        measuredHeight = MeasureFunction.unpackHeight(size);
+    }
+
+    // the same resolution as ViewGroup#getChildMeasureSpec
+    static int getChildMode(MeasureRequest parentRequest, int expected) {
+        if (expected >= 0) {
+            return MeasureFunction.EXACTLY;
+        }
+        if (parentRequest.isUnconstrained()) {
+            return MeasureFunction.UNSPECIFIED;
+        }
+        if (parentRequest.isTight() && expected == MATCH_PARENT) {
+            return MeasureFunction.EXACTLY;
+        }
+        return MeasureFunction.AT_MOST;
+    }
+
+    static int getChildSize(MeasureRequest parentRequest, int occupied, int expected) {
+        if (expected >= 0) {
+            return expected;
+        }
+        return Math.max(0, parentRequest.getExpectedSize() - occupied);
+    }
+
+    @Override
+    protected void layout(int left, int top, int right, int bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+}
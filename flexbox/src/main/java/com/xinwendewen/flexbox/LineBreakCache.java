@@ -0,0 +1,89 @@
+package com.xinwendewen.flexbox;
+
+/**
+ * The line breaks of the last {@link #CAPACITY} measure passes of a {@link FlexContainerImpl},
+ * each with the range of main axis sizes of the container they hold for. A pass for a main size
+ * in a known range restores the flex lines without measuring the items, and only resolves the
+ * flexible lengths and stretches the items again, which suits containers resized over and over,
+ * e.g. while a split screen is dragged.
+ *
+ * <p>The entries are for the items, style, paddings and cross axis request of the passes they
+ * come from, and are dropped once any of them changes. The cache assumes an item measured to
+ * less than the size available to it is measured to the same size when more is available, as
+ * text and images are. Call {@link #clear()} when the content of an item changes.
+ */
+public final class LineBreakCache {
+    public static final int CAPACITY = 8;
+
+    private final LineBreaks[] entries = new LineBreaks[CAPACITY];
+    private int count;
+    private int next;
+    private int structureVersion;
+    private FlexStyle flexStyle;
+    private int mainPaddings;
+    private int crossPaddings;
+    private boolean fixedPointArithmetic;
+    private int mainAxisMode;
+    private long crossAxisConstraint;
+    private long hitCount;
+    private long missCount;
+
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            entries[i] = null;
+        }
+        count = 0;
+        next = 0;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    LineBreaks get(FlexContainerImpl container, MeasureRequest mainAxisMeasureRequest,
+                   MeasureRequest crossAxisMeasureRequest) {
+        if (count > 0 && isFor(container, mainAxisMeasureRequest, crossAxisMeasureRequest)) {
+            int mainSize = mainAxisMeasureRequest.getExpectedSize();
+            for (int i = 0; i < count; i++) {
+                if (entries[i].holdsFor(mainSize)) {
+                    hitCount++;
+                    return entries[i];
+                }
+            }
+        }
+        missCount++;
+        return null;
+    }
+
+    void put(FlexContainerImpl container, MeasureRequest mainAxisMeasureRequest,
+             MeasureRequest crossAxisMeasureRequest, LineBreaks lineBreaks) {
+        if (!isFor(container, mainAxisMeasureRequest, crossAxisMeasureRequest)) {
+            clear();
+            structureVersion = container.getStructureVersion();
+            flexStyle = container.getFlexStyle();
+            mainPaddings = container.getMainPaddings();
+            crossPaddings = container.getCrossPaddings();
+            fixedPointArithmetic = container.isFixedPointArithmetic();
+            mainAxisMode = MeasureConstraint.getMode(mainAxisMeasureRequest);
+            crossAxisConstraint = MeasureConstraint.packOf(crossAxisMeasureRequest);
+        }
+        entries[next] = lineBreaks;
+        next = (next + 1) % CAPACITY;
+        count = Math.max(count, next == 0 ? CAPACITY : next);
+    }
+
+    private boolean isFor(FlexContainerImpl container, MeasureRequest mainAxisMeasureRequest,
+                          MeasureRequest crossAxisMeasureRequest) {
+        return structureVersion == container.getStructureVersion()
+                && flexStyle == container.getFlexStyle()
+                && mainPaddings == container.getMainPaddings()
+                && crossPaddings == container.getCrossPaddings()
+                && fixedPointArithmetic == container.isFixedPointArithmetic()
+                && mainAxisMode == MeasureConstraint.getMode(mainAxisMeasureRequest)
+                && crossAxisConstraint == MeasureConstraint.packOf(crossAxisMeasureRequest);
+    }
+}
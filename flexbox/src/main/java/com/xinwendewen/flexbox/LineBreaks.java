@@ -0,0 +1,56 @@
+package com.xinwendewen.flexbox;
+
+import java.util.List;
+
+/**
+ * The flex lines a measure pass of a {@link FlexContainerImpl} broke its items into, the sizes
+ * the items were measured to before the flexible lengths were resolved, and the range of
+ * container main sizes the same line breaks hold for.
+ */
+class LineBreaks {
+    final int minMainSize;
+    final int maxMainSize;
+    final int[] firstItemIndexes;
+    final int[] crossSizesAbove;
+    final int[] itemMainSizes;
+    final int[] itemCrossSizes;
+
+    LineBreaks(int minMainSize, int maxMainSize, List<FlexLine> flexLines, List<FlexItem> items,
+               FlexAxis axis) {
+        this.minMainSize = minMainSize;
+        this.maxMainSize = maxMainSize;
+        int lineCount = flexLines.size();
+        firstItemIndexes = new int[lineCount];
+        crossSizesAbove = new int[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            FlexLine flexLine = flexLines.get(i);
+            firstItemIndexes[i] = flexLine.firstItemIndex;
+            crossSizesAbove[i] = flexLine.crossSizeSumAbove;
+        }
+        int itemCount = items.size();
+        itemMainSizes = new int[itemCount];
+        itemCrossSizes = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            FlexItem item = items.get(i);
+            itemMainSizes[i] = axis.getMeasuredMainSize(item);
+            itemCrossSizes[i] = axis.getMeasuredCrossSize(item);
+        }
+    }
+
+    boolean holdsFor(int mainSize) {
+        return minMainSize <= mainSize && mainSize <= maxMainSize;
+    }
+
+    int getLineCount() {
+        return firstItemIndexes.length;
+    }
+
+    int getItemCount() {
+        return itemMainSizes.length;
+    }
+
+    int getEndItemIndex(int line) {
+        return line + 1 < firstItemIndexes.length ? firstItemIndexes[line + 1]
+                : itemMainSizes.length;
+    }
+}
@@ -0,0 +1,43 @@
+package com.xinwendewen.flexbox;
+
+/**
+ * The results of the last {@link #CAPACITY} distinct measure calls of a leaf, keyed by their
+ * constraints. The oldest entry is evicted first.
+ */
+class MeasureCache {
+    static final int CAPACITY = 8;
+
+    private final long[] widthConstraints = new long[CAPACITY];
+    private final long[] heightConstraints = new long[CAPACITY];
+    private final long[] sizes = new long[CAPACITY];
+    private int count;
+    private int next;
+
+    long measure(MeasureFunction measureFunction, int widthMode, int width, int heightMode,
+                 int height) {
+        long widthConstraint = pack(widthMode, width);
+        long heightConstraint = pack(heightMode, height);
+        for (int i = 0; i < count; i++) {
+            if (widthConstraints[i] == widthConstraint && heightConstraints[i] == heightConstraint) {
+                return sizes[i];
+            }
+        }
+        long size = measureFunction.measure(widthMode, width, heightMode, height);
+        widthConstraints[next] = widthConstraint;
+        heightConstraints[next] = heightConstraint;
+        sizes[next] = size;
+        next = (next + 1) % CAPACITY;
+        count = Math.max(count, next == 0 ? CAPACITY : next);
+        return size;
+    }
+
+    void clear() {
+        count = 0;
+        next = 0;
+    }
+
+    private static long pack(int mode, int size) {
+        // the size is ignored by the measure function when the mode is UNSPECIFIED
+        return MeasureConstraint.pack(mode, mode == MeasureFunction.UNSPECIFIED ? 0 : size);
+    }
+}
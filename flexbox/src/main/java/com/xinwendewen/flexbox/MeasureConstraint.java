@@ -0,0 +1,132 @@
+package com.xinwendewen.flexbox;
+
+/**
+ * An immutable {@link MeasureRequest}: a mode of {@link MeasureFunction} and a size. The pair
+ * packs into a single {@code long} with {@link #pack(int, int)}, which callers can compare, hash
+ * or store as a cache key without allocating, and read back with the static getters.
+ */
+public final class MeasureConstraint implements MeasureRequest {
+    private final long packed;
+
+    private MeasureConstraint(long packed) {
+        this.packed = packed;
+    }
+
+    public static MeasureConstraint of(int mode, int size) {
+        return new MeasureConstraint(pack(mode, size));
+    }
+
+    public static MeasureConstraint exactly(int size) {
+        return of(MeasureFunction.EXACTLY, size);
+    }
+
+    public static MeasureConstraint atMost(int size) {
+        return of(MeasureFunction.AT_MOST, size);
+    }
+
+    /**
+     * An unspecified constraint with {@link Integer#MAX_VALUE} as the expected size, so that the
+     * largest flex line decides the main size of a container.
+     */
+    public static MeasureConstraint unspecified() {
+        return of(MeasureFunction.UNSPECIFIED, Integer.MAX_VALUE);
+    }
+
+    public static MeasureConstraint fromPacked(long packed) {
+        return of(getMode(packed), getSize(packed));
+    }
+
+    /** Returns the request itself if it is a constraint, an immutable copy of it otherwise. */
+    public static MeasureConstraint copyOf(MeasureRequest request) {
+        if (request instanceof MeasureConstraint) {
+            return (MeasureConstraint) request;
+        }
+        return new MeasureConstraint(packOf(request));
+    }
+
+    public static long pack(int mode, int size) {
+        if (mode < MeasureFunction.EXACTLY || mode > MeasureFunction.UNSPECIFIED) {
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        return ((long) mode << 32) | (size & 0xffffffffL);
+    }
+
+    public static long packOf(MeasureRequest request) {
+        if (request instanceof MeasureConstraint) {
+            return ((MeasureConstraint) request).packed;
+        }
+        return pack(getMode(request), request.getExpectedSize());
+    }
+
+    public static int getMode(MeasureRequest request) {
+        if (request.isTight()) {
+            return MeasureFunction.EXACTLY;
+        }
+        return request.isUnconstrained() ? MeasureFunction.UNSPECIFIED : MeasureFunction.AT_MOST;
+    }
+
+    public static int getMode(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    public static int getSize(long packed) {
+        return (int) packed;
+    }
+
+    public static boolean isTight(long packed) {
+        return getMode(packed) == MeasureFunction.EXACTLY;
+    }
+
+    public static boolean isUnconstrained(long packed) {
+        return getMode(packed) == MeasureFunction.UNSPECIFIED;
+    }
+
+    public long getPacked() {
+        return packed;
+    }
+
+    public int getMode() {
+        return getMode(packed);
+    }
+
+    public int getSize() {
+        return getSize(packed);
+    }
+
+    @Override
+    public boolean isTight() {
+        return getMode() == MeasureFunction.EXACTLY;
+    }
+
+    @Override
+    public boolean isUnconstrained() {
+        return getMode() == MeasureFunction.UNSPECIFIED;
+    }
+
+    @Override
+    public int getExpectedSize() {
+        return getSize();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MeasureConstraint && ((MeasureConstraint) o).packed == packed;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(packed);
+    }
+
+    @Override
+    public String toString() {
+        switch (getMode()) {
+            case MeasureFunction.EXACTLY:
+                return "exactly " + getSize();
+            case MeasureFunction.AT_MOST:
+                return "at most " + getSize();
+            default:
+                return "unspecified";
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.xinwendewen.flexbox;
+
+/**
+ * Measures a leaf that is not backed by a platform view, e.g. a block of text.
+ */
+public interface MeasureFunction {
+    /** The leaf must be exactly the given size. */
+    int EXACTLY = 0;
+
+    /** The leaf can be as large as it wants up to the given size. */
+    int AT_MOST = 1;
+
+    /** The leaf can be as large as it wants. The given size is meaningless. */
+    int UNSPECIFIED = 2;
+
+    /**
+     * Must return the same size for the same arguments until the leaf content changes, since
+     * the results are cached.
+     *
+     * @return the measured size packed by {@link #packSize(int, int)}
+     */
+    long measure(int widthMode, int width, int heightMode, int height);
+
+    static long packSize(int width, int height) {
+        return ((long) width << 32) | (height & 0xffffffffL);
+    }
+
+    static int unpackWidth(long size) {
+        return (int) (size >>> 32);
+    }
+
+    static int unpackHeight(long size) {
+        return (int) size;
+    }
+}
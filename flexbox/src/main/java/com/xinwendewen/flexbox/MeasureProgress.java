@@ -0,0 +1,67 @@
+package com.xinwendewen.flexbox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where a measure pass of a {@link FlexContainerImpl} stands, so that the pass can stop at a
+ * deadline and resume later: the phase, the next item and the open flex line while filling the
+ * flex lines, and the next flex line in the later phases.
+ */
+class MeasureProgress {
+    static final int FILL_FLEX_LINES = 0;
+    static final int RESOLVE_FLEXIBLE_LENGTHS = 1;
+    static final int STRETCH_ITEMS = 2;
+    static final int DONE = 3;
+
+    int phase = DONE;
+    int itemIndex;
+    FlexLine currentFlexLine;
+    List<FlexLine> flexLines;
+    int occupiedContainerCrossSize;
+    int mainSize;
+    int lineIndex;
+    int minMainSize;
+    int maxMainSize;
+
+    void start(FlexLine firstFlexLine, int occupiedContainerCrossSize) {
+        phase = FILL_FLEX_LINES;
+        itemIndex = 0;
+        currentFlexLine = firstFlexLine;
+        flexLines = new ArrayList<>();
+        this.occupiedContainerCrossSize = occupiedContainerCrossSize;
+        mainSize = 0;
+        lineIndex = 0;
+        minMainSize = Integer.MIN_VALUE;
+        maxMainSize = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Narrows the main sizes the line breaks hold for by the outcome of a wrap check, where the
+     * item wraps if the main size is less than the wrap size.
+     */
+    void onWrapChecked(int wrapMainSize, boolean isWrapped) {
+        if (isWrapped) {
+            maxMainSize = Math.min(maxMainSize, wrapMainSize - 1);
+        } else {
+            minMainSize = Math.max(minMainSize, wrapMainSize);
+        }
+    }
+
+    /** Narrows the main sizes the line breaks hold for to a single one. */
+    void holdOnlyFor(int mainSize) {
+        minMainSize = Math.max(minMainSize, mainSize);
+        maxMainSize = Math.min(maxMainSize, mainSize);
+    }
+
+    void startPhase(int phase) {
+        this.phase = phase;
+        lineIndex = 0;
+    }
+
+    void finish() {
+        phase = DONE;
+        currentFlexLine = null;
+        flexLines = null;
+    }
+}
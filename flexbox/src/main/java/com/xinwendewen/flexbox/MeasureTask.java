@@ -0,0 +1,99 @@
+package com.xinwendewen.flexbox;
+
+/**
+ * A measure pass of a {@link FlexContainerImpl} that runs in slices: {@link #run(long)} measures
+ * items and resolves flex lines until a deadline, then returns and resumes from the same item or
+ * flex line on the next call. Once it is done the container holds the flex lines of the pass and
+ * can be laid out as after {@link FlexContainerImpl#measure}.
+ *
+ * <p>The container must not be measured by other means while the task runs. When the items or
+ * the style of the container change between two slices, the next slice starts the pass over.
+ * The flexible lengths of one flex line are resolved within a single slice. A slice that throws
+ * a {@link LayoutCancelledException} resets the task.
+ */
+public final class MeasureTask {
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final FlexContainerImpl container;
+    private MeasureConstraint mainAxisMeasureRequest;
+    private MeasureConstraint crossAxisMeasureRequest;
+    private int structureVersion;
+    private FlexStyle flexStyle;
+    private boolean isRunning;
+    private boolean isDone;
+
+    public MeasureTask(FlexContainerImpl container) {
+        this.container = container;
+    }
+
+    /** Starts a pass for the requests, dropping the progress of the current one. */
+    public void start(MeasureRequest mainAxisMeasureRequest,
+                      MeasureRequest crossAxisMeasureRequest) {
+        this.mainAxisMeasureRequest = MeasureConstraint.copyOf(mainAxisMeasureRequest);
+        this.crossAxisMeasureRequest = MeasureConstraint.copyOf(crossAxisMeasureRequest);
+        restart();
+    }
+
+    private void restart() {
+        structureVersion = container.getStructureVersion();
+        flexStyle = container.getFlexStyle();
+        container.startMeasure();
+        isRunning = true;
+        isDone = false;
+    }
+
+    /**
+     * Runs the pass until it is done or {@link System#nanoTime()} reaches the deadline, and
+     * returns whether it is done. Each call makes some progress even if the deadline has already
+     * passed.
+     */
+    public boolean run(long deadlineNanos) {
+        if (!isRunning) {
+            return isDone;
+        }
+        if (structureVersion != container.getStructureVersion()
+                || flexStyle != container.getFlexStyle()) {
+            restart();
+        }
+        boolean isFinished;
+        try {
+            isFinished = container.continueMeasure(mainAxisMeasureRequest,
+                    crossAxisMeasureRequest, deadlineNanos);
+        } catch (LayoutCancelledException e) {
+            // the progress is lost, a cancelled pass has to be started over
+            reset();
+            throw e;
+        }
+        if (isFinished) {
+            isRunning = false;
+            isDone = true;
+        }
+        return isDone;
+    }
+
+    /** Whether a pass was started and is not done yet. */
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /** Whether the last pass is done and its result has not been {@link #reset()}. */
+    public boolean isDone() {
+        return isDone;
+    }
+
+    /** Whether the current or last pass was started for requests equal to the given ones. */
+    public boolean isStartedFor(MeasureRequest mainAxisMeasureRequest,
+                                MeasureRequest crossAxisMeasureRequest) {
+        return (isRunning || isDone)
+                && this.mainAxisMeasureRequest.getPacked()
+                        == MeasureConstraint.packOf(mainAxisMeasureRequest)
+                && this.crossAxisMeasureRequest.getPacked()
+                        == MeasureConstraint.packOf(crossAxisMeasureRequest);
+    }
+
+    /** Forgets the current pass. The container keeps whatever state it is in. */
+    public void reset() {
+        isRunning = false;
+        isDone = false;
+    }
+}
@@ -0,0 +1,51 @@
+package com.xinwendewen.flexbox;
+
+/**
+ * The immutable layout of the subtree of a {@link FlexNode} at a given size: the rects of its
+ * children relative to it, and the layouts of their own subtrees.
+ */
+public final class NodeLayout {
+    final int width;
+    final int height;
+    private final int[] childRects;
+    private final NodeLayout[] childLayouts;
+
+    NodeLayout(int width, int height, int[] childRects, NodeLayout[] childLayouts) {
+        this.width = width;
+        this.height = height;
+        this.childRects = childRects;
+        this.childLayouts = childLayouts;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getChildCount() {
+        return childLayouts.length;
+    }
+
+    public int getChildLeft(int index) {
+        return childRects[index * 4];
+    }
+
+    public int getChildTop(int index) {
+        return childRects[index * 4 + 1];
+    }
+
+    public int getChildRight(int index) {
+        return childRects[index * 4 + 2];
+    }
+
+    public int getChildBottom(int index) {
+        return childRects[index * 4 + 3];
+    }
+
+    public NodeLayout getChildLayout(int index) {
+        return childLayouts[index];
+    }
+}
@@ -0,0 +1,277 @@
+package com.xinwendewen.flexbox.trace;
+
+import com.xinwendewen.flexbox.AlignContent;
+import com.xinwendewen.flexbox.AlignItems;
+import com.xinwendewen.flexbox.AlignSelf;
+import com.xinwendewen.flexbox.FlexDirection;
+import com.xinwendewen.flexbox.FlexStyle;
+import com.xinwendewen.flexbox.FlexWrap;
+import com.xinwendewen.flexbox.JustifyContent;
+import com.xinwendewen.flexbox.MeasureRequest;
+import com.xinwendewen.flexbox.Paddings;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One measure and layout pass of a flex container: the container properties, the measure
+ * requests, the flex properties of each item and the sizes each item reported after every
+ * measure call. Recorded by {@link RecordingFlexContainer} and replayed by
+ * {@link LayoutTraceReplayer} without the original items.
+ */
+public final class LayoutTrace {
+    private static final int MAGIC = 0x464c5854;
+    private static final int VERSION = 1;
+
+    final FlexStyle flexStyle;
+    final Paddings paddings;
+    final boolean fixedPointArithmetic;
+    final Request mainAxisMeasureRequest;
+    final Request crossAxisMeasureRequest;
+    final int left;
+    final int top;
+    final int right;
+    final int bottom;
+    final boolean isRtl;
+    final List<Item> items;
+
+    LayoutTrace(FlexStyle flexStyle, Paddings paddings, boolean fixedPointArithmetic,
+                Request mainAxisMeasureRequest, Request crossAxisMeasureRequest,
+                int left, int top, int right, int bottom, boolean isRtl,
+                List<Item> items) {
+        this.flexStyle = flexStyle;
+        this.paddings = paddings;
+        this.fixedPointArithmetic = fixedPointArithmetic;
+        this.mainAxisMeasureRequest = mainAxisMeasureRequest;
+        this.crossAxisMeasureRequest = crossAxisMeasureRequest;
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+        this.isRtl = isRtl;
+        this.items = items;
+    }
+
+    public int getItemCount() {
+        return items.size();
+    }
+
+    public LayoutTraceReplayer newReplayer() {
+        return new LayoutTraceReplayer(this);
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(flexStyle.flexDirection.ordinal());
+        out.writeByte(flexStyle.flexWrap.ordinal());
+        out.writeByte(flexStyle.justifyContent.ordinal());
+        out.writeByte(flexStyle.alignItems.ordinal());
+        out.writeByte(flexStyle.alignContent.ordinal());
+        out.writeInt(flexStyle.maxLine);
+        out.writeInt(flexStyle.mainGap);
+        out.writeInt(flexStyle.crossGap);
+        out.writeInt(paddings.startPadding);
+        out.writeInt(paddings.endPadding);
+        out.writeInt(paddings.leftPadding);
+        out.writeInt(paddings.rightPadding);
+        out.writeInt(paddings.topPadding);
+        out.writeInt(paddings.bottomPadding);
+        out.writeBoolean(fixedPointArithmetic);
+        mainAxisMeasureRequest.writeTo(out);
+        crossAxisMeasureRequest.writeTo(out);
+        out.writeInt(left);
+        out.writeInt(top);
+        out.writeInt(right);
+        out.writeInt(bottom);
+        out.writeBoolean(isRtl);
+        out.writeInt(items.size());
+        for (Item item : items) {
+            item.writeTo(out);
+        }
+        out.flush();
+    }
+
+    public static LayoutTrace readFrom(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a layout trace");
+        }
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported layout trace version: " + version);
+        }
+        FlexStyle flexStyle = FlexStyle.of(FlexDirection.values()[in.readByte()],
+                FlexWrap.values()[in.readByte()], JustifyContent.values()[in.readByte()],
+                AlignItems.values()[in.readByte()], AlignContent.values()[in.readByte()],
+                in.readInt(), in.readInt(), in.readInt());
+        Paddings paddings = new Paddings();
+        paddings.startPadding = in.readInt();
+        paddings.endPadding = in.readInt();
+        paddings.leftPadding = in.readInt();
+        paddings.rightPadding = in.readInt();
+        paddings.topPadding = in.readInt();
+        paddings.bottomPadding = in.readInt();
+        boolean fixedPointArithmetic = in.readBoolean();
+        Request mainAxisMeasureRequest = Request.readFrom(in);
+        Request crossAxisMeasureRequest = Request.readFrom(in);
+        int left = in.readInt();
+        int top = in.readInt();
+        int right = in.readInt();
+        int bottom = in.readInt();
+        boolean isRtl = in.readBoolean();
+        int itemCount = in.readInt();
+        List<Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(Item.readFrom(in));
+        }
+        return new LayoutTrace(flexStyle, paddings, fixedPointArithmetic, mainAxisMeasureRequest,
+                crossAxisMeasureRequest, left, top, right, bottom, isRtl, items);
+    }
+
+    static final class Request implements MeasureRequest {
+        final boolean isTight;
+        final boolean isUnconstrained;
+        final int expectedSize;
+
+        Request(boolean isTight, boolean isUnconstrained, int expectedSize) {
+            this.isTight = isTight;
+            this.isUnconstrained = isUnconstrained;
+            this.expectedSize = expectedSize;
+        }
+
+        static Request copyOf(MeasureRequest request) {
+            return new Request(request.isTight(), request.isUnconstrained(),
+                    request.getExpectedSize());
+        }
+
+        @Override
+        public boolean isTight() {
+            return isTight;
+        }
+
+        @Override
+        public boolean isUnconstrained() {
+            return isUnconstrained;
+        }
+
+        @Override
+        public int getExpectedSize() {
+            return expectedSize;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeBoolean(isTight);
+            out.writeBoolean(isUnconstrained);
+            out.writeInt(expectedSize);
+        }
+
+        static Request readFrom(DataInputStream in) throws IOException {
+            return new Request(in.readBoolean(), in.readBoolean(), in.readInt());
+        }
+    }
+
+    /**
+     * The flex properties of an item and the (width, height, baseline) triples it reported after
+     * each of its measure calls, in call order. A baseline the engine did not ask for is
+     * {@link #BASELINE_NOT_REQUESTED}.
+     */
+    static final class Item {
+        static final int BASELINE_NOT_REQUESTED = Integer.MIN_VALUE;
+
+        boolean isGone;
+        float flexGrow;
+        float flexShrink;
+        boolean isFlexible;
+        AlignSelf alignSelf;
+        int marginStart;
+        int marginEnd;
+        int marginLeft;
+        int marginRight;
+        int marginTop;
+        int marginBottom;
+        int minWidth;
+        int minHeight;
+        int maxWidth;
+        int maxHeight;
+        boolean matchParentWidth;
+        boolean matchParentHeight;
+        int[] measureResults = new int[12];
+        int measureResultCount;
+
+        void addMeasureResult(int width, int height) {
+            int offset = measureResultCount * 3;
+            if (offset + 3 > measureResults.length) {
+                measureResults = Arrays.copyOf(measureResults, measureResults.length * 2);
+            }
+            measureResults[offset] = width;
+            measureResults[offset + 1] = height;
+            measureResults[offset + 2] = BASELINE_NOT_REQUESTED;
+            measureResultCount++;
+        }
+
+        void setLastBaseline(int baseline) {
+            if (measureResultCount > 0) {
+                measureResults[measureResultCount * 3 - 1] = baseline;
+            }
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeBoolean(isGone);
+            out.writeFloat(flexGrow);
+            out.writeFloat(flexShrink);
+            out.writeBoolean(isFlexible);
+            out.writeByte(alignSelf.ordinal());
+            out.writeInt(marginStart);
+            out.writeInt(marginEnd);
+            out.writeInt(marginLeft);
+            out.writeInt(marginRight);
+            out.writeInt(marginTop);
+            out.writeInt(marginBottom);
+            out.writeInt(minWidth);
+            out.writeInt(minHeight);
+            out.writeInt(maxWidth);
+            out.writeInt(maxHeight);
+            out.writeBoolean(matchParentWidth);
+            out.writeBoolean(matchParentHeight);
+            out.writeInt(measureResultCount);
+            for (int i = 0; i < measureResultCount * 3; i++) {
+                out.writeInt(measureResults[i]);
+            }
+        }
+
+        static Item readFrom(DataInputStream in) throws IOException {
+            Item item = new Item();
+            item.isGone = in.readBoolean();
+            item.flexGrow = in.readFloat();
+            item.flexShrink = in.readFloat();
+            item.isFlexible = in.readBoolean();
+            item.alignSelf = AlignSelf.values()[in.readByte()];
+            item.marginStart = in.readInt();
+            item.marginEnd = in.readInt();
+            item.marginLeft = in.readInt();
+            item.marginRight = in.readInt();
+            item.marginTop = in.readInt();
+            item.marginBottom = in.readInt();
+            item.minWidth = in.readInt();
+            item.minHeight = in.readInt();
+            item.maxWidth = in.readInt();
+            item.maxHeight = in.readInt();
+            item.matchParentWidth = in.readBoolean();
+            item.matchParentHeight = in.readBoolean();
+            item.measureResultCount = in.readInt();
+            item.measureResults = new int[Math.max(item.measureResultCount * 3, 3)];
+            for (int i = 0; i < item.measureResultCount * 3; i++) {
+                item.measureResults[i] = in.readInt();
+            }
+            return item;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.xinwendewen.flexbox.trace;
+
+import com.xinwendewen.flexbox.FlexContainerImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the recorded pass of a {@link LayoutTrace} again on a {@link FlexContainerImpl}, with
+ * stub items answering the measure calls from the trace. A replayer can be run any number of
+ * times, which makes it suitable for benchmarking.
+ */
+public class LayoutTraceReplayer {
+    private final LayoutTrace trace;
+    private final FlexContainerImpl flexContainer = new FlexContainerImpl();
+    private final List<ReplayFlexItem> items;
+
+    LayoutTraceReplayer(LayoutTrace trace) {
+        this.trace = trace;
+        items = new ArrayList<>(trace.items.size());
+        for (LayoutTrace.Item item : trace.items) {
+            items.add(new ReplayFlexItem(item));
+        }
+        flexContainer.setFlexStyle(trace.flexStyle);
+        flexContainer.setPaddings(trace.paddings);
+        flexContainer.setFixedPointArithmetic(trace.fixedPointArithmetic);
+        flexContainer.setFlexItems(items, items.size());
+    }
+
+    /**
+     * @return the flex container after the replayed pass
+     * @throws IllegalStateException if the engine asks for more measure results than recorded,
+     *                               i.e. the trace was recorded with a different engine
+     */
+    public FlexContainerImpl replay() {
+        for (ReplayFlexItem item : items) {
+            item.rewind();
+        }
+        flexContainer.measure(trace.mainAxisMeasureRequest, trace.crossAxisMeasureRequest);
+        flexContainer.layout(trace.left, trace.top, trace.right, trace.bottom, trace.isRtl);
+        return flexContainer;
+    }
+}
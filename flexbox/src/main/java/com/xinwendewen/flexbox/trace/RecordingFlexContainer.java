@@ -0,0 +1,157 @@
+package com.xinwendewen.flexbox.trace;
+
+import com.xinwendewen.flexbox.AlignContent;
+import com.xinwendewen.flexbox.AlignItems;
+import com.xinwendewen.flexbox.FlexContainer;
+import com.xinwendewen.flexbox.FlexDirection;
+import com.xinwendewen.flexbox.FlexItem;
+import com.xinwendewen.flexbox.FlexLine;
+import com.xinwendewen.flexbox.FlexStyle;
+import com.xinwendewen.flexbox.FlexWrap;
+import com.xinwendewen.flexbox.JustifyContent;
+import com.xinwendewen.flexbox.MeasureRequest;
+import com.xinwendewen.flexbox.Paddings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A flex container recording the last measure pass, and the layout pass following it, of the
+ * container it wraps into a {@link LayoutTrace}.
+ */
+public class RecordingFlexContainer implements FlexContainer {
+    private final FlexContainer delegate;
+    private final List<RecordingFlexItem> items = new ArrayList<>();
+    private final Paddings paddings = new Paddings();
+    private LayoutTrace.Request mainAxisMeasureRequest;
+    private LayoutTrace.Request crossAxisMeasureRequest;
+    private LayoutTrace trace;
+
+    public RecordingFlexContainer(FlexContainer delegate) {
+        this.delegate = delegate;
+    }
+
+    public FlexContainer getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @return the trace of the last measure and layout passes, or {@code null} if the container
+     * has not been laid out since it was last measured
+     */
+    public LayoutTrace getTrace() {
+        return trace;
+    }
+
+    @Override
+    public void setFlexDirection(FlexDirection flexDirection) {
+        delegate.setFlexDirection(flexDirection);
+    }
+
+    @Override
+    public void setFlexWrap(FlexWrap flexWrap) {
+        delegate.setFlexWrap(flexWrap);
+    }
+
+    @Override
+    public void setJustifyContent(JustifyContent justifyContent) {
+        delegate.setJustifyContent(justifyContent);
+    }
+
+    @Override
+    public void setAlignContent(AlignContent alignContent) {
+        delegate.setAlignContent(alignContent);
+    }
+
+    @Override
+    public void setAlignItems(AlignItems alignItems) {
+        delegate.setAlignItems(alignItems);
+    }
+
+    @Override
+    public void setFlexStyle(FlexStyle flexStyle) {
+        delegate.setFlexStyle(flexStyle);
+    }
+
+    @Override
+    public FlexStyle getFlexStyle() {
+        return delegate.getFlexStyle();
+    }
+
+    @Override
+    public void setPaddings(Paddings paddings) {
+        this.paddings.update(paddings);
+        delegate.setPaddings(paddings);
+    }
+
+    @Override
+    public void setFixedPointArithmetic(boolean enabled) {
+        delegate.setFixedPointArithmetic(enabled);
+    }
+
+    @Override
+    public boolean isFixedPointArithmetic() {
+        return delegate.isFixedPointArithmetic();
+    }
+
+    @Override
+    public <T extends FlexItem> void setFlexItems(List<T> flexItems, int count) {
+        items.clear();
+        for (int i = 0; i < count; i++) {
+            items.add(new RecordingFlexItem(flexItems.get(i)));
+        }
+        delegate.setFlexItems(items, count);
+    }
+
+    @Override
+    public void addFlexItem(int index, FlexItem flexItem) {
+        RecordingFlexItem item = new RecordingFlexItem(flexItem);
+        items.add(index, item);
+        delegate.addFlexItem(index, item);
+    }
+
+    @Override
+    public void removeFlexItemAt(int index) {
+        items.remove(index);
+        delegate.removeFlexItemAt(index);
+    }
+
+    @Override
+    public int getStructureVersion() {
+        return delegate.getStructureVersion();
+    }
+
+    @Override
+    public void measure(MeasureRequest mainAxisMeasureRequest,
+                        MeasureRequest crossAxisMeasureRequest) {
+        trace = null;
+        this.mainAxisMeasureRequest = LayoutTrace.Request.copyOf(mainAxisMeasureRequest);
+        this.crossAxisMeasureRequest = LayoutTrace.Request.copyOf(crossAxisMeasureRequest);
+        for (RecordingFlexItem item : items) {
+            item.startTrace();
+        }
+        delegate.measure(mainAxisMeasureRequest, crossAxisMeasureRequest);
+    }
+
+    @Override
+    public void layout(int left, int top, int right, int bottom, boolean isRtl) {
+        delegate.layout(left, top, right, bottom, isRtl);
+        if (mainAxisMeasureRequest == null) {
+            return;
+        }
+        List<LayoutTrace.Item> itemTraces = new ArrayList<>(items.size());
+        for (RecordingFlexItem item : items) {
+            itemTraces.add(item.trace);
+        }
+        Paddings tracePaddings = new Paddings();
+        tracePaddings.update(paddings);
+        trace = new LayoutTrace(delegate.getFlexStyle(), tracePaddings,
+                delegate.isFixedPointArithmetic(), mainAxisMeasureRequest,
+                crossAxisMeasureRequest, left, top, right, bottom, isRtl, itemTraces);
+    }
+
+    @Override
+    public List<FlexLine> getFlexLines() {
+        return delegate.getFlexLines();
+    }
+}
@@ -0,0 +1,191 @@
+package com.xinwendewen.flexbox.trace;
+
+import com.xinwendewen.flexbox.AlignSelf;
+import com.xinwendewen.flexbox.FlexItem;
+import com.xinwendewen.flexbox.MeasureRequest;
+
+class RecordingFlexItem implements FlexItem {
+    final FlexItem delegate;
+    LayoutTrace.Item trace = new LayoutTrace.Item();
+
+    RecordingFlexItem(FlexItem delegate) {
+        this.delegate = delegate;
+    }
+
+    void startTrace() {
+        LayoutTrace.Item item = new LayoutTrace.Item();
+        item.isGone = delegate.isGone();
+        item.flexGrow = delegate.getFlexGrow();
+        item.flexShrink = delegate.getFlexShrink();
+        item.isFlexible = delegate.isFlexible();
+        item.alignSelf = delegate.getAlignSelf();
+        item.marginStart = delegate.getMainAxisMarginStart(true);
+        item.marginEnd = delegate.getMainAxisMarginEnd(true);
+        item.marginTop = delegate.getCrossAxisMarginStart(true);
+        item.marginBottom = delegate.getCrossAxisMarginEnd(true);
+        item.marginLeft = delegate.getCrossAxisMarginStart(false);
+        item.marginRight = delegate.getCrossAxisMarginEnd(false);
+        item.minWidth = delegate.getMinMainSize(true);
+        item.minHeight = delegate.getMinMainSize(false);
+        item.maxWidth = (int) delegate.getMaxMainSize(true);
+        item.maxHeight = (int) delegate.getMaxMainSize(false);
+        item.matchParentWidth = delegate.requireCrossSizeMatchParent(false);
+        item.matchParentHeight = delegate.requireCrossSizeMatchParent(true);
+        trace = item;
+    }
+
+    private void recordMeasureResult() {
+        trace.addMeasureResult(delegate.getMeasuredMainSize(true),
+                delegate.getMeasuredCrossSize(true));
+    }
+
+    @Override
+    public boolean isGone() {
+        return delegate.isGone();
+    }
+
+    @Override
+    public void measure(MeasureRequest mainAxisMeasureRequest, int occupiedMainSize,
+                        MeasureRequest crossAxisMeasureRequest, int occupiedCrossSize,
+                        boolean isMainAxisHorizontal) {
+        delegate.measure(mainAxisMeasureRequest, occupiedMainSize, crossAxisMeasureRequest,
+                occupiedCrossSize, isMainAxisHorizontal);
+        recordMeasureResult();
+    }
+
+    @Override
+    public void fixedMainSizeMeasure(int roundedNewMainSize,
+                                     MeasureRequest crossAxisMeasureRequest,
+                                     int occupiedCrossSize, boolean isMainAxisHorizontal) {
+        delegate.fixedMainSizeMeasure(roundedNewMainSize, crossAxisMeasureRequest,
+                occupiedCrossSize, isMainAxisHorizontal);
+        recordMeasureResult();
+    }
+
+    @Override
+    public void clampByMinMaxDimensions() {
+        delegate.clampByMinMaxDimensions();
+        recordMeasureResult();
+    }
+
+    @Override
+    public void fixedSizeMeasure(int mainSize, int crossSize, boolean isMainAxisHorizontal) {
+        delegate.fixedSizeMeasure(mainSize, crossSize, isMainAxisHorizontal);
+        recordMeasureResult();
+    }
+
+    @Override
+    public int getOuterMainSize(boolean isMainAxisHorizontal) {
+        return delegate.getOuterMainSize(isMainAxisHorizontal);
+    }
+
+    @Override
+    public boolean requireCrossSizeMatchParent(boolean isMainAxisHorizontal) {
+        return delegate.requireCrossSizeMatchParent(isMainAxisHorizontal);
+    }
+
+    @Override
+    public float getFlexGrow() {
+        return delegate.getFlexGrow();
+    }
+
+    @Override
+    public float getFlexShrink() {
+        return delegate.getFlexShrink();
+    }
+
+    @Override
+    public boolean isFlexible() {
+        return delegate.isFlexible();
+    }
+
+    @Override
+    public int getOuterCrossSize(boolean isMainAxisHorizontal) {
+        return delegate.getOuterCrossSize(isMainAxisHorizontal);
+    }
+
+    @Override
+    public AlignSelf getAlignSelf() {
+        return delegate.getAlignSelf();
+    }
+
+    @Override
+    public int getBaseline() {
+        // only the engine's own requests are recorded, computing a baseline can be expensive
+        int baseline = delegate.getBaseline();
+        trace.setLastBaseline(baseline);
+        return baseline;
+    }
+
+    @Override
+    public int getMeasuredMainSize(boolean mainAxisHorizontal) {
+        return delegate.getMeasuredMainSize(mainAxisHorizontal);
+    }
+
+    @Override
+    public int getMinMainSize(boolean isMainAxisHorizontal) {
+        return delegate.getMinMainSize(isMainAxisHorizontal);
+    }
+
+    @Override
+    public float getMaxMainSize(boolean isMainAxisHorizontal) {
+        return delegate.getMaxMainSize(isMainAxisHorizontal);
+    }
+
+    @Override
+    public int getMainAxisMargin(boolean isMainAxisHorizontal) {
+        return delegate.getMainAxisMargin(isMainAxisHorizontal);
+    }
+
+    @Override
+    public int getMainAxisMarginStart(boolean isMainAxisHorizontal) {
+        return delegate.getMainAxisMarginStart(isMainAxisHorizontal);
+    }
+
+    @Override
+    public int getMainAxisMarginEnd(boolean isMainAxisHorizontal) {
+        return delegate.getMainAxisMarginEnd(isMainAxisHorizontal);
+    }
+
+    @Override
+    public int getCrossAxisMargin(boolean isMainAxisHorizontal) {
+        return delegate.getCrossAxisMargin(isMainAxisHorizontal);
+    }
+
+    @Override
+    public int getCrossAxisMarginStart(boolean isMainAxisHorizontal) {
+        return delegate.getCrossAxisMarginStart(isMainAxisHorizontal);
+    }
+
+    @Override
+    public int getCrossAxisMarginEnd(boolean isMainAxisHorizontal) {
+        return delegate.getCrossAxisMarginEnd(isMainAxisHorizontal);
+    }
+
+    @Override
+    public int getMeasuredCrossSize(boolean isMainAxisHorizontal) {
+        return delegate.getMeasuredCrossSize(isMainAxisHorizontal);
+    }
+
+    @Override
+    public void layout(int mainStart, int mainEnd, int crossStart, int crossEnd,
+                       boolean isMainAxisHorizontal, int leftPadding, int topPadding) {
+        delegate.layout(mainStart, mainEnd, crossStart, crossEnd, isMainAxisHorizontal,
+                leftPadding, topPadding);
+    }
+
+    @Override
+    public int getClampedCrossSize(int crossSize, boolean isMainAxisHorizontal) {
+        return delegate.getClampedCrossSize(crossSize, isMainAxisHorizontal);
+    }
+
+    @Override
+    public int getMinCrossSize(boolean isMainAxisHorizontal) {
+        return delegate.getMinCrossSize(isMainAxisHorizontal);
+    }
+
+    @Override
+    public int getMaxCrossSize(boolean isMainAxisHorizontal) {
+        return delegate.getMaxCrossSize(isMainAxisHorizontal);
+    }
+}
@@ -0,0 +1,222 @@
+package com.xinwendewen.flexbox.trace;
+
+import com.xinwendewen.flexbox.AlignSelf;
+import com.xinwendewen.flexbox.BaseFlexItem;
+import com.xinwendewen.flexbox.MeasureRequest;
+
+/**
+ * A flex item answering every measure call with the next size recorded in the trace.
+ */
+class ReplayFlexItem extends BaseFlexItem {
+    private final LayoutTrace.Item trace;
+    private int nextMeasureResult;
+    private int measuredWidth;
+    private int measuredHeight;
+    private int measuredBaseline;
+    int left;
+    int top;
+    int right;
+    int bottom;
+
+    ReplayFlexItem(LayoutTrace.Item trace) {
+        this.trace = trace;
+    }
+
+    void rewind() {
+        nextMeasureResult = 0;
+    }
+
+    private void replayMeasureResult() {
+        if (nextMeasureResult >= trace.measureResultCount) {
+            throw new IllegalStateException("The trace has no more measure results");
+        }
+        int offset = nextMeasureResult * 3;
+        measuredWidth = trace.measureResults[offset];
+        measuredHeight = trace.measureResults[offset + 1];
+        measuredBaseline = trace.measureResults[offset + 2];
+        nextMeasureResult++;
+    }
+
+    @Override
+    public void measure(MeasureRequest mainAxisMeasureRequest, int occupiedMainSize,
+                        MeasureRequest crossAxisMeasureRequest, int occupiedCrossSize,
+                        boolean isMainAxisHorizontal) {
+        super.measure(mainAxisMeasureRequest, occupiedMainSize, crossAxisMeasureRequest,
+                occupiedCrossSize, isMainAxisHorizontal);
+        replayMeasureResult();
+    }
+
+    @Override
+    public void fixedMainSizeMeasure(int roundedNewMainSize,
+                                     MeasureRequest crossAxisMeasureRequest,
+                                     int occupiedCrossSize, boolean isMainAxisHorizontal) {
+        super.fixedMainSizeMeasure(roundedNewMainSize, crossAxisMeasureRequest,
+                occupiedCrossSize, isMainAxisHorizontal);
+        replayMeasureResult();
+    }
+
+    @Override
+    public void clampByMinMaxDimensions() {
+        super.clampByMinMaxDimensions();
+        replayMeasureResult();
+    }
+
+    @Override
+    public void fixedSizeMeasure(int mainSize, int crossSize, boolean isMainAxisHorizontal) {
+        super.fixedSizeMeasure(mainSize, crossSize, isMainAxisHorizontal);
+        replayMeasureResult();
+    }
+
+    @Override
+    protected void measure(MeasureRequest parentWidthMeasureRequest, int parentOccupiedWidth,
+                           int expectedWidth, MeasureRequest parentHeightMeasureRequest,
+                           int parentOccupiedHeight, int expectedHeight) {
+    }
+
+    @Override
+    protected void fixedSizeMeasure(int width, int height) {
+    }
+
+    @Override
+    protected void fixedWidthMeasure(int width, MeasureRequest parentHeightMeasureRequest,
+                                     int parentOccupiedHeight, int expectedHeight) {
+    }
+
+    @Override
+    protected void fixedHeightMeasure(int height, MeasureRequest parentWidthMeasureRequest,
+                                      int parentOccupiedWidth, int expectedWidth) {
+    }
+
+    @Override
+    protected void layout(int left, int top, int right, int bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    @Override
+    public boolean isGone() {
+        return trace.isGone;
+    }
+
+    @Override
+    public boolean requireCrossSizeMatchParent(boolean isMainAxisHorizontal) {
+        return isMainAxisHorizontal ? trace.matchParentHeight : trace.matchParentWidth;
+    }
+
+    @Override
+    public float getFlexGrow() {
+        return trace.flexGrow;
+    }
+
+    @Override
+    public float getFlexShrink() {
+        return trace.flexShrink;
+    }
+
+    @Override
+    public boolean isFlexible() {
+        return trace.isFlexible;
+    }
+
+    @Override
+    public AlignSelf getAlignSelf() {
+        return trace.alignSelf;
+    }
+
+    @Override
+    protected float getFlexBasisPercent() {
+        return 0;
+    }
+
+    @Override
+    protected boolean isFlexBasisPercentSet() {
+        return false;
+    }
+
+    @Override
+    protected boolean isFlexShrinkSet() {
+        return trace.isFlexible;
+    }
+
+    @Override
+    protected boolean isFlexGrowSet() {
+        return trace.isFlexible;
+    }
+
+    @Override
+    protected int getMarginStart() {
+        return trace.marginStart;
+    }
+
+    @Override
+    protected int getMarginEnd() {
+        return trace.marginEnd;
+    }
+
+    @Override
+    protected int getMarginBottom() {
+        return trace.marginBottom;
+    }
+
+    @Override
+    protected int getMarginTop() {
+        return trace.marginTop;
+    }
+
+    @Override
+    protected int getMarginLeft() {
+        return trace.marginLeft;
+    }
+
+    @Override
+    protected int getMarginRight() {
+        return trace.marginRight;
+    }
+
+    @Override
+    protected int getMinWidth() {
+        return trace.minWidth;
+    }
+
+    @Override
+    protected int getMinHeight() {
+        return trace.minHeight;
+    }
+
+    @Override
+    protected int getMaxWidth() {
+        return trace.maxWidth;
+    }
+
+    @Override
+    protected int getMaxHeight() {
+        return trace.maxHeight;
+    }
+
+    @Override
+    protected int getMeasuredWidth() {
+        return measuredWidth;
+    }
+
+    @Override
+    protected int getMeasuredHeight() {
+        return measuredHeight;
+    }
+
+    @Override
+    protected int getMeasuredBaseline() {
+        return measuredBaseline;
+    }
+
+    @Override
+    protected int getRequiredWidth() {
+        return 0;
+    }
+
+    @Override
+    protected int getRequiredHeight() {
+        return 0;
+    }
+}